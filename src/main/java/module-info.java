@@ -1,6 +1,7 @@
 module uk.oczadly.karl.csgogsi {
     
     exports uk.oczadly.karl.csgsi;
+    exports uk.oczadly.karl.csgsi.events;
     
     exports uk.oczadly.karl.csgsi.state;
     exports uk.oczadly.karl.csgsi.state.components;
@@ -8,6 +9,12 @@ module uk.oczadly.karl.csgogsi {
     
     exports uk.oczadly.karl.csgsi.config;
     
+    // Gson requires reflective access to the state model
+    opens uk.oczadly.karl.csgsi.state to com.google.gson;
+    opens uk.oczadly.karl.csgsi.state.components to com.google.gson;
+    opens uk.oczadly.karl.csgsi.state.components.grenade to com.google.gson;
+    opens uk.oczadly.karl.csgsi.internal to com.google.gson;
+    
     
     //Dependencies
     requires transitive com.google.gson;
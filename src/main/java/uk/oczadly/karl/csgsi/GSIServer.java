@@ -1,20 +1,28 @@
 package uk.oczadly.karl.csgsi;
 
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonParser;
-import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.oczadly.karl.csgsi.config.DataComponent;
 import uk.oczadly.karl.csgsi.config.GSIConfig;
-import uk.oczadly.karl.csgsi.internal.Util;
+import uk.oczadly.karl.csgsi.internal.AuthTokenGate;
+import uk.oczadly.karl.csgsi.internal.JsonSectionIndex;
+import uk.oczadly.karl.csgsi.internal.LazyGameState;
+import uk.oczadly.karl.csgsi.internal.SnapshotGameState;
+import uk.oczadly.karl.csgsi.internal.StateFingerprint;
+import uk.oczadly.karl.csgsi.internal.VirtualThreads;
+import uk.oczadly.karl.csgsi.internal.httpserver.BlockingHTTPServer;
 import uk.oczadly.karl.csgsi.internal.httpserver.HTTPServer;
+import uk.oczadly.karl.csgsi.internal.httpserver.HTTPServerConfig;
 import uk.oczadly.karl.csgsi.state.GameState;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -69,20 +77,36 @@ public final class GSIServer {
     private static final Logger LOGGER = LoggerFactory.getLogger(GSIServer.class);
     
     final HTTPServer server;
-    final ListenerRegistry listeners = new ListenerRegistry();
+    final ListenerRegistry listeners;
+    final StateUpdatePipeline pipeline; // Null if updates are processed before responding
+    final boolean lazyParsing;
+    final boolean suppressDuplicates;
+    final boolean asyncDispatch;
     final Map<String, String> requiredAuthTokens;
+    final AuthTokenGate authGate;
     final boolean diagPageEnabled;
     
     volatile Instant serverStartTimestamp;
     final ServerStats stats = new ServerStats(); // Holds statistics on the server and state
+    final Map<ClientKey, Long> clientFingerprints = new ConcurrentHashMap<>(); // Latest state of each client and path
     
     
     GSIServer(InetAddress bindAddr, int port, Map<String, String> authTokens,
-              Collection<GSIListener> listeners, boolean diagPageEnabled) {
-        this.server = new HTTPServer(port, bindAddr, new GSIServerHTTPHandler(this));
-        this.requiredAuthTokens = Collections.unmodifiableMap(authTokens);
+              Collection<GSIListener> listeners, boolean diagPageEnabled, HTTPServerConfig httpConfig,
+              StateUpdatePipeline pipeline, boolean lazyParsing, boolean suppressDuplicates,
+              boolean asyncDispatch, Duration listenerTimeout, ListenerFailureHandler failureHandler) {
+        this.server = HTTPServer.create(port, bindAddr, new GSIServerHTTPHandler(this), httpConfig);
+        this.listeners = new ListenerRegistry(httpConfig.isVirtualThreads()
+                ? ListenerRegistry.virtualHandlerExecutor() : ListenerRegistry.HANDLER_EXECUTOR,
+                listenerTimeout, failureHandler);
+        this.requiredAuthTokens = Collections.unmodifiableMap(new HashMap<>(authTokens));
+        this.authGate = new AuthTokenGate(this.requiredAuthTokens);
         this.listeners.register(listeners);
         this.diagPageEnabled = diagPageEnabled;
+        this.pipeline = pipeline;
+        this.lazyParsing = lazyParsing;
+        this.suppressDuplicates = suppressDuplicates;
+        this.asyncDispatch = asyncDispatch;
     }
     
     
@@ -112,8 +136,14 @@ public final class GSIServer {
         } else {
             this.requiredAuthTokens = Collections.emptyMap();
         }
+        this.authGate = new AuthTokenGate(this.requiredAuthTokens);
         
-        this.server = new HTTPServer(port, bindAddr, new GSIServerHTTPHandler(this));
+        this.server = new BlockingHTTPServer(port, bindAddr, new GSIServerHTTPHandler(this));
+        this.listeners = new ListenerRegistry();
+        this.pipeline = null;
+        this.lazyParsing = false;
+        this.suppressDuplicates = false;
+        this.asyncDispatch = false;
         this.diagPageEnabled = true;
     }
     
@@ -182,6 +212,44 @@ public final class GSIServer {
         listeners.register(listener);
     }
     
+    /**
+     * Subscribes a new listener which is only notified when the data of at least one of the given components has
+     * changed since the last state the listener was notified of. New listeners can be registered regardless of the
+     * running state of the server.
+     *
+     * <p>Changes are tracked per top-level section (see {@link GameStateDiff.Section#of(DataComponent)}), so a listener
+     * interested in {@link DataComponent#PLAYER_STATE} will also be notified when the player's position changes. Note
+     * that the {@link DataComponent#PROVIDER provider} section changes with every state, as it contains a
+     * timestamp.</p>
+     *
+     * @param listener   the listener to register
+     * @param components the data components the listener is interested in
+     */
+    public void registerListener(GSIListener listener, DataComponent... components) {
+        if (components == null || components.length == 0)
+            throw new IllegalArgumentException("At least one data component must be specified.");
+        Set<GameStateDiff.Section> sections = EnumSet.noneOf(GameStateDiff.Section.class);
+        for (DataComponent component : components) {
+            if (component == null) throw new IllegalArgumentException("Data component cannot be null.");
+            sections.add(GameStateDiff.Section.of(component));
+        }
+        listeners.register(listener, sections);
+    }
+    
+    /**
+     * Subscribes a new listener which is only notified when at least one of the given sections has changed since the
+     * last state the listener was notified of. New listeners can be registered regardless of the running state of
+     * the server.
+     *
+     * @param listener the listener to register
+     * @param sections the state sections the listener is interested in
+     */
+    public void registerListener(GSIListener listener, GameStateDiff.Section... sections) {
+        if (sections == null || sections.length == 0)
+            throw new IllegalArgumentException("At least one section must be specified.");
+        listeners.register(listener, Arrays.asList(sections));
+    }
+    
     /**
      * Removes a listener from the list, and will no longer receive updates. Listeners can be removed while the server
      * is running, although they may still receive updates for a short period while being removed.
@@ -213,13 +281,28 @@ public final class GSIServer {
         
         LOGGER.debug("Attempting to start GSI server on port {}...", server.getPort());
         
-        stats.latestState = null;
-        stats.latestContext = null;
+        synchronized (stats) {
+            stats.latestState = null;
+            stats.latestContext = null;
+            Arrays.fill(stats.sectionVersions, 0);
+            listeners.resetInterests();
+        }
         stats.stateRejectCounter.set(0);
+        stats.stateDuplicateCounter.set(0);
         stats.stateCounter.set(0);
+        clientFingerprints.clear();
+        server.getStats().reset();
         serverStartTimestamp = Instant.now();
         
-        server.start();
+        if (pipeline != null)
+            pipeline.start();
+        try {
+            server.start();
+        } catch (IOException e) {
+            if (pipeline != null)
+                pipeline.stop();
+            throw e;
+        }
         LOGGER.info("GSI server successfully started.");
         LOGGER.info("Port: {}, bind IP: {}, auth required: {}, diagnostics enabled: {}.",
                 server.getPort(), server.getBindAddress(), !requiredAuthTokens.isEmpty(), diagPageEnabled);
@@ -233,6 +316,8 @@ public final class GSIServer {
     public void stop() {
         LOGGER.debug("Attempting to stop GSI server running on port {}...", server.getPort());
         server.stop();
+        if (pipeline != null)
+            pipeline.stop();
         LOGGER.info("GSI server on port {} successfully shut down.", server.getPort());
     }
     
@@ -269,60 +354,159 @@ public final class GSIServer {
      * Handles a new JSON state and notifies the appropriate listeners.
      */
     void handleStateUpdate(String json, String path, InetAddress address) {
+        handleStateUpdate(json.getBytes(StandardCharsets.UTF_8), path, address);
+    }
+    
+    /**
+     * Handles a new JSON state (as raw UTF-8 bytes) and notifies the appropriate listeners. The auth tokens are
+     * verified against the raw bytes before any parsing takes place. The byte offsets of the top-level sections are
+     * then indexed in a single scan of the body (see {@link JsonSectionIndex}), which is also used for duplicate
+     * suppression if enabled. By default, each section is then hashed and, unless unchanged from the previous state,
+     * deserialized separately from its byte range (see {@link SnapshotGameState}); with lazy parsing, sections are
+     * instead deserialized when first accessed. The JSON tree and String are only created if requested through the
+     * {@link GameStateContext}.
+     */
+    void handleStateUpdate(byte[] json, String path, InetAddress address) {
         LOGGER.debug("Handling new state update on server running on port {}...", getPort());
         
-        JsonObject jsonObject;
-        try {
-            jsonObject = JsonParser.parseString(json).getAsJsonObject();
-        } catch (JsonParseException e) {
-            LOGGER.warn("GSI server received invalid JSON object", e);
-            return;
-        }
-        
-        Map<String, String> authTokens = verifyStateAuth(jsonObject);
-        if (authTokens == null) {
+        if (!authGate.verify(json)) {
             stats.stateRejectCounter.incrementAndGet();
             LOGGER.warn("GSI state update rejected due to auth token mismatch");
             return;
         }
         
-        // Parse the game state into an object
-        GameState state = Util.GSON.fromJson(jsonObject, GameState.class);
-    
-        // Calculate information
-        int counter = this.stats.stateCounter.incrementAndGet();
-        Instant now = Instant.now();
-        
-        // Create context object
-        GameStateContext context = new GameStateContext(this, path, this.stats.latestState, now,
-                this.stats.latestContext != null ? this.stats.latestContext.getTimestamp() : null,
-                counter, address, authTokens, jsonObject, json);
+        JsonSectionIndex index = null;
+        Runnable onDiscard = null;
+        if (suppressDuplicates) {
+            try {
+                index = JsonSectionIndex.scan(json);
+            } catch (JsonParseException e) {
+                LOGGER.warn("GSI server received invalid JSON object", e);
+                return;
+            }
+            // Recorded before queueing, so that duplicates of a queued state are also suppressed
+            ClientKey client = new ClientKey(address, path);
+            long fingerprint = StateFingerprint.compute(json, index, path != null ? path.hashCode() : 0);
+            Long previous = clientFingerprints.put(client, fingerprint);
+            if (previous != null && previous == fingerprint) {
+                stats.stateDuplicateCounter.incrementAndGet();
+                LOGGER.debug("Suppressed duplicate GSI state update");
+                return;
+            }
+            // Roll back if the state is dropped or invalid, so that it is not suppressed when re-sent
+            onDiscard = () -> {
+                if (previous != null) {
+                    clientFingerprints.replace(client, fingerprint, previous);
+                } else {
+                    clientFingerprints.remove(client, fingerprint);
+                }
+            };
+        }
         
-        // Update latest state and timestamps
-        this.stats.latestState = state;
-        this.stats.latestContext = context;
+        Instant received = Instant.now();
+        JsonSectionIndex finalIndex = index;
+        Runnable finalOnDiscard = onDiscard;
+        if (pipeline != null) {
+            // Defer parsing and processing, so the client can be acknowledged immediately
+            pipeline.submit(() -> parseStateUpdate(json, finalIndex, path, address, received, finalOnDiscard),
+                    onDiscard);
+        } else {
+            parseStateUpdate(json, index, path, address, received, onDiscard);
+        }
+    }
+    
+    /**
+     * Deserializes an authorized state update, and passes it on for processing. If the state is invalid, the given
+     * callback (if not null) is run.
+     */
+    private void parseStateUpdate(byte[] json, JsonSectionIndex index, String path, InetAddress address,
+                                  Instant received, Runnable onInvalid) {
+        GameState state;
+        Map<String, String> authTokens;
+        try {
+            if (lazyParsing) {
+                LazyGameState lazyState = index != null
+                        ? LazyGameState.parse(json, index) : LazyGameState.parse(json);
+                authTokens = lazyState.readAuthTokens();
+                state = lazyState;
+            } else {
+                // Share unchanged sections and players with the previous state
+                GameState previous = stats.latestState;
+                SnapshotGameState prevSnapshot = previous instanceof SnapshotGameState
+                        ? (SnapshotGameState)previous : null;
+                if (index == null)
+                    index = JsonSectionIndex.scan(json);
+                state = SnapshotGameState.parse(json, index, prevSnapshot);
+                authTokens = SnapshotGameState.readAuthTokens(json, index);
+            }
+        } catch (JsonParseException e) {
+            LOGGER.warn("GSI server received invalid JSON object", e);
+            if (onInvalid != null)
+                onInvalid.run();
+            return;
+        }
+        processStateUpdate(state, json, authTokens, path, address, received);
+    }
+    
+    /**
+     * Updates the latest state and notifies the listeners of an authenticated state.
+     */
+    private void processStateUpdate(GameState state, byte[] json, Map<String, String> authTokens,
+                                    String path, InetAddress address, Instant received) {
+        GameStateContext context;
+        int[] sectionVersions;
+        synchronized (stats) { // States may be received concurrently when using non-blocking IO
+            // Calculate information
+            int counter = this.stats.stateCounter.incrementAndGet();
+            int changed = GameStateDiff.changedSections(this.stats.latestState, state);
+            for (int i = 0; i < this.stats.sectionVersions.length; i++)
+                if ((changed & (1 << i)) != 0) this.stats.sectionVersions[i] = counter;
+            sectionVersions = this.stats.sectionVersions.clone();
+            
+            // Create context object
+            context = new GameStateContext(this, path, state, this.stats.latestState, received,
+                    this.stats.latestContext != null ? this.stats.latestContext.getTimestamp() : null,
+                    counter, address, authTokens, json);
+            
+            // Update latest state and timestamps
+            this.stats.latestState = state;
+            this.stats.latestContext = context;
+        }
         
         // Notify listeners
-        listeners.notify(state, context);
+        if (asyncDispatch) {
+            listeners.notifyAsync(state, context, sectionVersions);
+        } else {
+            listeners.notify(state, context, sectionVersions);
+        }
     }
     
-    private Map<String, String> verifyStateAuth(JsonObject json) {
-        // Parse auth tokens
-        Map<String, String> authTokens = Util.GSON.fromJson(json.getAsJsonObject("auth"),
-                new TypeToken<Map<String, String>>() {}.getType());
-        authTokens = (authTokens != null) ? authTokens : Collections.emptyMap();
+    /**
+     * Identifies the source of a state update, by the client address and URI path.
+     */
+    static final class ClientKey {
+        private final InetAddress address;
+        private final String path;
         
-        // Verify auth tokens
-        for (Map.Entry<String, String> token : requiredAuthTokens.entrySet()) {
-            String val = authTokens.get(token.getKey());
-            if (!token.getValue().equals(val)) {
-                return null; // Invalid auth token(s), skip
-            }
+        ClientKey(InetAddress address, String path) {
+            this.address = address;
+            this.path = path;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClientKey)) return false;
+            ClientKey other = (ClientKey)o;
+            return Objects.equals(address, other.address) && Objects.equals(path, other.path);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(address, path);
         }
-        return authTokens;
     }
     
-    
     /**
      * Used for configuring and constructing instances of {@link GSIServer} objects.
      */
@@ -332,6 +516,14 @@ public final class GSIServer {
         private final Map<String, String> authTokens = new HashMap<>();
         private final Set<GSIListener> listeners = new HashSet<>();
         private boolean diagPageEnabled = true;
+        private final HTTPServerConfig httpConfig = new HTTPServerConfig();
+        private int queueCapacity;
+        private QueueOverflowPolicy overflowPolicy; // Null if updates are processed before responding
+        private boolean lazyParsing = false;
+        private boolean suppressDuplicates = false;
+        private boolean asyncDispatch = false;
+        private Duration listenerTimeout; // Null if none
+        private ListenerFailureHandler failureHandler; // Null to log failures
     
     
         /**
@@ -419,13 +611,193 @@ public final class GSIServer {
             return this;
         }
     
+        /**
+         * Uses a non-blocking (NIO selector based) HTTP server instead of the default blocking server.
+         *
+         * <p>The default server handles a single connection at a time, meaning one slow or stalled client will delay
+         * updates from all other clients. The non-blocking server reads from all connections concurrently, and is
+         * recommended when multiple game clients (eg. observers at a LAN event) report to the same server.</p>
+         *
+         * @return this builder
+         */
+        public Builder useNonBlockingIO() {
+            httpConfig.setNonBlocking(true);
+            return this;
+        }
+        
+        /**
+         * Uses virtual threads to handle incoming connections and to notify registered listeners, allowing blocking
+         * listener code to scale to many concurrent clients without a large platform thread pool.
+         *
+         * <p>Virtual threads require Java 21 or later. On older runtimes, this option has no effect and platform
+         * threads will be used instead.</p>
+         *
+         * @return this builder
+         */
+        public Builder useVirtualThreads() {
+            if (!VirtualThreads.isSupported())
+                LOGGER.warn("Virtual threads are not supported by this Java runtime, using platform threads instead.");
+            httpConfig.setVirtualThreads(true);
+            return this;
+        }
+        
+        /**
+         * Acknowledges state updates to the game client as soon as the request has been received and authenticated,
+         * rather than waiting for all listeners to finish handling the state. This prevents slow listeners
+         * from delaying the responses to the game client, and in turn the rate at which it sends updates.
+         *
+         * <p>Accepted states are placed into a bounded queue, and are dispatched to the listeners in the order
+         * received from a single worker thread. If states are received faster than they can be processed and
+         * the queue becomes full, the given overflow policy is applied.</p>
+         *
+         * @param queueCapacity  the maximum number of states waiting to be processed
+         * @param overflowPolicy the behaviour when the queue is full
+         * @return this builder
+         */
+        public Builder acknowledgeBeforeProcessing(int queueCapacity, QueueOverflowPolicy overflowPolicy) {
+            if (queueCapacity <= 0)
+                throw new IllegalArgumentException("Queue capacity must be positive.");
+            if (overflowPolicy == null)
+                throw new IllegalArgumentException("Overflow policy cannot be null.");
+            
+            this.queueCapacity = queueCapacity;
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+        
+        /**
+         * Enables lazy parsing of game states. Rather than deserializing the entire state when received, each
+         * top-level section of the {@link GameState} (eg. {@link GameState#getAllPlayers()} or
+         * {@link GameState#getGrenades()}) is only deserialized the first time it is accessed, and then cached.
+         *
+         * <p>This reduces the processing cost of each state update for listeners which only access a few sections
+         * of the state. As sections are only parsed when accessed, any deserialization errors will be thrown from the
+         * getter methods of the {@link GameState} object.</p>
+         *
+         * @return this builder
+         */
+        public Builder useLazyStateParsing() {
+            this.lazyParsing = true;
+            return this;
+        }
+        
+        /**
+         * Enables the suppression of duplicate states. States which are identical to the previous state received from
+         * the same client address and URI path, other than the provider timestamp, are discarded without being
+         * deserialized or dispatched to the listeners.
+         *
+         * <p>While idle, the game client re-sends its current state at each heartbeat interval, so this avoids
+         * processing states which contain no new information. Suppressed states do not increment the
+         * {@link GameStateContext#getSequentialCounter() sequential counter}, and so listeners may not be relied upon
+         * to detect whether the game client is still connected.</p>
+         *
+         * @return this builder
+         */
+        public Builder suppressDuplicateStates() {
+            this.suppressDuplicates = true;
+            return this;
+        }
+        
+        /**
+         * Dispatches state updates to the listeners asynchronously. By default, the thread which processes a state
+         * update waits for all the listeners to complete before the next state is processed (and, unless
+         * {@link #acknowledgeBeforeProcessing(int, QueueOverflowPolicy)} is used, before the game client receives a
+         * response), so a single slow listener delays all subsequent states.
+         *
+         * <p>When enabled, the listeners are submitted and the next state is processed immediately. Each listener is
+         * still notified of one state at a time and in order, with states queued behind a listener which is still
+         * busy, but different listeners may run concurrently.</p>
+         *
+         * @return this builder
+         *
+         * @see #setListenerTimeout(Duration)
+         * @see #setListenerFailureHandler(ListenerFailureHandler)
+         */
+        public Builder dispatchAsynchronously() {
+            this.asyncDispatch = true;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum time each listener may take to handle a state update. Listeners which exceed the timeout
+         * are reported to the {@link #setListenerFailureHandler(ListenerFailureHandler) failure handler} with a
+         * {@link java.util.concurrent.TimeoutException}, and are no longer waited upon. The listener itself is not
+         * interrupted, and continues to run in the background.
+         *
+         * @param timeout the maximum time per listener
+         * @return this builder
+         */
+        public Builder setListenerTimeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero())
+                throw new IllegalArgumentException("Listener timeout must be a positive duration.");
+            
+            this.listenerTimeout = timeout;
+            return this;
+        }
+        
+        /**
+         * Sets the handler which is called when a listener throws an exception or times out. By default, failures are
+         * logged.
+         *
+         * @param failureHandler the failure handler
+         * @return this builder
+         */
+        public Builder setListenerFailureHandler(ListenerFailureHandler failureHandler) {
+            if (failureHandler == null)
+                throw new IllegalArgumentException("Failure handler cannot be null.");
+            
+            this.failureHandler = failureHandler;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum size of a state update request body. Larger requests are rejected by the server. By
+         * default, this is {@value HTTPServerConfig#DEFAULT_MAX_BODY_SIZE} bytes.
+         *
+         * @param bytes the maximum body size, in bytes
+         * @return this builder
+         */
+        public Builder setMaxRequestBodySize(int bytes) {
+            if (bytes <= 0)
+                throw new IllegalArgumentException("Max request body size must be positive.");
+            
+            httpConfig.setMaxBodySize(bytes);
+            return this;
+        }
+        
+        /**
+         * Enables persistent (HTTP keep-alive) connections, allowing the game client to send multiple state updates
+         * over a single connection rather than opening a new connection for each update.
+         *
+         * <p>Connections which are idle for longer than the given timeout will be closed by the server. If the default
+         * (blocking) server is used, each persistent connection will occupy its own thread while open.</p>
+         *
+         * @param idleTimeout the duration an idle connection will be kept open for
+         * @param maxRequests the maximum number of requests handled on a single connection, or 0 for no limit
+         * @return this builder
+         */
+        public Builder enableKeepAlive(Duration idleTimeout, int maxRequests) {
+            if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero())
+                throw new IllegalArgumentException("Idle timeout must be a positive duration.");
+            if (maxRequests < 0)
+                throw new IllegalArgumentException("Max requests cannot be negative.");
+            
+            // Rounded up to at least 1ms, as a timeout of zero disables keep-alive
+            long timeoutMillis = Math.max(1, idleTimeout.toMillis());
+            httpConfig.setKeepAlive((int)Math.min(Integer.MAX_VALUE, timeoutMillis), maxRequests);
+            return this;
+        }
+        
         /**
          * Constructs a new {@link GSIServer} with the specified parameters.
          *
          * @return a new {@link GSIServer} object
          */
         public GSIServer build() {
-            return new GSIServer(bindAddr, bindPort, authTokens, listeners, diagPageEnabled);
+            return new GSIServer(bindAddr, bindPort, authTokens, listeners, diagPageEnabled,
+                    new HTTPServerConfig(httpConfig), // Builder may be reused
+                    overflowPolicy != null ? new StateUpdatePipeline(queueCapacity, overflowPolicy) : null,
+                    lazyParsing, suppressDuplicates, asyncDispatch, listenerTimeout, failureHandler);
         }
     }
     
@@ -433,8 +805,10 @@ public final class GSIServer {
     static class ServerStats {
         volatile GameState latestState;
         volatile GameStateContext latestContext;
+        final int[] sectionVersions = new int[GameStateDiff.Section.values().length]; // Guarded by this
         final AtomicInteger stateCounter = new AtomicInteger();
         final AtomicInteger stateRejectCounter = new AtomicInteger();
+        final AtomicInteger stateDuplicateCounter = new AtomicInteger();
     }
     
 }
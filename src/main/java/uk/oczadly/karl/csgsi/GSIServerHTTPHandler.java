@@ -3,6 +3,7 @@ package uk.oczadly.karl.csgsi;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.oczadly.karl.csgsi.internal.Util;
+import uk.oczadly.karl.csgsi.internal.httpserver.ConnectionStats;
 import uk.oczadly.karl.csgsi.internal.httpserver.HTTPRequestHandler;
 import uk.oczadly.karl.csgsi.internal.httpserver.HTTPResponse;
 
@@ -29,7 +30,7 @@ class GSIServerHTTPHandler implements HTTPRequestHandler {
     
     @Override
     public HTTPResponse handle(InetAddress address, String path, String method, Map<String, String> headers,
-                               String body) {
+                               byte[] body) {
         String contentType = headers.get("content-type");
         if (method.equalsIgnoreCase("POST") && "application/json".equals(contentType)) {
             // State update from client
@@ -61,6 +62,7 @@ class GSIServerHTTPHandler implements HTTPRequestHandler {
         GameStateContext latestContext = gsi.stats.latestContext;
         int stateCount = gsi.stats.stateCounter.intValue();
         int rejectCount = gsi.stats.stateRejectCounter.intValue();
+        int duplicateCount = gsi.stats.stateDuplicateCounter.intValue();
         
         // Build HTML
         StringBuilder sb = new StringBuilder();
@@ -86,10 +88,26 @@ class GSIServerHTTPHandler implements HTTPRequestHandler {
         sb.append("<b>Subscribed listeners:</b> <span")
                 .append(gsi.listeners.size() == 0 ? " style=\"color:red\">" : ">")
                 .append(gsi.listeners.size()).append("</span><br>\n");
+        // Connection counters
+        ConnectionStats connStats = gsi.server.getStats();
+        sb.append("<b>HTTP requests received:</b> ").append(String.format("%,d", connStats.getRequests()))
+                .append(" <i>(").append(String.format("%,d", connStats.getConnections())).append(" connections, ")
+                .append(String.format("%,d", connStats.getReusedRequests())).append(" reused)</i><br>\n");
         // State counter
         sb.append("<b>State updates received:</b> ").append(String.format("%,d", stateCount))
                 .append(rejectCount == 0 ? " <i>(" : " <i style=\"color:red\">(")
-                .append(String.format("%,d", rejectCount)).append(" rejected)</i><br>\n");
+                .append(String.format("%,d", rejectCount)).append(" rejected");
+        if (gsi.suppressDuplicates)
+            sb.append(", ").append(String.format("%,d", duplicateCount)).append(" duplicates suppressed");
+        sb.append(")</i><br>\n");
+        // Processing queue
+        if (gsi.pipeline != null) {
+            int dropCount = gsi.pipeline.droppedCounter.get();
+            sb.append("<b>Processing queue:</b> ").append(gsi.pipeline.size()).append(" pending")
+                    .append(dropCount == 0 ? " <i>(" : " <i style=\"color:red\">(")
+                    .append(String.format("%,d", dropCount)).append(" dropped, ")
+                    .append(gsi.pipeline.getOverflowPolicy()).append(" policy)</i><br>\n");
+        }
         
         if (gsi.stats.latestContext != null) {
             // Latest TS
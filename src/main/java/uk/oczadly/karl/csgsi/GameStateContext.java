@@ -1,9 +1,12 @@
 package uk.oczadly.karl.csgsi;
 
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import uk.oczadly.karl.csgsi.internal.Utf8ByteReader;
 import uk.oczadly.karl.csgsi.state.GameState;
 
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
@@ -17,27 +20,38 @@ import java.util.OptionalInt;
 public final class GameStateContext {
     
     private final GSIServer server;
-    private final GameState previousState;
+    private final GameState state, previousState;
     private final Instant timestamp, prevTimestamp;
     private final int counter;
     private final InetAddress address;
     private final Map<String, String> authTokens;
-    private final JsonObject rawJson;
-    private final String uriPath, rawJsonString;
+    private final String uriPath;
+    private final byte[] rawJsonBytes;
+    private volatile JsonObject rawJson; // Lazily parsed from rawJsonBytes
+    private volatile String rawJsonString; // Lazily decoded from rawJsonBytes
+    private volatile GameStateDiff diff; // Lazily computed
     
-    GameStateContext(GSIServer server, String uriPath, GameState previousState, Instant timestamp,
+    GameStateContext(GSIServer server, String uriPath, GameState state, GameState previousState, Instant timestamp,
                      Instant prevTimestamp, int counter, InetAddress address, Map<String, String> authTokens,
                      JsonObject rawJson, String rawJsonString) {
+        this(server, uriPath, state, previousState, timestamp, prevTimestamp, counter, address, authTokens, null);
+        this.rawJson = rawJson;
+        this.rawJsonString = rawJsonString;
+    }
+    
+    GameStateContext(GSIServer server, String uriPath, GameState state, GameState previousState, Instant timestamp,
+                     Instant prevTimestamp, int counter, InetAddress address, Map<String, String> authTokens,
+                     byte[] rawJsonBytes) {
         this.server = server;
         this.uriPath = uriPath;
+        this.state = state;
         this.previousState = previousState;
         this.timestamp = timestamp;
         this.prevTimestamp = prevTimestamp;
         this.counter = counter;
         this.address = address;
         this.authTokens = Collections.unmodifiableMap(authTokens);
-        this.rawJson = rawJson;
-        this.rawJsonString = rawJsonString;
+        this.rawJsonBytes = rawJsonBytes;
     }
     
     
@@ -68,6 +82,30 @@ public final class GameStateContext {
         return Optional.ofNullable(previousState);
     }
     
+    /**
+     * Returns the changes between the previous state and the current state.
+     *
+     * <p>The diff is computed upon the first call to this method, and the same instance is shared between all
+     * listeners of this state update. If this is the first state, all the present sections and players are reported
+     * as changed.</p>
+     *
+     * @return the changes since the previous state
+     * @see GameStateDiff
+     */
+    public GameStateDiff getDiff() {
+        GameStateDiff d = diff;
+        if (d == null) {
+            synchronized (this) {
+                d = diff;
+                if (d == null) {
+                    d = GameStateDiff.compute(previousState, state);
+                    diff = d;
+                }
+            }
+        }
+        return d;
+    }
+    
     /**
      * Gets the number of milliseconds elapsed since the last state update.
      *
@@ -131,19 +169,39 @@ public final class GameStateContext {
     /**
      * Returns the raw JSON data (as a Gson {@link JsonObject}) sent by the game client.
      *
+     * <p>The JSON tree is parsed from the received bytes upon the first call to this method. The same object is
+     * returned by subsequent calls, and so should not be modified.</p>
+     *
      * @return the raw JSON data
      */
     public JsonObject getRawJsonObject() {
-        return rawJson;
+        JsonObject json = rawJson;
+        if (json == null) {
+            synchronized (this) {
+                json = rawJson;
+                if (json == null) {
+                    json = JsonParser.parseReader(new Utf8ByteReader(rawJsonBytes)).getAsJsonObject();
+                    rawJson = json;
+                }
+            }
+        }
+        return json;
     }
     
     /**
      * Returns the raw string data sent by the game client.
      *
+     * <p>The string is decoded from the received bytes upon the first call to this method.</p>
+     *
      * @return the raw JSON data
      */
     public String getRawJsonString() {
-        return rawJsonString;
+        String str = rawJsonString;
+        if (str == null) {
+            str = new String(rawJsonBytes, StandardCharsets.UTF_8);
+            rawJsonString = str;
+        }
+        return str;
     }
     
 }
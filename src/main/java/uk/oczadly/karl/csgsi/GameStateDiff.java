@@ -0,0 +1,619 @@
+package uk.oczadly.karl.csgsi;
+
+import uk.oczadly.karl.csgsi.config.DataComponent;
+import uk.oczadly.karl.csgsi.internal.LazyGameState;
+import uk.oczadly.karl.csgsi.internal.SnapshotGameState;
+import uk.oczadly.karl.csgsi.state.*;
+import uk.oczadly.karl.csgsi.state.components.PlayerInventory;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+import uk.oczadly.karl.csgsi.state.components.grenade.EffectGrenade;
+import uk.oczadly.karl.csgsi.state.components.grenade.Grenade;
+import uk.oczadly.karl.csgsi.state.components.grenade.IncendiaryGrenade;
+import uk.oczadly.karl.csgsi.state.components.grenade.ProjectileGrenade;
+
+import java.util.*;
+
+/**
+ * This class contains the set of changes between a {@link GameState} and the state received before it.
+ *
+ * <p>A diff is obtained through {@link GameStateContext#getDiff()}, and is computed once per state update upon first
+ * request, then shared between all listeners. Sections which are the same object in both states (see
+ * {@link GameStateContext#getPreviousState()}) are skipped without being compared.</p>
+ *
+ * <p>Field names are the member names used by the game client, with nested values separated by a period, eg.
+ * {@code "team_ct.score"} within the {@link Section#MAP} section, or {@code "state.health"} for a player. Sections
+ * which are only present in one of the two states are reported as changed, without any field changes.</p>
+ */
+public final class GameStateDiff {
+    
+    private static final Section[] SECTIONS = Section.values();
+    static final int ALL_SECTIONS = (1 << SECTIONS.length) - 1;
+    
+    private final Set<Section> changedSections;
+    private final Set<PlayerSteamID> changedPlayers, addedPlayers, removedPlayers;
+    private final List<FieldChange> changes;
+    
+    private GameStateDiff(Set<Section> changedSections, Set<PlayerSteamID> changedPlayers,
+                          Set<PlayerSteamID> addedPlayers, Set<PlayerSteamID> removedPlayers,
+                          List<FieldChange> changes) {
+        this.changedSections = Collections.unmodifiableSet(changedSections);
+        this.changedPlayers = Collections.unmodifiableSet(changedPlayers);
+        this.addedPlayers = Collections.unmodifiableSet(addedPlayers);
+        this.removedPlayers = Collections.unmodifiableSet(removedPlayers);
+        this.changes = Collections.unmodifiableList(changes);
+    }
+    
+    
+    /**
+     * @return true if nothing has changed
+     */
+    public boolean isEmpty() {
+        return changedSections.isEmpty();
+    }
+    
+    /**
+     * @return the sections which have changed
+     */
+    public Set<Section> getChangedSections() {
+        return changedSections;
+    }
+    
+    /**
+     * @param section the section
+     * @return true if the section has changed
+     */
+    public boolean hasChanged(Section section) {
+        return changedSections.contains(section);
+    }
+    
+    /**
+     * Returns the players within {@link GameState#getAllPlayers()} which have changed, including added and removed
+     * players.
+     *
+     * @return the Steam IDs of the changed players
+     */
+    public Set<PlayerSteamID> getChangedPlayers() {
+        return changedPlayers;
+    }
+    
+    /**
+     * @return the Steam IDs of the players which were not present in the previous state
+     */
+    public Set<PlayerSteamID> getAddedPlayers() {
+        return addedPlayers;
+    }
+    
+    /**
+     * @return the Steam IDs of the players which are no longer present
+     */
+    public Set<PlayerSteamID> getRemovedPlayers() {
+        return removedPlayers;
+    }
+    
+    /**
+     * @return all the changed fields
+     */
+    public List<FieldChange> getFieldChanges() {
+        return changes;
+    }
+    
+    /**
+     * @param section the section
+     * @return the changed fields within the given section
+     */
+    public List<FieldChange> getFieldChanges(Section section) {
+        List<FieldChange> matches = new ArrayList<>();
+        for (FieldChange change : changes)
+            if (change.section == section) matches.add(change);
+        return matches;
+    }
+    
+    /**
+     * @param playerId the Steam ID of the player
+     * @return the changed fields of the given player within {@link GameState#getAllPlayers()}
+     */
+    public List<FieldChange> getPlayerChanges(PlayerSteamID playerId) {
+        List<FieldChange> matches = new ArrayList<>();
+        if (changedPlayers.contains(playerId)) {
+            for (FieldChange change : changes)
+                if (change.section == Section.ALL_PLAYERS && playerId.equals(change.playerId)) matches.add(change);
+        }
+        return matches;
+    }
+    
+    /**
+     * Returns the change of a single field.
+     *
+     * @param section the section
+     * @param field   the field name, eg. {@code "phase"}
+     * @return the change, or empty if the field has not changed
+     */
+    public Optional<FieldChange> getFieldChange(Section section, String field) {
+        for (FieldChange change : changes)
+            if (change.section == section && change.playerId == null && change.field.equals(field))
+                return Optional.of(change);
+        return Optional.empty();
+    }
+    
+    @Override
+    public String toString() {
+        return "GameStateDiff{" +
+                "changedSections=" + changedSections +
+                ", changedPlayers=" + changedPlayers +
+                ", changes=" + changes + '}';
+    }
+    
+    
+    /**
+     * Computes the changes between two states.
+     *
+     * @param previous the previous state, or null if none
+     * @param current  the current state
+     * @return the changes between the two states
+     */
+    static GameStateDiff compute(GameState previous, GameState current) {
+        Collector c = new Collector();
+        if (previous == null) {
+            c.presence(Section.PROVIDER, null, current.getProvider().orElse(null));
+            c.presence(Section.MAP, null, current.getMap().orElse(null));
+            c.presence(Section.PLAYER, null, current.getPlayer().orElse(null));
+            c.presence(Section.ROUND, null, current.getRound().orElse(null));
+            c.presence(Section.GRENADES, null, current.getGrenades().orElse(null));
+            c.presence(Section.BOMB, null, current.getBomb().orElse(null));
+            c.presence(Section.PHASE_COUNTDOWNS, null, current.getPhaseCountdowns().orElse(null));
+            c.compareAllPlayers(null, current.getAllPlayers().orElse(null));
+        } else if (previous != current) {
+            c.compareProvider(previous.getProvider().orElse(null), current.getProvider().orElse(null));
+            c.compareMap(previous.getMap().orElse(null), current.getMap().orElse(null));
+            c.compareRound(previous.getRound().orElse(null), current.getRound().orElse(null));
+            c.compareGrenades(previous.getGrenades().orElse(null), current.getGrenades().orElse(null));
+            c.compareBomb(previous.getBomb().orElse(null), current.getBomb().orElse(null));
+            c.comparePhaseCountdowns(previous.getPhaseCountdowns().orElse(null),
+                    current.getPhaseCountdowns().orElse(null));
+            PlayerState prevPlayer = previous.getPlayer().orElse(null), curPlayer = current.getPlayer().orElse(null);
+            if (c.presence(Section.PLAYER, prevPlayer, curPlayer))
+                c.comparePlayer(Section.PLAYER, null, prevPlayer, curPlayer);
+            c.compareAllPlayers(previous.getAllPlayers().orElse(null), current.getAllPlayers().orElse(null));
+        }
+        return new GameStateDiff(c.changedSections, c.changedPlayers, c.addedPlayers, c.removedPlayers, c.changes);
+    }
+    
+    
+    /**
+     * Determines which top-level sections differ between two states, without comparing their contents or
+     * deserializing any lazily parsed sections.
+     *
+     * <p>Sections of a {@link SnapshotGameState} are compared by reference (as unchanged sections are shared with the
+     * previous snapshot), and sections of a {@link LazyGameState} by their raw bytes. Sections of other states are
+     * compared by reference, and so may be reported as changed when their contents are equal.</p>
+     *
+     * @param previous the previous state, or null if none
+     * @param current  the current state
+     * @return a bit mask of the changed sections, where bit {@code n} corresponds to the section with ordinal {@code n}
+     */
+    static int changedSections(GameState previous, GameState current) {
+        if (previous == null)
+            return ALL_SECTIONS;
+        if (previous == current)
+            return 0;
+        int mask = 0;
+        if (previous instanceof LazyGameState && current instanceof LazyGameState) {
+            for (Section section : SECTIONS)
+                if (!((LazyGameState)current).sectionEquals(section.getName(), (LazyGameState)previous))
+                    mask |= 1 << section.ordinal();
+        } else {
+            for (Section section : SECTIONS)
+                if (section.valueOf(previous) != section.valueOf(current))
+                    mask |= 1 << section.ordinal();
+        }
+        return mask;
+    }
+    
+    
+    /**
+     * The top-level sections of a {@link GameState}.
+     */
+    public enum Section {
+        /** @see GameState#getProvider() */
+        PROVIDER("provider"),
+        /** @see GameState#getMap() */
+        MAP("map"),
+        /** @see GameState#getPlayer() */
+        PLAYER("player"),
+        /** @see GameState#getRound() */
+        ROUND("round"),
+        /** @see GameState#getGrenades() */
+        GRENADES("grenades"),
+        /** @see GameState#getAllPlayers() */
+        ALL_PLAYERS("allplayers"),
+        /** @see GameState#getBomb() */
+        BOMB("bomb"),
+        /** @see GameState#getPhaseCountdowns() */
+        PHASE_COUNTDOWNS("phase_countdowns");
+        
+        private final String name;
+        
+        Section(String name) {
+            this.name = name;
+        }
+        
+        
+        /**
+         * @return the name of the section within the JSON state sent by the game client
+         */
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Returns the section which contains the data of the given component.
+         *
+         * @param component the data component
+         * @return the section containing the component's data
+         */
+        public static Section of(DataComponent component) {
+            switch (component) {
+                case PROVIDER:            return PROVIDER;
+                case MAP:
+                case MAP_ROUND_WINS:      return MAP;
+                case PLAYER_ID:
+                case PLAYER_MATCH_STATS:
+                case PLAYER_STATE:
+                case PLAYER_WEAPONS:
+                case PLAYER_POSITION:     return PLAYER;
+                case ROUND:               return ROUND;
+                case GRENADES:            return GRENADES;
+                case PLAYERS_ID:
+                case PLAYERS_MATCH_STATS:
+                case PLAYERS_POSITION:
+                case PLAYERS_STATE:
+                case PLAYERS_WEAPONS:     return ALL_PLAYERS;
+                case BOMB:                return BOMB;
+                case PHASE_COUNTDOWNS:    return PHASE_COUNTDOWNS;
+                default: throw new IllegalArgumentException("Unknown data component " + component + ".");
+            }
+        }
+        
+        /** Returns the value of this section within the given state */
+        Object valueOf(GameState state) {
+            switch (this) {
+                case PROVIDER:         return state.getProvider().orElse(null);
+                case MAP:              return state.getMap().orElse(null);
+                case PLAYER:           return state.getPlayer().orElse(null);
+                case ROUND:            return state.getRound().orElse(null);
+                case GRENADES:         return state.getGrenades().orElse(null);
+                case ALL_PLAYERS:      return state.getAllPlayers().orElse(null);
+                case BOMB:             return state.getBomb().orElse(null);
+                case PHASE_COUNTDOWNS: return state.getPhaseCountdowns().orElse(null);
+                default: throw new AssertionError();
+            }
+        }
+    }
+    
+    
+    /**
+     * Represents the change of a single field value.
+     */
+    public static final class FieldChange {
+        private final Section section;
+        private final PlayerSteamID playerId;
+        private final String field;
+        private final Object oldValue, newValue;
+        
+        FieldChange(Section section, PlayerSteamID playerId, String field, Object oldValue, Object newValue) {
+            this.section = section;
+            this.playerId = playerId;
+            this.field = field;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+        
+        
+        /**
+         * @return the section containing the field
+         */
+        public Section getSection() {
+            return section;
+        }
+        
+        /**
+         * @return the Steam ID of the player within {@link Section#ALL_PLAYERS}, or null for other sections
+         */
+        public PlayerSteamID getPlayerId() {
+            return playerId;
+        }
+        
+        /**
+         * @return the field name, relative to the section or player
+         */
+        public String getField() {
+            return field;
+        }
+        
+        /**
+         * @return the previous value, or null if not present
+         */
+        public Object getOldValue() {
+            return oldValue;
+        }
+        
+        /**
+         * @return the new value, or null if not present
+         */
+        public Object getNewValue() {
+            return newValue;
+        }
+        
+        @Override
+        public String toString() {
+            return section + (playerId != null ? "[" + playerId.getAsID64() + "]" : "") + "." + field +
+                    ": " + oldValue + " -> " + newValue;
+        }
+    }
+    
+    
+    /** Accumulates changes while comparing two states */
+    private static class Collector {
+        final Set<Section> changedSections = EnumSet.noneOf(Section.class);
+        final Set<PlayerSteamID> changedPlayers = new LinkedHashSet<>(), addedPlayers = new LinkedHashSet<>(),
+                removedPlayers = new LinkedHashSet<>();
+        final List<FieldChange> changes = new ArrayList<>();
+        
+        private Section section;
+        private PlayerSteamID player;
+        private String prefix;
+        
+        /**
+         * Records a section as changed if only present in one state.
+         *
+         * @return true if both values are present and are different objects, requiring comparison
+         */
+        boolean presence(Section section, Object prev, Object cur) {
+            if (prev == cur)
+                return false;
+            if (prev == null || cur == null) {
+                changedSections.add(section);
+                return false;
+            }
+            return true;
+        }
+        
+        /** Sets the section and field prefix which subsequent changes are recorded against */
+        private void at(Section section, PlayerSteamID player, String prefix) {
+            this.section = section;
+            this.player = player;
+            this.prefix = prefix;
+        }
+        
+        private void changed(String field, Object oldValue, Object newValue) {
+            changedSections.add(section);
+            if (player != null)
+                changedPlayers.add(player);
+            changes.add(new FieldChange(section, player, prefix.isEmpty() ? field : prefix + field,
+                    oldValue, newValue));
+        }
+        
+        void field(String field, Object a, Object b) {
+            if (!Objects.equals(a, b)) changed(field, a, b);
+        }
+        
+        void field(String field, int a, int b) {
+            if (a != b) changed(field, a, b);
+        }
+        
+        void field(String field, long a, long b) {
+            if (a != b) changed(field, a, b);
+        }
+        
+        void field(String field, double a, double b) {
+            if (Double.compare(a, b) != 0) changed(field, a, b);
+        }
+        
+        void field(String field, boolean a, boolean b) {
+            if (a != b) changed(field, a, b);
+        }
+        
+        
+        void compareProvider(ProviderState a, ProviderState b) {
+            if (!presence(Section.PROVIDER, a, b)) return;
+            at(Section.PROVIDER, null, "");
+            field("name", a.getName(), b.getName());
+            field("appid", a.getAppId(), b.getAppId());
+            field("version", a.getVersion(), b.getVersion());
+            field("steamid", a.getClientSteamId(), b.getClientSteamId());
+            field("timestamp", a.getTimestamp(), b.getTimestamp());
+        }
+        
+        void compareMap(MapState a, MapState b) {
+            if (!presence(Section.MAP, a, b)) return;
+            at(Section.MAP, null, "");
+            field("round_wins", a.getRoundResults(), b.getRoundResults());
+            field("mode", a.getMode(), b.getMode());
+            field("name", a.getName(), b.getName());
+            field("phase", a.getPhase(), b.getPhase());
+            field("round", a.getRoundNumber(), b.getRoundNumber());
+            field("num_matches_to_win_series", a.getSeriesMatchesToWin(), b.getSeriesMatchesToWin());
+            field("current_spectators", a.getSpectatorCount(), b.getSpectatorCount());
+            field("souvenirs_total", a.getSouvenirDrops(), b.getSouvenirDrops());
+            compareTeam("team_ct", a.getCounterTerroristStatistics(), b.getCounterTerroristStatistics());
+            compareTeam("team_t", a.getTerroristStatistics(), b.getTerroristStatistics());
+        }
+        
+        private void compareTeam(String name, MapState.TeamStats a, MapState.TeamStats b) {
+            if (a == b) return;
+            if (a == null || b == null) {
+                field(name, a, b);
+                return;
+            }
+            at(Section.MAP, null, name + ".");
+            field("score", a.getScore(), b.getScore());
+            field("consecutive_round_losses", a.getConsecutiveLosses(), b.getConsecutiveLosses());
+            field("timeouts_remaining", a.getTimeoutsRemaining(), b.getTimeoutsRemaining());
+            field("matches_won_this_series", a.getSeriesMatchesWon(), b.getSeriesMatchesWon());
+            at(Section.MAP, null, "");
+        }
+        
+        void compareRound(RoundState a, RoundState b) {
+            if (!presence(Section.ROUND, a, b)) return;
+            at(Section.ROUND, null, "");
+            field("phase", a.getPhase(), b.getPhase());
+            field("win_team", a.getWinningTeam(), b.getWinningTeam());
+            field("bomb", a.getBombPhase(), b.getBombPhase());
+        }
+        
+        void compareBomb(BombState a, BombState b) {
+            if (!presence(Section.BOMB, a, b)) return;
+            at(Section.BOMB, null, "");
+            field("state", a.getPhase(), b.getPhase());
+            field("position", a.getPosition(), b.getPosition());
+            field("countdown", a.getCountdown(), b.getCountdown());
+            field("player", a.getPlayerId(), b.getPlayerId());
+        }
+        
+        void comparePhaseCountdowns(PhaseCountdownState a, PhaseCountdownState b) {
+            if (!presence(Section.PHASE_COUNTDOWNS, a, b)) return;
+            at(Section.PHASE_COUNTDOWNS, null, "");
+            field("phase", a.getPhase(), b.getPhase());
+            field("phase_ends_in", a.getRemainingTime(), b.getRemainingTime());
+        }
+        
+        void compareGrenades(GrenadeState a, GrenadeState b) {
+            if (!presence(Section.GRENADES, a, b)) return;
+            at(Section.GRENADES, null, "");
+            Map<Integer, Grenade> prev = a.getAll(), cur = b.getAll();
+            for (Map.Entry<Integer, Grenade> entry : prev.entrySet())
+                if (!cur.containsKey(entry.getKey())) field(entry.getKey().toString(), entry.getValue(), null);
+            for (Map.Entry<Integer, Grenade> entry : cur.entrySet()) {
+                Grenade ga = prev.get(entry.getKey()), gb = entry.getValue();
+                if (ga == null) {
+                    field(entry.getKey().toString(), null, gb);
+                } else if (ga != gb) {
+                    at(Section.GRENADES, null, entry.getKey() + ".");
+                    compareGrenade(ga, gb);
+                    at(Section.GRENADES, null, "");
+                }
+            }
+        }
+        
+        private void compareGrenade(Grenade a, Grenade b) {
+            field("type", a.getType(), b.getType());
+            field("owner", a.getOwner(), b.getOwner());
+            field("lifetime", a.getLifetime(), b.getLifetime());
+            if (a instanceof ProjectileGrenade && b instanceof ProjectileGrenade) {
+                field("position", ((ProjectileGrenade)a).getPosition(), ((ProjectileGrenade)b).getPosition());
+                field("velocity", ((ProjectileGrenade)a).getVelocity(), ((ProjectileGrenade)b).getVelocity());
+            }
+            if (a instanceof EffectGrenade && b instanceof EffectGrenade)
+                field("effecttime", ((EffectGrenade)a).getEffectTime(), ((EffectGrenade)b).getEffectTime());
+            if (a instanceof IncendiaryGrenade && b instanceof IncendiaryGrenade)
+                field("flames", ((IncendiaryGrenade)a).getFlameCount(), ((IncendiaryGrenade)b).getFlameCount());
+        }
+        
+        void compareAllPlayers(Map<PlayerSteamID, PlayerState> a, Map<PlayerSteamID, PlayerState> b) {
+            if (a == b) return;
+            if (a == null || b == null)
+                changedSections.add(Section.ALL_PLAYERS);
+            if (a == null) a = Collections.emptyMap();
+            if (b == null) b = Collections.emptyMap();
+            for (PlayerSteamID id : a.keySet()) {
+                if (!b.containsKey(id)) {
+                    changedSections.add(Section.ALL_PLAYERS);
+                    removedPlayers.add(id);
+                    changedPlayers.add(id);
+                }
+            }
+            for (Map.Entry<PlayerSteamID, PlayerState> entry : b.entrySet()) {
+                PlayerState prev = a.get(entry.getKey()), cur = entry.getValue();
+                if (prev == null && !a.containsKey(entry.getKey())) {
+                    changedSections.add(Section.ALL_PLAYERS);
+                    addedPlayers.add(entry.getKey());
+                    changedPlayers.add(entry.getKey());
+                } else if (prev != cur && prev != null && cur != null) {
+                    comparePlayer(Section.ALL_PLAYERS, entry.getKey(), prev, cur);
+                }
+            }
+        }
+        
+        void comparePlayer(Section section, PlayerSteamID id, PlayerState a, PlayerState b) {
+            at(section, id, "");
+            field("steamid", a.getSteamId(), b.getSteamId());
+            field("name", a.getName(), b.getName());
+            field("clan", a.getGroupName(), b.getGroupName());
+            field("observer_slot", a.getObserverSlot(), b.getObserverSlot());
+            field("team", a.getTeam(), b.getTeam());
+            field("activity", a.getActivity(), b.getActivity());
+            field("spectarget", a.getSpectatorTarget(), b.getSpectatorTarget());
+            field("position", a.getPosition(), b.getPosition());
+            field("forward", a.getDirection(), b.getDirection());
+            
+            PlayerState.MatchStats sa = a.getStatistics(), sb = b.getStatistics();
+            if (sa != sb) {
+                if (sa == null || sb == null) {
+                    field("match_stats", sa, sb);
+                } else {
+                    at(section, id, "match_stats.");
+                    field("kills", sa.getKillCount(), sb.getKillCount());
+                    field("assists", sa.getAssistCount(), sb.getAssistCount());
+                    field("deaths", sa.getDeathCount(), sb.getDeathCount());
+                    field("mvps", sa.getMvpCount(), sb.getMvpCount());
+                    field("score", sa.getScore(), sb.getScore());
+                }
+            }
+            
+            PlayerState.PlayerStateDetails da = a.getState(), db = b.getState();
+            if (da != db) {
+                at(section, id, "");
+                if (da == null || db == null) {
+                    field("state", da, db);
+                } else {
+                    at(section, id, "state.");
+                    field("health", da.getHealth(), db.getHealth());
+                    field("armor", da.getArmor(), db.getArmor());
+                    field("helmet", da.hasHelmet(), db.hasHelmet());
+                    field("defusekit", da.hasDefuseKit(), db.hasDefuseKit());
+                    field("flashed", da.getFlashed(), db.getFlashed());
+                    field("smoked", da.getSmoked(), db.getSmoked());
+                    field("burning", da.getBurning(), db.getBurning());
+                    field("money", da.getMoney(), db.getMoney());
+                    field("round_kills", da.getRoundKills(), db.getRoundKills());
+                    field("round_killhs", da.getRoundKillsHeadshot(), db.getRoundKillsHeadshot());
+                    field("round_totaldmg", da.getRoundTotalDamage(), db.getRoundTotalDamage());
+                    field("equip_value", da.getEquipmentValue(), db.getEquipmentValue());
+                }
+            }
+            
+            PlayerInventory ia = a.getInventory(), ib = b.getInventory();
+            if (ia != ib) {
+                at(section, id, "");
+                if (ia == null || ib == null) {
+                    field("weapons", ia, ib);
+                } else {
+                    compareInventory(section, id, ia.getItems(), ib.getItems());
+                }
+            }
+        }
+        
+        private void compareInventory(Section section, PlayerSteamID id, List<PlayerInventory.ItemDetails> a,
+                                      List<PlayerInventory.ItemDetails> b) {
+            int common = Math.min(a.size(), b.size());
+            for (int i = 0; i < common; i++) {
+                PlayerInventory.ItemDetails ia = a.get(i), ib = b.get(i);
+                if (ia == ib) continue;
+                at(section, id, "weapons." + i + ".");
+                field("name", ia.getWeapon(), ib.getWeapon());
+                field("paintkit", ia.getSkin(), ib.getSkin());
+                field("type", ia.getType(), ib.getType());
+                field("ammo_clip", ia.getAmmoClip(), ib.getAmmoClip());
+                field("ammo_clip_max", ia.getMaxAmmoClip(), ib.getMaxAmmoClip());
+                field("ammo_reserve", ia.getAmmoReserve(), ib.getAmmoReserve());
+                field("state", ia.getState(), ib.getState());
+            }
+            at(section, id, "weapons.");
+            for (int i = common; i < a.size(); i++)
+                field(Integer.toString(i), a.get(i), null);
+            for (int i = common; i < b.size(); i++)
+                field(Integer.toString(i), null, b.get(i));
+        }
+    }
+    
+}
@@ -0,0 +1,24 @@
+package uk.oczadly.karl.csgsi;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handles the failure of a {@link GSIListener} to process a state update. Instances can be configured through the
+ * {@link GSIServer.Builder#setListenerFailureHandler(ListenerFailureHandler)} method.
+ *
+ * <p>Failures are reported on the thread which ran the listener, or on an internal timer thread for timeouts, and so
+ * implementations should return quickly.</p>
+ */
+@FunctionalInterface
+public interface ListenerFailureHandler {
+    
+    /**
+     * Called when a listener throws an exception, or does not complete within the configured timeout.
+     *
+     * @param listener the listener which failed
+     * @param context  the context of the state update which the listener was notified of
+     * @param cause    the exception thrown by the listener, or a {@link TimeoutException} if it timed out
+     */
+    void onFailure(GSIListener listener, GameStateContext context, Throwable cause);
+    
+}
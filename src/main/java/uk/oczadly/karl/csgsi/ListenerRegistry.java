@@ -3,23 +3,86 @@ package uk.oczadly.karl.csgsi;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.oczadly.karl.csgsi.internal.Util;
+import uk.oczadly.karl.csgsi.internal.VirtualThreads;
 import uk.oczadly.karl.csgsi.state.GameState;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Set;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Handles a set of registered listeners, and notifies them.
+ *
+ * <p>Listeners may optionally be registered with a set of sections they are interested in, in which case they are
+ * only notified of states where at least one of those sections has changed since the last state they were notified
+ * of, and never of a state older than it. Changes are tracked through section versions supplied with each state (see
+ * {@link #notify(GameState, GameStateContext, int[])}), so no states need to be retained or compared here.</p>
+ *
+ * <p>Each listener is notified of states one at a time and in the order they were dispatched, with at most one task
+ * per listener submitted to the executor. States dispatched while a listener is still busy are queued behind it.</p>
  */
 class ListenerRegistry {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(ListenerRegistry.class);
-    private static final ExecutorService HANDLER_EXECUTOR = Executors.newCachedThreadPool();
+    static final ExecutorService HANDLER_EXECUTOR = Executors.newCachedThreadPool();
+    private static volatile ExecutorService virtualHandlerExecutor;
     
     final Set<GSIListener> listeners = new CopyOnWriteArraySet<>();
+    final Map<GSIListener, Interest> interests = new ConcurrentHashMap<>();
+    private final Map<GSIListener, Lane> lanes = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final long timeoutMillis; // Zero if none
+    private final ListenerFailureHandler failureHandler;
+    
+    
+    /**
+     * Creates a registry which notifies listeners using the shared handler thread pool.
+     */
+    public ListenerRegistry() {
+        this(HANDLER_EXECUTOR);
+    }
+    
+    /**
+     * Creates a registry which notifies listeners using the given executor.
+     * @param executor the executor to run listener notification tasks on
+     */
+    public ListenerRegistry(ExecutorService executor) {
+        this(executor, null, null);
+    }
+    
+    /**
+     * Creates a registry which notifies listeners using the given executor.
+     * @param executor       the executor to run listener notification tasks on
+     * @param timeout        the maximum time each listener may take to handle a state, or null for no limit
+     * @param failureHandler the handler to report listener exceptions and timeouts to, or null to log them
+     */
+    public ListenerRegistry(ExecutorService executor, Duration timeout, ListenerFailureHandler failureHandler) {
+        if (executor == null) throw new IllegalArgumentException("Executor cannot be null.");
+        if (timeout != null && (timeout.isNegative() || timeout.isZero()))
+            throw new IllegalArgumentException("Timeout must be a positive duration.");
+        this.executor = executor;
+        this.timeoutMillis = timeout != null ? Math.max(1, timeout.toMillis()) : 0;
+        this.failureHandler = failureHandler != null ? failureHandler : ListenerRegistry::logFailure;
+    }
+    
+    
+    /**
+     * Returns the shared executor which notifies listeners on virtual threads, creating it on first use. If virtual
+     * threads are not supported by the current runtime, the executor will use platform threads instead.
+     * @return the shared virtual thread handler executor
+     */
+    static ExecutorService virtualHandlerExecutor() {
+        ExecutorService executor = virtualHandlerExecutor;
+        if (executor == null) {
+            synchronized (ListenerRegistry.class) {
+                executor = virtualHandlerExecutor;
+                if (executor == null)
+                    virtualHandlerExecutor = executor = VirtualThreads.newThreadPerTaskExecutor();
+            }
+        }
+        return executor;
+    }
     
     
     /**
@@ -30,6 +93,28 @@ class ListenerRegistry {
         if (listener == null) throw new IllegalArgumentException("Listener cannot be null.");
         if (LOGGER.isDebugEnabled())
             LOGGER.debug("Registering listener {}...", Util.refVal(listener));
+        interests.remove(listener);
+        listeners.add(listener);
+    }
+    
+    /**
+     * Registers a listener which is only notified when one of the given sections has changed. If the listener is
+     * already registered, its sections are replaced.
+     * @param listener the listener to register
+     * @param sections the sections the listener is interested in
+     */
+    public void register(GSIListener listener, Collection<GameStateDiff.Section> sections) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null.");
+        if (sections == null || sections.isEmpty())
+            throw new IllegalArgumentException("At least one section must be specified.");
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Registering listener {} for sections {}...", Util.refVal(listener), sections);
+        int mask = 0;
+        for (GameStateDiff.Section section : sections) {
+            if (section == null) throw new IllegalArgumentException("Section cannot be null.");
+            mask |= 1 << section.ordinal();
+        }
+        interests.put(listener, new Interest(mask));
         listeners.add(listener);
     }
     
@@ -52,6 +137,8 @@ class ListenerRegistry {
         if (LOGGER.isDebugEnabled())
             LOGGER.debug("Removing listener {}...", Util.refVal(listener));
         listeners.remove(listener);
+        interests.remove(listener);
+        lanes.remove(listener);
     }
     
     /**
@@ -60,6 +147,17 @@ class ListenerRegistry {
     public void clear() {
         LOGGER.debug("Clearing listener registry...");
         listeners.clear();
+        interests.clear();
+        lanes.clear();
+    }
+    
+    /**
+     * Resets the last notified state of every listener registered with a set of sections, so that the next state
+     * is always delivered. This should be called whenever the sequential state counter is reset.
+     */
+    public void resetInterests() {
+        for (Interest interest : interests.values())
+            interest.lastCounter.set(0);
     }
     
     /**
@@ -71,30 +169,201 @@ class ListenerRegistry {
     
     
     /**
-     * Notifies the registered listeners of an updated state.
+     * Notifies all the registered listeners of an updated state.
      *
      * @param state   the new game state information
      * @param context the game state and request context
      */
     public void notify(GameState state, GameStateContext context) {
-        LOGGER.debug("Notifying {} listeners of new GSI state...", listeners.size());
-        
-        // Submit tasks and collect list of futures
-        List<Future<?>> futures = new ArrayList<>(listeners.size());
+        notify(state, context, null);
+    }
+    
+    /**
+     * Notifies the registered listeners of an updated state, and waits for them to complete. Listeners registered
+     * with a set of sections are skipped if none of their sections have changed since the last state they were
+     * notified of.
+     *
+     * <p>If the calling thread is interrupted while waiting, this method returns immediately with the interrupt
+     * status set, and the listeners continue to run in the background.</p>
+     *
+     * @param state           the new game state information
+     * @param context         the game state and request context
+     * @param sectionVersions the sequential counter of the latest state in which each section changed, indexed by
+     *                        {@link GameStateDiff.Section#ordinal()}, or null to notify all listeners
+     */
+    public void notify(GameState state, GameStateContext context, int[] sectionVersions) {
+        CompletableFuture<Void> completion = notifyAsync(state, context, sectionVersions);
+        try {
+            completion.get();
+            LOGGER.debug("Finished notifying state listeners.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for state listeners to complete");
+        } catch (ExecutionException e) {
+            LOGGER.error("Unexpected failure while notifying state listeners", e.getCause()); // Handled per listener
+        }
+    }
+    
+    /**
+     * Notifies the registered listeners of an updated state, without waiting for them to complete. Listeners
+     * registered with a set of sections are skipped if none of their sections have changed since the last state they
+     * were notified of.
+     *
+     * <p>Listener exceptions and timeouts are reported to the failure handler, and so the returned future always
+     * completes normally. The timeout applies from the moment the state is dispatched, so states queued behind a
+     * slow listener may also time out; they are still delivered to the listener in order once it is free.</p>
+     *
+     * @param state           the new game state information
+     * @param context         the game state and request context
+     * @param sectionVersions the sequential counter of the latest state in which each section changed, indexed by
+     *                        {@link GameStateDiff.Section#ordinal()}, or null to notify all listeners
+     * @return a future which completes once every notified listener has completed, failed or timed out
+     */
+    public CompletableFuture<Void> notifyAsync(GameState state, GameStateContext context, int[] sectionVersions) {
+        int counter = context != null ? context.getSequentialCounter() : 0;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(listeners.size());
         for (GSIListener listener : listeners) {
-            futures.add(HANDLER_EXECUTOR.submit(() -> listener.update(state, context)));
+            Interest interest = interests.get(listener);
+            if (interest == null || interest.accept(sectionVersions, counter))
+                futures.add(dispatch(listener, state, context));
         }
-        
-        // Wait for all tasks to complete (and log any errors)
-        for (Future<?> f : futures) {
+        LOGGER.debug("Notified {} of {} listeners of new GSI state...", futures.size(), listeners.size());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+    
+    
+    /**
+     * Queues a state for a single listener, returning a future which completes normally once it has completed or
+     * failed. A task is only submitted to the executor if the listener is not already busy, in which case it drains
+     * the listener's queue in order.
+     */
+    private CompletableFuture<Void> dispatch(GSIListener listener, GameState state, GameStateContext context) {
+        Delivery delivery = new Delivery(state, context);
+        if (timeoutMillis > 0)
+            delivery.future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        Lane lane = lanes.computeIfAbsent(listener, l -> new Lane());
+        if (lane.offer(delivery)) {
             try {
-                f.get();
-            } catch (InterruptedException ignored) {
-            } catch (ExecutionException e) {
-                LOGGER.error("Unhandled exception in listener notification task", e.getCause());
+                executor.execute(() -> lane.drain(listener));
+            } catch (RejectedExecutionException e) {
+                lane.reject(e);
+            }
+        }
+        return delivery.future.handle((result, ex) -> {
+            if (ex != null)
+                reportFailure(listener, context, ex);
+            return null;
+        });
+    }
+    
+    private void reportFailure(GSIListener listener, GameStateContext context, Throwable cause) {
+        try {
+            failureHandler.onFailure(listener, context, cause);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unhandled exception in listener failure handler", e);
+        }
+    }
+    
+    private static void logFailure(GSIListener listener, GameStateContext context, Throwable cause) {
+        if (cause instanceof TimeoutException) {
+            LOGGER.warn("Listener {} did not complete within the configured timeout", Util.refVal(listener));
+        } else {
+            LOGGER.error("Unhandled exception in listener notification task", cause);
+        }
+    }
+    
+    
+    /**
+     * The queue of states waiting to be delivered to a single listener.
+     */
+    private static final class Lane {
+        private final Queue<Delivery> pending = new ArrayDeque<>();
+        private boolean running;
+        
+        /** Queues a state, returning true if a task must be submitted to deliver it */
+        synchronized boolean offer(Delivery delivery) {
+            pending.add(delivery);
+            if (running) return false;
+            return running = true;
+        }
+        
+        /** Delivers the queued states in order, until the queue is empty */
+        void drain(GSIListener listener) {
+            Delivery delivery;
+            while ((delivery = poll()) != null) {
+                try {
+                    listener.update(delivery.state, delivery.context);
+                    delivery.future.complete(null);
+                } catch (Throwable t) {
+                    delivery.future.completeExceptionally(t);
+                }
+            }
+        }
+        
+        /** Fails the queued states if the task delivering them could not be submitted */
+        void reject(RejectedExecutionException cause) {
+            List<Delivery> rejected;
+            synchronized (this) {
+                rejected = new ArrayList<>(pending);
+                pending.clear();
+                running = false;
+            }
+            for (Delivery delivery : rejected)
+                delivery.future.completeExceptionally(cause);
+        }
+        
+        private synchronized Delivery poll() {
+            Delivery delivery = pending.poll();
+            if (delivery == null)
+                running = false;
+            return delivery;
+        }
+    }
+    
+    private static final class Delivery {
+        final GameState state;
+        final GameStateContext context;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        
+        Delivery(GameState state, GameStateContext context) {
+            this.state = state;
+            this.context = context;
+        }
+    }
+    
+    /**
+     * The sections a listener is interested in, and the last state it was notified of.
+     */
+    static final class Interest {
+        final int sectionMask;
+        final AtomicInteger lastCounter = new AtomicInteger();
+        
+        Interest(int sectionMask) {
+            this.sectionMask = sectionMask;
+        }
+        
+        /**
+         * Returns whether the listener should be notified, and if so records the state as the last notified state.
+         * States may be processed concurrently, so the last notified state only ever moves forwards, and states older
+         * than it are not delivered.
+         */
+        boolean accept(int[] sectionVersions, int counter) {
+            if (sectionVersions == null)
+                return true; // Changes unknown
+            while (true) {
+                int last = lastCounter.get();
+                if (counter <= last || !changedSince(sectionVersions, last))
+                    return false;
+                if (lastCounter.compareAndSet(last, counter))
+                    return true;
             }
         }
-        LOGGER.debug("Finished notifying state listeners.");
+        
+        private boolean changedSince(int[] sectionVersions, int counter) {
+            for (int i = 0; i < sectionVersions.length; i++)
+                if ((sectionMask & (1 << i)) != 0 && sectionVersions[i] > counter) return true;
+            return false;
+        }
     }
     
 }
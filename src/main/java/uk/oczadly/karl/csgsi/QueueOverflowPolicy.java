@@ -0,0 +1,26 @@
+package uk.oczadly.karl.csgsi;
+
+/**
+ * Determines how state updates are handled when the processing queue of a {@link GSIServer} is full.
+ *
+ * @see GSIServer.Builder#acknowledgeBeforeProcessing(int, QueueOverflowPolicy)
+ */
+public enum QueueOverflowPolicy {
+    
+    /**
+     * Waits for space to become available in the queue before acknowledging the request. This delays the response to
+     * the game client, but no state updates will be discarded.
+     */
+    BLOCK,
+    
+    /**
+     * Discards the newly received state update, retaining the states already queued.
+     */
+    DROP_NEWEST,
+    
+    /**
+     * Discards the oldest queued state update to make room for the newly received state.
+     */
+    DROP_OLDEST
+    
+}
@@ -0,0 +1,179 @@
+package uk.oczadly.karl.csgsi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded queue of state update tasks, which are processed sequentially (in the order received) on a dedicated
+ * worker thread. This allows the HTTP response to be sent to the game client before the state has been parsed and
+ * dispatched to the listeners.
+ */
+class StateUpdatePipeline {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(StateUpdatePipeline.class);
+    private static final Runnable STOP_TASK = () -> {};
+    
+    private final BlockingQueue<Runnable> queue;
+    private final QueueOverflowPolicy overflowPolicy;
+    final AtomicInteger droppedCounter = new AtomicInteger();
+    
+    private volatile Thread thread;
+    
+    
+    /**
+     * @param capacity       the maximum number of queued updates
+     * @param overflowPolicy the behaviour when the queue is full
+     */
+    StateUpdatePipeline(int capacity, QueueOverflowPolicy overflowPolicy) {
+        if (capacity <= 0) throw new IllegalArgumentException("Queue capacity must be positive.");
+        if (overflowPolicy == null) throw new IllegalArgumentException("Overflow policy cannot be null.");
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+    
+    
+    /**
+     * @return the overflow policy of the queue
+     */
+    QueueOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+    
+    /**
+     * @return the number of updates currently waiting to be processed
+     */
+    int size() {
+        return queue.size();
+    }
+    
+    /**
+     * @return true if the worker thread is running
+     */
+    boolean isRunning() {
+        return thread != null && thread.isAlive();
+    }
+    
+    /**
+     * Starts the worker thread, discarding any previously queued updates.
+     */
+    synchronized void start() {
+        if (isRunning())
+            throw new IllegalStateException("Pipeline is already running.");
+        queue.clear();
+        droppedCounter.set(0);
+        thread = new Thread(this::processQueue, "GSI-state-pipeline");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Stops the worker thread. The update currently being processed (if any) will be completed, but queued updates
+     * will be discarded.
+     */
+    synchronized void stop() {
+        Thread t = thread;
+        thread = null;
+        queue.clear();
+        if (t != null) {
+            queue.offer(STOP_TASK); // Wake the worker, in case the interrupt is swallowed by a listener
+            t.interrupt();
+        }
+    }
+    
+    /**
+     * Adds an update task to the queue, applying the overflow policy if the queue is full.
+     *
+     * @param task the task to process
+     * @return true if the task was queued, false if it was discarded
+     */
+    boolean submit(Runnable task) {
+        return submit(task, null);
+    }
+    
+    /**
+     * Adds an update task to the queue, applying the overflow policy if the queue is full.
+     *
+     * @param task      the task to process
+     * @param onDiscard called if the task is discarded by the overflow policy without being processed, or null
+     * @return true if the task was queued, false if it was discarded
+     */
+    boolean submit(Runnable task, Runnable onDiscard) {
+        Runnable queued = onDiscard != null ? new DiscardableTask(task, onDiscard) : task;
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(queued);
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return dropped(queued);
+                }
+            case DROP_NEWEST:
+                return queue.offer(queued) || dropped(queued);
+            case DROP_OLDEST:
+                while (!queue.offer(queued)) {
+                    Runnable oldest = queue.poll();
+                    if (oldest != null)
+                        dropped(oldest);
+                }
+                return true;
+            default:
+                throw new AssertionError();
+        }
+    }
+    
+    
+    private boolean dropped(Runnable task) {
+        droppedCounter.incrementAndGet();
+        LOGGER.warn("State update queue is full, dropping state update ({} policy).", overflowPolicy);
+        if (task instanceof DiscardableTask) {
+            try {
+                ((DiscardableTask)task).onDiscard.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Uncaught exception while discarding state update", e);
+            }
+        }
+        return false;
+    }
+    
+    private void processQueue() {
+        LOGGER.debug("State update pipeline started.");
+        Thread current = Thread.currentThread();
+        while (thread == current && !current.isInterrupted()) {
+            Runnable task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (task == STOP_TASK) break;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Uncaught exception while processing state update", e);
+            }
+        }
+        LOGGER.debug("State update pipeline stopped.");
+    }
+    
+    
+    /** A queued task, along with the callback to run if it is dropped */
+    private static final class DiscardableTask implements Runnable {
+        final Runnable task, onDiscard;
+        
+        DiscardableTask(Runnable task, Runnable onDiscard) {
+            this.task = task;
+            this.onDiscard = onDiscard;
+        }
+        
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+    
+}
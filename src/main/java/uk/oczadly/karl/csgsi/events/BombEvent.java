@@ -0,0 +1,32 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.BombState;
+import uk.oczadly.karl.csgsi.state.GameState;
+
+import java.util.Optional;
+
+/**
+ * The base class of events relating to the bomb.
+ *
+ * <p>Bomb events are derived from the {@link GameState#getBomb() bomb} section when present in both states (which
+ * is only sent to spectators), or otherwise from the bomb phase of the {@link GameState#getRound() round}.</p>
+ */
+public abstract class BombEvent extends GameEvent {
+    
+    private final BombState bomb;
+    
+    BombEvent(GameState state, GameStateContext context, BombState bomb) {
+        super(state, context);
+        this.bomb = bomb;
+    }
+    
+    
+    /**
+     * @return the state of the bomb, or empty if the bomb section was not sent
+     */
+    public Optional<BombState> getBomb() {
+        return Optional.ofNullable(bomb);
+    }
+    
+}
@@ -0,0 +1,75 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.BombState;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.RoundState;
+
+import java.util.List;
+
+/**
+ * Emits {@link BombPlantedEvent}, {@link BombDefusedEvent} and {@link BombExplodedEvent} from changes to
+ * {@link BombState#getPhase()}, or {@link RoundState#getBombPhase()} if the bomb section is not sent.
+ */
+final class BombEventDetector extends EventDetector {
+    
+    BombEventDetector() {
+        super(List.of(BombPlantedEvent.class, BombDefusedEvent.class, BombExplodedEvent.class));
+    }
+    
+    
+    @Override
+    void detect(GameState previous, GameState current, GameStateContext context, GameEventEngine.Dispatcher out) {
+        BombState prevBomb = previous.getBomb().orElse(null), bomb = current.getBomb().orElse(null);
+        RoundState.BombPhase prevPhase, phase;
+        if (prevBomb != null && bomb != null) {
+            if (prevBomb == bomb)
+                return;
+            prevPhase = phaseOf(prevBomb);
+            phase = phaseOf(bomb);
+        } else {
+            RoundState prevRound = previous.getRound().orElse(null), round = current.getRound().orElse(null);
+            if (prevRound == null || round == null || prevRound == round)
+                return;
+            prevPhase = resolve(prevRound.getBombPhase());
+            phase = resolve(round.getBombPhase());
+        }
+        if (phase == null || phase == prevPhase)
+            return;
+        
+        switch (phase) {
+            case PLANTED:
+                if (out.wants(BombPlantedEvent.class))
+                    out.emit(new BombPlantedEvent(current, context, bomb));
+                break;
+            case DEFUSED:
+                if (out.wants(BombDefusedEvent.class))
+                    out.emit(new BombDefusedEvent(current, context, bomb));
+                break;
+            case EXPLODED:
+                if (out.wants(BombExplodedEvent.class))
+                    out.emit(new BombExplodedEvent(current, context, bomb));
+                break;
+        }
+    }
+    
+    
+    /** Maps the bomb status onto the equivalent round bomb phase, so that an aborted defuse isn't a new plant */
+    private static RoundState.BombPhase phaseOf(BombState bomb) {
+        BombState.BombStatus status = resolve(bomb.getPhase());
+        if (status == null)
+            return null;
+        switch (status) {
+            case PLANTED:
+            case DEFUSING:
+                return RoundState.BombPhase.PLANTED;
+            case DEFUSED:
+                return RoundState.BombPhase.DEFUSED;
+            case EXPLODED:
+                return RoundState.BombPhase.EXPLODED;
+            default:
+                return null;
+        }
+    }
+    
+}
@@ -0,0 +1,18 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.BombState;
+import uk.oczadly.karl.csgsi.state.GameState;
+
+/**
+ * Emitted when the bomb has been exploded.
+ *
+ * @see BombState.BombStatus#EXPLODED
+ */
+public final class BombExplodedEvent extends BombEvent {
+    
+    BombExplodedEvent(GameState state, GameStateContext context, BombState bomb) {
+        super(state, context, bomb);
+    }
+    
+}
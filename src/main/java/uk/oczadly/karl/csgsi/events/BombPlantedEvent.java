@@ -0,0 +1,18 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.BombState;
+import uk.oczadly.karl.csgsi.state.GameState;
+
+/**
+ * Emitted when the bomb has been planted.
+ *
+ * @see BombState.BombStatus#PLANTED
+ */
+public final class BombPlantedEvent extends BombEvent {
+    
+    BombPlantedEvent(GameState state, GameStateContext context, BombState bomb) {
+        super(state, context, bomb);
+    }
+    
+}
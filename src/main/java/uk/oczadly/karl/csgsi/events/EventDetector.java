@@ -0,0 +1,51 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.components.EnumValue;
+
+import java.util.List;
+
+/**
+ * Derives a group of related events by comparing a state against the previous state.
+ *
+ * <p>Detectors hold no state of their own, and are only run when at least one of their event types has a listener.
+ * Sections which are the same object in both states are skipped without being compared, and events should only be
+ * constructed once {@link GameEventEngine.Dispatcher#wants(Class)} has confirmed they will be delivered.</p>
+ */
+abstract class EventDetector {
+    
+    private final List<Class<? extends GameEvent>> eventTypes;
+    
+    /**
+     * @param eventTypes the concrete event types emitted by this detector, as an immutable list
+     */
+    EventDetector(List<Class<? extends GameEvent>> eventTypes) {
+        this.eventTypes = eventTypes;
+    }
+    
+    
+    /**
+     * @return the concrete event types emitted by this detector
+     */
+    final List<Class<? extends GameEvent>> getEventTypes() {
+        return eventTypes;
+    }
+    
+    /**
+     * Compares the two states and emits any detected events.
+     *
+     * @param previous the previous state
+     * @param current  the current state
+     * @param context  the context of the current state
+     * @param out      the dispatcher to emit events to
+     */
+    abstract void detect(GameState previous, GameState current, GameStateContext context,
+                         GameEventEngine.Dispatcher out);
+    
+    
+    static <E> E resolve(EnumValue<E> value) {
+        return value != null ? value.get() : null;
+    }
+    
+}
@@ -0,0 +1,37 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+
+/**
+ * The base class of all events emitted by a {@link GameEventEngine}.
+ *
+ * <p>Events are derived by comparing a received state against the previous state, and so are never emitted for the
+ * first state received by the server.</p>
+ */
+public abstract class GameEvent {
+    
+    private final GameState state;
+    private final GameStateContext context;
+    
+    GameEvent(GameState state, GameStateContext context) {
+        this.state = state;
+        this.context = context;
+    }
+    
+    
+    /**
+     * @return the game state which triggered this event
+     */
+    public GameState getState() {
+        return state;
+    }
+    
+    /**
+     * @return the context of the game state which triggered this event
+     */
+    public GameStateContext getContext() {
+        return context;
+    }
+    
+}
@@ -0,0 +1,176 @@
+package uk.oczadly.karl.csgsi.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.oczadly.karl.csgsi.GSIListener;
+import uk.oczadly.karl.csgsi.GSIServer;
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.internal.Util;
+import uk.oczadly.karl.csgsi.state.GameState;
+
+import java.util.*;
+
+/**
+ * Derives typed {@link GameEvent}s from consecutive game states, and notifies the listeners subscribed to each type of
+ * event.
+ *
+ * <p>The engine is a {@link GSIListener}, and should be registered to a {@link GSIServer} with
+ * {@link GSIServer#registerListener(GSIListener)}. Listeners may subscribe to a specific event class (eg.
+ * {@link BombPlantedEvent}), or to a base class (eg. {@link PlayerEvent} or {@link GameEvent}) to receive all events
+ * of its subclasses. Only the detectors of subscribed events are run, and listeners are only called when one of their
+ * events occurs.</p>
+ *
+ * <p>Events are emitted in the order they are detected, on the thread which notified the engine of the state. If a
+ * listener throws an exception, it is logged and the remaining listeners are still notified.</p>
+ *
+ * <p>Supported events:</p>
+ * <ul>
+ *     <li>{@link RoundStartEvent}, {@link RoundEndEvent}</li>
+ *     <li>{@link BombPlantedEvent}, {@link BombDefusedEvent}, {@link BombExplodedEvent}</li>
+ *     <li>{@link PlayerDeathEvent}, {@link PlayerKillEvent}</li>
+ *     <li>{@link WeaponPickupEvent}, {@link WeaponDropEvent}</li>
+ *     <li>{@link GrenadeThrownEvent}, {@link GrenadeDetonatedEvent}</li>
+ * </ul>
+ */
+public final class GameEventEngine implements GSIListener {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameEventEngine.class);
+    
+    private static final List<EventDetector> DETECTORS = List.of(
+            new RoundEventDetector(),
+            new BombEventDetector(),
+            new PlayerEventDetector(),
+            new GrenadeEventDetector());
+    
+    private final List<Subscription> subscriptions = new ArrayList<>(); // Guarded by this
+    private volatile Dispatcher dispatcher = new Dispatcher(Collections.emptyList());
+    
+    
+    /**
+     * Subscribes a listener to an event type, including all of its subclasses.
+     *
+     * @param eventType the class of events to receive
+     * @param listener  the listener to notify
+     * @param <E>       the type of event
+     */
+    public <E extends GameEvent> void subscribe(Class<E> eventType, GameEventListener<? super E> listener) {
+        if (eventType == null) throw new IllegalArgumentException("Event type cannot be null.");
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null.");
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Subscribing listener {} to {}...", Util.refVal(listener), eventType.getSimpleName());
+        synchronized (this) {
+            subscriptions.add(new Subscription(eventType, listener));
+            dispatcher = new Dispatcher(subscriptions);
+        }
+    }
+    
+    /**
+     * Removes all subscriptions of a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void unsubscribe(GameEventListener<?> listener) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null.");
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Unsubscribing listener {}...", Util.refVal(listener));
+        synchronized (this) {
+            if (subscriptions.removeIf(s -> s.listener == listener))
+                dispatcher = new Dispatcher(subscriptions);
+        }
+    }
+    
+    /**
+     * @param eventType the event type
+     * @return true if any listeners will receive events of the given type, or of any of its subclasses
+     */
+    public boolean hasSubscribers(Class<? extends GameEvent> eventType) {
+        if (eventType == null) throw new IllegalArgumentException("Event type cannot be null.");
+        for (Class<?> type : dispatcher.listeners.keySet())
+            if (eventType.isAssignableFrom(type)) return true;
+        return false;
+    }
+    
+    
+    @Override
+    public void update(GameState state, GameStateContext context) {
+        update(context.getPreviousState().orElse(null), state, context);
+    }
+    
+    /**
+     * Detects and emits the events between two states.
+     */
+    void update(GameState previous, GameState state, GameStateContext context) {
+        if (previous == null || previous == state)
+            return;
+        Dispatcher dispatcher = this.dispatcher;
+        for (EventDetector detector : dispatcher.detectors)
+            detector.detect(previous, state, context, dispatcher);
+    }
+    
+    
+    private static final class Subscription {
+        final Class<? extends GameEvent> eventType;
+        final GameEventListener<?> listener;
+        
+        Subscription(Class<? extends GameEvent> eventType, GameEventListener<?> listener) {
+            this.eventType = eventType;
+            this.listener = listener;
+        }
+    }
+    
+    /**
+     * An immutable snapshot of the subscriptions, resolved against each concrete event type.
+     */
+    static final class Dispatcher {
+        private final Map<Class<?>, GameEventListener<?>[]> listeners = new HashMap<>();
+        private final EventDetector[] detectors;
+        
+        Dispatcher(List<Subscription> subscriptions) {
+            List<EventDetector> active = new ArrayList<>();
+            for (EventDetector detector : DETECTORS) {
+                boolean used = false;
+                for (Class<? extends GameEvent> type : detector.getEventTypes()) {
+                    GameEventListener<?>[] matches = subscriptions.stream()
+                            .filter(s -> s.eventType.isAssignableFrom(type))
+                            .map(s -> s.listener)
+                            .toArray(GameEventListener<?>[]::new);
+                    if (matches.length > 0) {
+                        listeners.put(type, matches);
+                        used = true;
+                    }
+                }
+                if (used) active.add(detector);
+            }
+            this.detectors = active.toArray(new EventDetector[0]);
+        }
+        
+        
+        /**
+         * @param eventType the concrete event type
+         * @return true if any listeners are subscribed to the event type
+         */
+        boolean wants(Class<? extends GameEvent> eventType) {
+            return listeners.containsKey(eventType);
+        }
+        
+        /**
+         * Notifies the listeners subscribed to the event.
+         *
+         * @param event the event
+         */
+        @SuppressWarnings("unchecked")
+        void emit(GameEvent event) {
+            GameEventListener<?>[] targets = listeners.get(event.getClass());
+            if (targets == null)
+                return;
+            for (GameEventListener<?> listener : targets) {
+                try {
+                    ((GameEventListener<GameEvent>)listener).onEvent(event);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unhandled exception in game event listener", e);
+                }
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,20 @@
+package uk.oczadly.karl.csgsi.events;
+
+/**
+ * This interface must be implemented by classes that wish to subscribe to game events. Instances should be
+ * subscribed to a {@link GameEventEngine} through the {@link GameEventEngine#subscribe(Class, GameEventListener)}
+ * method.
+ *
+ * @param <E> the type of event
+ */
+@FunctionalInterface
+public interface GameEventListener<E extends GameEvent> {
+    
+    /**
+     * Called when an event of the subscribed type occurs.
+     *
+     * @param event the event
+     */
+    void onEvent(E event);
+    
+}
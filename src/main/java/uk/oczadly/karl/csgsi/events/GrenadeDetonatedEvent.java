@@ -0,0 +1,26 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.components.grenade.Grenade;
+
+/**
+ * Emitted when a grenade is removed, once it has detonated and any lingering effect (such as smoke or fire) has
+ * ended.
+ */
+public final class GrenadeDetonatedEvent extends GrenadeEvent {
+    
+    GrenadeDetonatedEvent(GameState state, GameStateContext context, int id, Grenade grenade) {
+        super(state, context, id, grenade);
+    }
+    
+    
+    /**
+     * @return the last known state of the grenade
+     */
+    @Override
+    public Grenade getGrenade() {
+        return super.getGrenade();
+    }
+    
+}
@@ -0,0 +1,36 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.components.grenade.Grenade;
+
+/**
+ * The base class of events relating to a grenade within the {@link GameState#getGrenades() grenades} section.
+ */
+public abstract class GrenadeEvent extends GameEvent {
+    
+    private final int id;
+    private final Grenade grenade;
+    
+    GrenadeEvent(GameState state, GameStateContext context, int id, Grenade grenade) {
+        super(state, context);
+        this.id = id;
+        this.grenade = grenade;
+    }
+    
+    
+    /**
+     * @return the unique entity ID of the grenade
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * @return the state of the grenade
+     */
+    public Grenade getGrenade() {
+        return grenade;
+    }
+    
+}
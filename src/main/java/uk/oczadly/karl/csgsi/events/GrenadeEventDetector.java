@@ -0,0 +1,64 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.internal.IntKeyMap;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.GrenadeState;
+import uk.oczadly.karl.csgsi.state.components.grenade.Grenade;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Emits {@link GrenadeThrownEvent} and {@link GrenadeDetonatedEvent} from grenade IDs which have been added to or
+ * removed from the {@link GrenadeState}.
+ */
+final class GrenadeEventDetector extends EventDetector {
+    
+    GrenadeEventDetector() {
+        super(List.of(GrenadeThrownEvent.class, GrenadeDetonatedEvent.class));
+    }
+    
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    void detect(GameState previous, GameState current, GameStateContext context, GameEventEngine.Dispatcher out) {
+        GrenadeState prev = previous.getGrenades().orElse(null), cur = current.getGrenades().orElse(null);
+        if (prev == null || cur == null || prev == cur)
+            return;
+        boolean thrown = out.wants(GrenadeThrownEvent.class), detonated = out.wants(GrenadeDetonatedEvent.class);
+        Map<Integer, Grenade> prevAll = prev.getAll(), all = cur.getAll();
+        
+        if (prevAll instanceof IntKeyMap && all instanceof IntKeyMap) {
+            // Merge the two ascending key arrays
+            IntKeyMap<Grenade> a = (IntKeyMap<Grenade>)prevAll, b = (IntKeyMap<Grenade>)all;
+            int i = 0, j = 0;
+            while (i < a.size() || j < b.size()) {
+                if (j >= b.size() || (i < a.size() && a.keyAt(i) < b.keyAt(j))) {
+                    if (detonated)
+                        out.emit(new GrenadeDetonatedEvent(current, context, a.keyAt(i), a.valueAt(i)));
+                    i++;
+                } else if (i >= a.size() || b.keyAt(j) < a.keyAt(i)) {
+                    if (thrown)
+                        out.emit(new GrenadeThrownEvent(current, context, b.keyAt(j), b.valueAt(j)));
+                    j++;
+                } else {
+                    i++;
+                    j++;
+                }
+            }
+        } else {
+            if (detonated) {
+                for (Map.Entry<Integer, Grenade> entry : prevAll.entrySet())
+                    if (!all.containsKey(entry.getKey()))
+                        out.emit(new GrenadeDetonatedEvent(current, context, entry.getKey(), entry.getValue()));
+            }
+            if (thrown) {
+                for (Map.Entry<Integer, Grenade> entry : all.entrySet())
+                    if (!prevAll.containsKey(entry.getKey()))
+                        out.emit(new GrenadeThrownEvent(current, context, entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+    
+}
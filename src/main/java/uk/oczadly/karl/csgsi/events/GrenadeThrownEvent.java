@@ -0,0 +1,16 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.components.grenade.Grenade;
+
+/**
+ * Emitted when a new grenade appears.
+ */
+public final class GrenadeThrownEvent extends GrenadeEvent {
+    
+    GrenadeThrownEvent(GameState state, GameStateContext context, int id, Grenade grenade) {
+        super(state, context, id, grenade);
+    }
+    
+}
@@ -0,0 +1,17 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+/**
+ * Emitted when the health of a player drops to zero.
+ */
+public final class PlayerDeathEvent extends PlayerEvent {
+    
+    PlayerDeathEvent(GameState state, GameStateContext context, PlayerSteamID playerId, PlayerState player) {
+        super(state, context, playerId, player);
+    }
+    
+}
@@ -0,0 +1,41 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+/**
+ * The base class of events relating to a single player.
+ *
+ * <p>Player events are derived from the {@link GameState#getAllPlayers() all players} section when present in both
+ * states (which is only sent to spectators), or otherwise from the {@link GameState#getPlayer() player} section if
+ * the same player is present in both states.</p>
+ */
+public abstract class PlayerEvent extends GameEvent {
+    
+    private final PlayerSteamID playerId;
+    private final PlayerState player;
+    
+    PlayerEvent(GameState state, GameStateContext context, PlayerSteamID playerId, PlayerState player) {
+        super(state, context);
+        this.playerId = playerId;
+        this.player = player;
+    }
+    
+    
+    /**
+     * @return the Steam ID of the player
+     */
+    public PlayerSteamID getPlayerId() {
+        return playerId;
+    }
+    
+    /**
+     * @return the current state of the player
+     */
+    public PlayerState getPlayer() {
+        return player;
+    }
+    
+}
@@ -0,0 +1,101 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerInventory;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Emits {@link PlayerDeathEvent} and {@link PlayerKillEvent} from changes to a player's health and round kills, and
+ * {@link WeaponPickupEvent} and {@link WeaponDropEvent} from changes to the weapons of a player's inventory.
+ */
+final class PlayerEventDetector extends EventDetector {
+    
+    PlayerEventDetector() {
+        super(List.of(PlayerDeathEvent.class, PlayerKillEvent.class, WeaponPickupEvent.class, WeaponDropEvent.class));
+    }
+    
+    
+    @Override
+    void detect(GameState previous, GameState current, GameStateContext context, GameEventEngine.Dispatcher out) {
+        Map<PlayerSteamID, PlayerState> prevPlayers = previous.getAllPlayers().orElse(null),
+                players = current.getAllPlayers().orElse(null);
+        if (prevPlayers != null && players != null) {
+            if (prevPlayers == players)
+                return;
+            for (Map.Entry<PlayerSteamID, PlayerState> entry : players.entrySet()) {
+                PlayerState prev = prevPlayers.get(entry.getKey()), cur = entry.getValue();
+                if (prev != null && cur != null && prev != cur)
+                    comparePlayer(entry.getKey(), prev, cur, current, context, out);
+            }
+        } else {
+            PlayerState prev = previous.getPlayer().orElse(null), cur = current.getPlayer().orElse(null);
+            if (prev != null && cur != null && prev != cur && cur.getSteamId() != null
+                    && cur.getSteamId().equals(prev.getSteamId()))
+                comparePlayer(cur.getSteamId(), prev, cur, current, context, out);
+        }
+    }
+    
+    
+    private void comparePlayer(PlayerSteamID id, PlayerState prev, PlayerState cur, GameState state,
+                               GameStateContext context, GameEventEngine.Dispatcher out) {
+        PlayerState.PlayerStateDetails prevDetails = prev.getState(), details = cur.getState();
+        if (prevDetails != null && details != null && prevDetails != details) {
+            int kills = details.getRoundKills() - prevDetails.getRoundKills();
+            if (kills > 0 && out.wants(PlayerKillEvent.class)) {
+                int headshots = Math.max(0, details.getRoundKillsHeadshot() - prevDetails.getRoundKillsHeadshot());
+                out.emit(new PlayerKillEvent(state, context, id, cur, kills, headshots));
+            }
+            if (prevDetails.getHealth() > 0 && details.getHealth() == 0 && out.wants(PlayerDeathEvent.class))
+                out.emit(new PlayerDeathEvent(state, context, id, cur));
+        }
+        PlayerInventory prevInv = prev.getInventory(), inv = cur.getInventory();
+        if (prevInv != null && inv != null && prevInv != inv)
+            compareInventory(id, cur, prevInv.getItems(), inv.getItems(), state, context, out);
+    }
+    
+    private void compareInventory(PlayerSteamID id, PlayerState player, List<PlayerInventory.ItemDetails> prevItems,
+                                  List<PlayerInventory.ItemDetails> items, GameState state, GameStateContext context,
+                                  GameEventEngine.Dispatcher out) {
+        boolean pickups = out.wants(WeaponPickupEvent.class), drops = out.wants(WeaponDropEvent.class);
+        if (!pickups && !drops)
+            return;
+        
+        // Fast path: the same weapons in the same slots (eg. only ammo or the active weapon changed)
+        int prevSize = prevItems.size(), size = items.size();
+        if (prevSize == size) {
+            int i = 0;
+            while (i < size && sameWeapon(prevItems.get(i), items.get(i)))
+                i++;
+            if (i == size)
+                return;
+        }
+        
+        // Match each current item against an unmatched previous item of the same weapon
+        boolean[] matched = new boolean[prevSize];
+        for (PlayerInventory.ItemDetails item : items) {
+            int match = -1;
+            for (int i = 0; i < prevSize && match == -1; i++)
+                if (!matched[i] && sameWeapon(prevItems.get(i), item)) match = i;
+            if (match != -1) {
+                matched[match] = true;
+            } else if (pickups) {
+                out.emit(new WeaponPickupEvent(state, context, id, player, item));
+            }
+        }
+        if (drops) {
+            for (int i = 0; i < prevSize; i++)
+                if (!matched[i]) out.emit(new WeaponDropEvent(state, context, id, player, prevItems.get(i)));
+        }
+    }
+    
+    private static boolean sameWeapon(PlayerInventory.ItemDetails a, PlayerInventory.ItemDetails b) {
+        return a == b || Objects.equals(a.getWeapon(), b.getWeapon());
+    }
+    
+}
@@ -0,0 +1,39 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+/**
+ * Emitted when the number of kills a player has made in the current round increases.
+ *
+ * <p>As states are not sent for every tick, a single event may represent multiple kills.</p>
+ */
+public final class PlayerKillEvent extends PlayerEvent {
+    
+    private final int kills, headshots;
+    
+    PlayerKillEvent(GameState state, GameStateContext context, PlayerSteamID playerId, PlayerState player,
+                    int kills, int headshots) {
+        super(state, context, playerId, player);
+        this.kills = kills;
+        this.headshots = headshots;
+    }
+    
+    
+    /**
+     * @return the number of new kills since the previous state
+     */
+    public int getKillCount() {
+        return kills;
+    }
+    
+    /**
+     * @return the number of new headshot kills since the previous state
+     */
+    public int getHeadshotCount() {
+        return headshots;
+    }
+    
+}
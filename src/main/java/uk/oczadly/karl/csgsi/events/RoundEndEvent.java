@@ -0,0 +1,36 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.RoundState;
+import uk.oczadly.karl.csgsi.state.components.EnumValue;
+import uk.oczadly.karl.csgsi.state.components.Team;
+
+/**
+ * Emitted when the round phase becomes {@link RoundState.RoundPhase#OVER}.
+ */
+public final class RoundEndEvent extends GameEvent {
+    
+    private final RoundState round;
+    
+    RoundEndEvent(GameState state, GameStateContext context, RoundState round) {
+        super(state, context);
+        this.round = round;
+    }
+    
+    
+    /**
+     * @return the state of the round which has ended
+     */
+    public RoundState getRound() {
+        return round;
+    }
+    
+    /**
+     * @return the team which won the round, or null if not known
+     */
+    public EnumValue<Team> getWinningTeam() {
+        return round.getWinningTeam();
+    }
+    
+}
@@ -0,0 +1,35 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.RoundState;
+
+import java.util.List;
+
+/**
+ * Emits {@link RoundStartEvent} and {@link RoundEndEvent} from changes to {@link RoundState#getPhase()}.
+ */
+final class RoundEventDetector extends EventDetector {
+    
+    RoundEventDetector() {
+        super(List.of(RoundStartEvent.class, RoundEndEvent.class));
+    }
+    
+    
+    @Override
+    void detect(GameState previous, GameState current, GameStateContext context, GameEventEngine.Dispatcher out) {
+        RoundState prev = previous.getRound().orElse(null), cur = current.getRound().orElse(null);
+        if (cur == null || cur == prev)
+            return;
+        RoundState.RoundPhase phase = resolve(cur.getPhase());
+        if (phase == null || (prev != null && phase == resolve(prev.getPhase())))
+            return;
+        
+        if (phase == RoundState.RoundPhase.LIVE && out.wants(RoundStartEvent.class)) {
+            out.emit(new RoundStartEvent(current, context, cur));
+        } else if (phase == RoundState.RoundPhase.OVER && out.wants(RoundEndEvent.class)) {
+            out.emit(new RoundEndEvent(current, context, cur));
+        }
+    }
+    
+}
@@ -0,0 +1,27 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.RoundState;
+
+/**
+ * Emitted when the freeze time of a round ends, and the round phase becomes {@link RoundState.RoundPhase#LIVE}.
+ */
+public final class RoundStartEvent extends GameEvent {
+    
+    private final RoundState round;
+    
+    RoundStartEvent(GameState state, GameStateContext context, RoundState round) {
+        super(state, context);
+        this.round = round;
+    }
+    
+    
+    /**
+     * @return the state of the round which has started
+     */
+    public RoundState getRound() {
+        return round;
+    }
+    
+}
@@ -0,0 +1,20 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerInventory;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+/**
+ * Emitted when an item is removed from a player's inventory. This includes items which are dropped, thrown (such as
+ * the last grenade of a type) or lost upon death.
+ */
+public final class WeaponDropEvent extends WeaponEvent {
+    
+    WeaponDropEvent(GameState state, GameStateContext context, PlayerSteamID playerId, PlayerState player,
+                    PlayerInventory.ItemDetails item) {
+        super(state, context, playerId, player, item);
+    }
+    
+}
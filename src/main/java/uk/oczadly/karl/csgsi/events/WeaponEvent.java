@@ -0,0 +1,30 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerInventory;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+/**
+ * The base class of events relating to a change in the items of a player's inventory.
+ */
+public abstract class WeaponEvent extends PlayerEvent {
+    
+    private final PlayerInventory.ItemDetails item;
+    
+    WeaponEvent(GameState state, GameStateContext context, PlayerSteamID playerId, PlayerState player,
+                PlayerInventory.ItemDetails item) {
+        super(state, context, playerId, player);
+        this.item = item;
+    }
+    
+    
+    /**
+     * @return the item which was added or removed
+     */
+    public PlayerInventory.ItemDetails getItem() {
+        return item;
+    }
+    
+}
@@ -0,0 +1,19 @@
+package uk.oczadly.karl.csgsi.events;
+
+import uk.oczadly.karl.csgsi.GameStateContext;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerInventory;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+/**
+ * Emitted when an item is added to a player's inventory, whether picked up or purchased.
+ */
+public final class WeaponPickupEvent extends WeaponEvent {
+    
+    WeaponPickupEvent(GameState state, GameStateContext context, PlayerSteamID playerId, PlayerState player,
+                      PlayerInventory.ItemDetails item) {
+        super(state, context, playerId, player, item);
+    }
+    
+}
@@ -0,0 +1,274 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Verifies the auth tokens of a raw UTF-8 state payload before it is parsed, so that unauthorized requests can be
+ * rejected cheaply.
+ *
+ * <p>Only the top-level {@code auth} object is read, and the remaining sections are skipped at the byte level without
+ * being parsed. The required token values are encoded once on construction, and compared against the raw (escaped)
+ * JSON string bytes in constant time. No objects are allocated while verifying a payload.</p>
+ *
+ * <p>If the {@code auth} object contains an escape sequence, or a required token is not sent as a string, the object
+ * is instead decoded with Gson and the decoded values compared, so that any equivalent encoding of a token is
+ * accepted.</p>
+ *
+ * <p>Payloads which are malformed before the {@code auth} object has been verified are rejected.</p>
+ */
+public final class AuthTokenGate {
+    
+    private static final byte[] AUTH_NAME = "auth".getBytes(StandardCharsets.US_ASCII);
+    private static final Type AUTH_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+    
+    private final String[] nameStrings;
+    private final byte[][] names, values;
+    
+    
+    /**
+     * @param requiredTokens the required auth tokens
+     */
+    public AuthTokenGate(Map<String, String> requiredTokens) {
+        this.nameStrings = new String[requiredTokens.size()];
+        this.names = new byte[requiredTokens.size()][];
+        this.values = new byte[requiredTokens.size()][];
+        int i = 0;
+        for (Map.Entry<String, String> token : requiredTokens.entrySet()) {
+            nameStrings[i] = token.getKey();
+            names[i] = escape(token.getKey());
+            values[i] = escape(token.getValue());
+            i++;
+        }
+    }
+    
+    
+    /**
+     * @return true if any auth tokens are required
+     */
+    public boolean isRequired() {
+        return names.length > 0;
+    }
+    
+    /**
+     * Verifies that the payload contains all the required auth tokens. Additional tokens are permitted.
+     *
+     * @param json the UTF-8 encoded JSON payload
+     * @return true if the payload is authorized, or if no tokens are required
+     */
+    public boolean verify(byte[] json) {
+        if (names.length == 0)
+            return true;
+        
+        int pos = skipWhitespace(json, skipBom(json));
+        if (pos >= json.length || json[pos++] != '{')
+            return false;
+        while (true) {
+            pos = skipWhitespace(json, pos);
+            if (pos >= json.length || json[pos] != '"')
+                return false; // Malformed, or auth object not present
+            int nameStart = pos + 1, nameEnd = findStringEnd(json, nameStart);
+            if (nameEnd == -1)
+                return false;
+            pos = skipWhitespace(json, nameEnd + 1);
+            if (pos >= json.length || json[pos++] != ':')
+                return false;
+            pos = skipWhitespace(json, pos);
+            if (regionEquals(AUTH_NAME, json, nameStart, nameEnd))
+                return verifyTokens(json, pos);
+            pos = skipValue(json, pos);
+            if (pos == -1)
+                return false;
+            pos = skipWhitespace(json, pos);
+            if (pos >= json.length || json[pos++] != ',')
+                return false;
+        }
+    }
+    
+    
+    /** Verifies the tokens within the auth object starting at the given position */
+    private boolean verifyTokens(byte[] json, int objStart) {
+        int objEnd = skipValue(json, objStart);
+        if (objEnd != -1 && json[objStart] == '{' && containsEscape(json, objStart, objEnd))
+            return verifyDecoded(json, objStart, objEnd);
+        
+        boolean valid = true;
+        for (int i = 0; i < names.length; i++) {
+            int valueStart = findLastMember(json, objStart, names[i]);
+            if (valueStart < 0) {
+                valid = false;
+            } else if (json[valueStart] != '"') {
+                return verifyDecoded(json, objStart, objEnd); // Eg. a numeric token
+            } else {
+                int valueEnd = findStringEnd(json, valueStart + 1);
+                // Non-short-circuit, so every token is always compared
+                valid &= json[valueStart] == '"' && valueEnd != -1
+                        && constantTimeEquals(values[i], json, valueStart + 1, valueEnd);
+            }
+        }
+        return valid;
+    }
+    
+    /** Decodes the auth object within the range [start, end), and verifies the decoded tokens */
+    private boolean verifyDecoded(byte[] json, int start, int end) {
+        Map<String, String> tokens;
+        try {
+            tokens = Util.GSON.fromJson(new Utf8ByteReader(json, start, end - start), AUTH_TYPE);
+        } catch (JsonParseException e) {
+            return false;
+        }
+        boolean valid = tokens != null;
+        for (int i = 0; i < names.length; i++) {
+            String value = valid ? tokens.get(nameStrings[i]) : null;
+            if (value == null) {
+                valid = false;
+            } else {
+                byte[] actual = escape(value);
+                valid &= constantTimeEquals(values[i], actual, 0, actual.length);
+            }
+        }
+        return valid;
+    }
+    
+    /**
+     * Finds the value of the last member with the given name in an object.
+     *
+     * @return the start index of the value, -1 if not present, or -2 if malformed
+     */
+    private static int findLastMember(byte[] json, int pos, byte[] name) {
+        if (pos >= json.length || json[pos++] != '{')
+            return -2;
+        int found = -1;
+        pos = skipWhitespace(json, pos);
+        if (pos < json.length && json[pos] == '}')
+            return found;
+        while (true) {
+            if (pos >= json.length || json[pos] != '"')
+                return -2;
+            int nameStart = pos + 1, nameEnd = findStringEnd(json, nameStart);
+            if (nameEnd == -1)
+                return -2;
+            pos = skipWhitespace(json, nameEnd + 1);
+            if (pos >= json.length || json[pos++] != ':')
+                return -2;
+            pos = skipWhitespace(json, pos);
+            if (regionEquals(name, json, nameStart, nameEnd))
+                found = pos;
+            pos = skipValue(json, pos);
+            if (pos == -1)
+                return -2;
+            pos = skipWhitespace(json, pos);
+            if (pos >= json.length)
+                return -2;
+            byte b = json[pos++];
+            if (b == '}')
+                return found;
+            if (b != ',')
+                return -2;
+            pos = skipWhitespace(json, pos);
+        }
+    }
+    
+    /** Skips a value, returning the index after its last byte, or -1 if malformed */
+    private static int skipValue(byte[] json, int pos) {
+        if (pos >= json.length)
+            return -1;
+        byte b = json[pos];
+        if (b == '"') {
+            int end = findStringEnd(json, pos + 1);
+            return end != -1 ? end + 1 : -1;
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            while (pos < json.length) {
+                b = json[pos++];
+                if (b == '"') {
+                    pos = findStringEnd(json, pos);
+                    if (pos == -1) return -1;
+                    pos++;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return pos;
+                }
+            }
+            return -1;
+        } else {
+            int start = pos;
+            while (pos < json.length && !isDelimiter(json[pos]))
+                pos++;
+            return pos != start ? pos : -1;
+        }
+    }
+    
+    /** Returns the index of the closing quote of a string, or -1 if unterminated */
+    private static int findStringEnd(byte[] json, int pos) {
+        while (pos < json.length) {
+            byte b = json[pos];
+            if (b == '"') return pos;
+            pos += b == '\\' ? 2 : 1;
+        }
+        return -1;
+    }
+    
+    /** Compares the expected bytes against the region, in time dependent only on the expected length */
+    private static boolean constantTimeEquals(byte[] expected, byte[] buf, int start, int end) {
+        int len = end - start;
+        int diff = expected.length ^ len;
+        for (int i = 0; i < expected.length; i++)
+            diff |= expected[i] ^ (i < len ? buf[start + i] : 0);
+        return diff == 0;
+    }
+    
+    private static boolean containsEscape(byte[] json, int start, int end) {
+        for (int i = start; i < end; i++)
+            if (json[i] == '\\') return true;
+        return false;
+    }
+    
+    private static boolean regionEquals(byte[] expected, byte[] buf, int start, int end) {
+        if (end - start != expected.length)
+            return false;
+        for (int i = 0; i < expected.length; i++)
+            if (buf[start + i] != expected[i]) return false;
+        return true;
+    }
+    
+    private static int skipBom(byte[] json) {
+        return json.length >= 3 && json[0] == (byte)0xEF && json[1] == (byte)0xBB && json[2] == (byte)0xBF ? 3 : 0;
+    }
+    
+    private static int skipWhitespace(byte[] json, int pos) {
+        while (pos < json.length && isWhitespace(json[pos]))
+            pos++;
+        return pos;
+    }
+    
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+    
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '}' || b == ']' || isWhitespace(b);
+    }
+    
+    /** Encodes the string as it would appear (without quotes) in JSON sent by the game client */
+    private static byte[] escape(String str) {
+        StringBuilder sb = new StringBuilder(str.length() + 8);
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int)c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+}
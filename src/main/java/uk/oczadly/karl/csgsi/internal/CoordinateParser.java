@@ -0,0 +1,119 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.JsonParseException;
+import uk.oczadly.karl.csgsi.state.components.Coordinate;
+
+/**
+ * Parses coordinate strings sent by the game client, in the format {@code "x, y, z"}, without using regular
+ * expressions or creating substrings.
+ *
+ * <p>Each component is a plain decimal number (an optional minus sign, digits and an optional decimal point). Values
+ * are identical to those produced by {@link Double#parseDouble(String)}; numbers with up to 15 significant digits
+ * and 22 fraction digits (which covers every value sent by the game) are computed directly, as both the digits and
+ * the power of ten are exactly representable and the division is correctly rounded. Longer numbers fall back to
+ * {@link Double#parseDouble(String)}.</p>
+ */
+public final class CoordinateParser {
+    
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = new double[23];
+    
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+    
+    
+    private CoordinateParser() {}
+    
+    
+    /**
+     * Parses the three components of a coordinate string into the given array.
+     *
+     * @param str    the coordinate string, eg. {@code "-1353.00, 645.00, 1614.03"}
+     * @param dest   the array to write the {@code x}, {@code y} and {@code z} values to
+     * @param offset the index of {@code dest} to write the {@code x} value to
+     * @throws JsonParseException if the string is not a valid coordinate
+     */
+    public static void parse(CharSequence str, double[] dest, int offset) {
+        int len = str.length();
+        int sep1 = findSeparator(str, 0, len);
+        int sep2 = findSeparator(str, sep1 + 2, len);
+        dest[offset] = parseNumber(str, 0, sep1);
+        dest[offset + 1] = parseNumber(str, sep1 + 2, sep2);
+        dest[offset + 2] = parseNumber(str, sep2 + 2, len);
+    }
+    
+    /**
+     * Parses a coordinate string.
+     *
+     * @param str the coordinate string, eg. {@code "-1353.00, 645.00, 1614.03"}
+     * @return the parsed coordinate
+     * @throws JsonParseException if the string is not a valid coordinate
+     */
+    public static Coordinate parse(CharSequence str) {
+        int len = str.length();
+        int sep1 = findSeparator(str, 0, len);
+        int sep2 = findSeparator(str, sep1 + 2, len);
+        return new Coordinate(
+                parseNumber(str, 0, sep1),
+                parseNumber(str, sep1 + 2, sep2),
+                parseNumber(str, sep2 + 2, len));
+    }
+    
+    
+    /** Returns the index of the next {@code ", "} separator */
+    private static int findSeparator(CharSequence str, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (str.charAt(i) == ',') {
+                if (i + 1 >= end || str.charAt(i + 1) != ' ')
+                    break;
+                return i;
+            }
+        }
+        throw invalid(str);
+    }
+    
+    /** Parses a plain decimal number within the range [start, end) */
+    static double parseNumber(CharSequence str, int start, int end) {
+        int i = start;
+        boolean negative = i < end && str.charAt(i) == '-';
+        if (negative) i++;
+        
+        long digits = 0;
+        int sigDigits = 0, fracDigits = 0, digitCount = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = str.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitCount++;
+                if (point) fracDigits++;
+                if (sigDigits > 0 || c != '0') {
+                    sigDigits++;
+                    if (sigDigits <= MAX_FAST_DIGITS)
+                        digits = digits * 10 + (c - '0');
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                throw invalid(str);
+            }
+        }
+        if (digitCount == 0)
+            throw invalid(str);
+        
+        double value;
+        if (sigDigits <= MAX_FAST_DIGITS && fracDigits < POWERS_OF_TEN.length) {
+            value = fracDigits == 0 ? (double)digits : digits / POWERS_OF_TEN[fracDigits];
+        } else {
+            value = Math.abs(Double.parseDouble(str.subSequence(start, end).toString())); // Rare
+        }
+        return negative ? -value : value;
+    }
+    
+    private static JsonParseException invalid(CharSequence str) {
+        return new JsonParseException("Invalid coordinate format \"" + str + "\".");
+    }
+    
+}
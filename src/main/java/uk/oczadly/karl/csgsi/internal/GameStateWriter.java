@@ -0,0 +1,111 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import uk.oczadly.karl.csgsi.state.*;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serializes a {@link GameState} through its getter methods, so that subclasses which do not hold their sections
+ * within the fields of {@link GameState} (such as {@link LazyGameState}) are serialized in full. The output is
+ * identical to that of Gson's reflective adapter for a plain {@link GameState} containing the same sections.
+ *
+ * <p>This factory is referenced through a class-level {@link com.google.gson.annotations.JsonAdapter} annotation on
+ * {@link GameState} and each of its internal subclasses, so that states passed to any {@link Gson} instance are
+ * serialized correctly. A plain {@link GameState} is deserialized through Gson's reflective adapter, while the
+ * subclasses cannot be deserialized.</p>
+ */
+public final class GameStateWriter implements TypeAdapterFactory {
+    
+    private static final TypeToken<Map<PlayerSteamID, PlayerState>> ALL_PLAYERS_TYPE =
+            new TypeToken<Map<PlayerSteamID, PlayerState>>() {};
+    
+    
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!GameState.class.isAssignableFrom(type.getRawType()))
+            return null;
+        TypeAdapter<GameState> reader = null;
+        if (type.getRawType() == GameState.class) {
+            @SuppressWarnings("unchecked")
+            TypeAdapter<GameState> delegate = (TypeAdapter<GameState>)gson.getDelegateAdapter(this, type);
+            reader = delegate;
+        }
+        @SuppressWarnings("unchecked")
+        TypeAdapter<T> adapter = (TypeAdapter<T>)new Adapter(gson, type.getRawType(), reader);
+        return adapter;
+    }
+    
+    
+    private static final class Adapter extends TypeAdapter<GameState> {
+        private final Class<?> type;
+        private final TypeAdapter<GameState> reader; // Null if not supported
+        private final TypeAdapter<ProviderState> provider;
+        private final TypeAdapter<MapState> map;
+        private final TypeAdapter<PlayerState> player;
+        private final TypeAdapter<RoundState> round;
+        private final TypeAdapter<GrenadeState> grenades;
+        private final TypeAdapter<Map<PlayerSteamID, PlayerState>> players;
+        private final TypeAdapter<BombState> bomb;
+        private final TypeAdapter<PhaseCountdownState> phaseCountdowns;
+        
+        Adapter(Gson gson, Class<?> type, TypeAdapter<GameState> reader) {
+            this.type = type;
+            this.reader = reader;
+            this.provider = gson.getAdapter(ProviderState.class);
+            this.map = gson.getAdapter(MapState.class);
+            this.player = gson.getAdapter(PlayerState.class);
+            this.round = gson.getAdapter(RoundState.class);
+            this.grenades = gson.getAdapter(GrenadeState.class);
+            this.players = gson.getAdapter(ALL_PLAYERS_TYPE);
+            this.bomb = gson.getAdapter(BombState.class);
+            this.phaseCountdowns = gson.getAdapter(PhaseCountdownState.class);
+        }
+        
+        @Override
+        public void write(JsonWriter out, GameState state) throws IOException {
+            if (state == null) {
+                out.nullValue();
+                return;
+            }
+            // Same order as the fields of GameState
+            out.beginObject();
+            writeSection(out, "provider", provider, state.getProvider());
+            writeSection(out, "map", map, state.getMap());
+            writeSection(out, "player", player, state.getPlayer());
+            writeSection(out, "round", round, state.getRound());
+            writeSection(out, "grenades", grenades, state.getGrenades());
+            writeSection(out, "allplayers", players, state.getAllPlayers());
+            writeSection(out, "bomb", bomb, state.getBomb());
+            writeSection(out, "phase_countdowns", phaseCountdowns, state.getPhaseCountdowns());
+            out.endObject();
+        }
+        
+        @Override
+        public GameState read(JsonReader in) throws IOException {
+            if (reader != null)
+                return reader.read(in);
+            throw new UnsupportedOperationException(
+                    type.getSimpleName() + " cannot be deserialized, deserialize as a GameState instead.");
+        }
+        
+        private static <V> void writeSection(JsonWriter out, String name, TypeAdapter<V> adapter, Optional<V> value)
+                throws IOException {
+            if (value.isPresent()) {
+                out.name(name);
+                adapter.write(out, value.get());
+            } else if (out.getSerializeNulls()) {
+                out.name(name).nullValue();
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,206 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import java.util.*;
+
+/**
+ * An immutable map with primitive {@code int} keys, backed by a sorted key array and a parallel value array.
+ *
+ * <p>Lookups through {@link #get(int)} perform a binary search without boxing the key. The {@link Map} view methods
+ * are supported for compatibility, and box keys only when iterating. Entries are iterated in ascending key order.</p>
+ *
+ * @param <V> the value type
+ */
+public final class IntKeyMap<V> extends AbstractMap<Integer, V> {
+    
+    private static final IntKeyMap<?> EMPTY = new IntKeyMap<>(new int[0], new Object[0]);
+    
+    private final int[] keys;
+    private final Object[] values;
+    private Set<Entry<Integer, V>> entrySet;
+    
+    private IntKeyMap(int[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+    
+    
+    /**
+     * @param <V> the value type
+     * @return an empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> IntKeyMap<V> empty() {
+        return (IntKeyMap<V>)EMPTY;
+    }
+    
+    
+    /**
+     * Returns the value mapped to the given key.
+     *
+     * @param key the key
+     * @return the value, or null if not present
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 ? (V)values[i] : null;
+    }
+    
+    /**
+     * @param key the key
+     * @return true if the key is present
+     */
+    public boolean containsKey(int key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+    
+    /**
+     * @param index the entry index, in ascending key order
+     * @return the key at the given index
+     */
+    public int keyAt(int index) {
+        return keys[index];
+    }
+    
+    /**
+     * @param index the entry index, in ascending key order
+     * @return the value at the given index
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        return (V)values[index];
+    }
+    
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get((int)(Integer)key) : null;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && containsKey((int)(Integer)key);
+    }
+    
+    @Override
+    public int size() {
+        return keys.length;
+    }
+    
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        Set<Entry<Integer, V>> entrySet = this.entrySet;
+        if (entrySet == null) {
+            this.entrySet = entrySet = new AbstractSet<Entry<Integer, V>>() {
+                @Override
+                public Iterator<Entry<Integer, V>> iterator() {
+                    return new Iterator<Entry<Integer, V>>() {
+                        int next = 0;
+                        
+                        @Override
+                        public boolean hasNext() {
+                            return next < keys.length;
+                        }
+                        
+                        @Override
+                        public Entry<Integer, V> next() {
+                            if (next >= keys.length)
+                                throw new NoSuchElementException();
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(keys[i], valueAt(i));
+                        }
+                    };
+                }
+                
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+        return entrySet;
+    }
+    
+    
+    /**
+     * Builds an {@link IntKeyMap}. Entries added in ascending key order are appended without sorting. If a key is
+     * added more than once, the last value is kept.
+     *
+     * @param <V> the value type
+     */
+    public static final class Builder<V> {
+        private int[] keys;
+        private Object[] values;
+        private int size;
+        private boolean sorted = true;
+        
+        public Builder() {
+            this(8);
+        }
+        
+        /**
+         * @param capacity the initial capacity
+         */
+        public Builder(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new Object[capacity];
+        }
+        
+        
+        /**
+         * Adds an entry to the map.
+         *
+         * @param key   the key
+         * @param value the value
+         * @return this builder
+         */
+        public Builder<V> put(int key, V value) {
+            if (size == keys.length) {
+                int capacity = Math.max(8, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            if (size > 0 && key <= keys[size - 1])
+                sorted = false;
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            return this;
+        }
+        
+        /**
+         * @return the number of entries added, including duplicate keys
+         */
+        public int size() {
+            return size;
+        }
+        
+        /**
+         * @return a new immutable map containing the added entries
+         */
+        public IntKeyMap<V> build() {
+            if (size == 0)
+                return empty();
+            if (sorted)
+                return new IntKeyMap<>(Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
+            
+            // Sort indices by key, keeping the last of any duplicates (rare)
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> keys[a] != keys[b] ? Integer.compare(keys[a], keys[b])
+                    : Integer.compare(a, b));
+            int[] sortedKeys = new int[size];
+            Object[] sortedValues = new Object[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                int idx = order[i];
+                if (n > 0 && sortedKeys[n - 1] == keys[idx]) n--; // Replace duplicate
+                sortedKeys[n] = keys[idx];
+                sortedValues[n] = values[idx];
+                n++;
+            }
+            return new IntKeyMap<>(Arrays.copyOf(sortedKeys, n), Arrays.copyOf(sortedValues, n));
+        }
+    }
+    
+}
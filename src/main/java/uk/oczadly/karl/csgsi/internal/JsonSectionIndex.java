@@ -0,0 +1,316 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An index of the top-level members of a JSON object, recording the byte offsets of each member's value within the
+ * UTF-8 encoded document. The values themselves are skipped over without being parsed, allowing individual sections
+ * to be deserialized at a later point.
+ *
+ * <p>The structure of the values (nesting of objects/arrays and strings) is validated while scanning, but the contents
+ * of scalar values are not.</p>
+ */
+public final class JsonSectionIndex {
+    
+    private String[] names = new String[16];
+    private int[] starts = new int[16], ends = new int[16];
+    private int size;
+    
+    
+    private JsonSectionIndex() {}
+    
+    
+    /**
+     * @return the number of top-level members
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @param name the member name
+     * @return true if the object contains the member
+     */
+    public boolean contains(String name) {
+        return indexOf(name) != -1;
+    }
+    
+    /**
+     * @param name the member name
+     * @return the index of the first byte of the member's value, or -1 if not present
+     */
+    public int getStart(String name) {
+        int i = indexOf(name);
+        return i != -1 ? starts[i] : -1;
+    }
+    
+    /**
+     * @param name the member name
+     * @return the index after the last byte of the member's value, or -1 if not present
+     */
+    public int getEnd(String name) {
+        int i = indexOf(name);
+        return i != -1 ? ends[i] : -1;
+    }
+    
+    
+    /**
+     * @param i the member index, in document order
+     * @return the name of the member
+     */
+    public String nameAt(int i) {
+        checkIndex(i);
+        return names[i];
+    }
+    
+    /**
+     * @param i the member index, in document order
+     * @return the index of the first byte of the member's value
+     */
+    public int startAt(int i) {
+        checkIndex(i);
+        return starts[i];
+    }
+    
+    /**
+     * @param i the member index, in document order
+     * @return the index after the last byte of the member's value
+     */
+    public int endAt(int i) {
+        checkIndex(i);
+        return ends[i];
+    }
+    
+    
+    /**
+     * Scans a UTF-8 encoded JSON object, and records the location of its top-level members.
+     *
+     * @param json the JSON document bytes
+     * @return the index of top-level members
+     * @throws JsonSyntaxException if the document is not a structurally valid JSON object
+     */
+    public static JsonSectionIndex scan(byte[] json) {
+        return new Scanner(json, 0, json.length).scanObject();
+    }
+    
+    /**
+     * Scans a UTF-8 encoded JSON object within a range of the given array (such as the value of a member recorded by
+     * another index), and records the location of its members.
+     *
+     * @param json  the JSON document bytes
+     * @param start the index of the object's first byte
+     * @param end   the index after the object's last byte
+     * @return the index of the object's members
+     * @throws JsonSyntaxException if the range is not a structurally valid JSON object
+     */
+    public static JsonSectionIndex scan(byte[] json, int start, int end) {
+        if (start < 0 || end > json.length || start > end)
+            throw new IndexOutOfBoundsException("Invalid range.");
+        return new Scanner(json, start, end).scanObject();
+    }
+    
+    
+    /**
+     * Compares the raw bytes of a member's value between two documents.
+     *
+     * @param name       the member name
+     * @param json       the first document
+     * @param index      the index of the first document
+     * @param otherJson  the second document
+     * @param otherIndex the index of the second document
+     * @return true if the member is absent from both documents, or if its value is byte-for-byte identical
+     */
+    public static boolean memberEquals(String name, byte[] json, JsonSectionIndex index,
+                                       byte[] otherJson, JsonSectionIndex otherIndex) {
+        int i = index.indexOf(name), j = otherIndex.indexOf(name);
+        if (i == -1 || j == -1)
+            return i == j;
+        return Arrays.equals(json, index.starts[i], index.ends[i], otherJson, otherIndex.starts[j], otherIndex.ends[j]);
+    }
+    
+    
+    /**
+     * @param name the member name
+     * @return the index of the last member with the given name, or -1 if not present
+     */
+    int indexOf(String name) {
+        // Last occurrence takes precedence, matching Gson's handling of duplicate members
+        for (int i = size - 1; i >= 0; i--)
+            if (names[i].equals(name)) return i;
+        return -1;
+    }
+    
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Member index out of range.");
+    }
+    
+    private void add(String name, int start, int end) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        names[size] = name;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+    
+    
+    /** Byte-level scanner which skips over values */
+    private static class Scanner {
+        private final byte[] buf;
+        private final int limit;
+        private int pos;
+        
+        Scanner(byte[] buf, int start, int end) {
+            this.buf = buf;
+            this.pos = start;
+            this.limit = end;
+        }
+        
+        JsonSectionIndex scanObject() {
+            JsonSectionIndex index = new JsonSectionIndex();
+            skipBom();
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+            } else {
+                while (true) {
+                    expect('"');
+                    String name = readName();
+                    expect(':');
+                    skipWhitespace();
+                    int start = pos;
+                    skipValue();
+                    index.add(name, start, pos);
+                    byte b = next();
+                    if (b == '}') break;
+                    if (b != ',') throw error("Expected ',' or '}'");
+                }
+            }
+            skipWhitespace();
+            if (pos != limit)
+                throw error("Unexpected data after end of object");
+            return index;
+        }
+        
+        /** Skips a single value, leaving the position after its last byte */
+        private void skipValue() {
+            if (pos >= limit)
+                throw error("Unexpected end of document");
+            byte b = buf[pos];
+            if (b == '"') {
+                pos++;
+                skipString();
+            } else if (b == '{' || b == '[') {
+                skipContainer();
+            } else {
+                int start = pos;
+                while (pos < limit && !isDelimiter(buf[pos]))
+                    pos++;
+                if (pos == start)
+                    throw error("Expected value");
+            }
+        }
+        
+        /** Skips a nested object or array, validating the bracket structure */
+        private void skipContainer() {
+            byte[] stack = new byte[16];
+            int depth = 0;
+            do {
+                if (pos >= limit)
+                    throw error("Unexpected end of document");
+                byte b = buf[pos++];
+                if (b == '"') {
+                    skipString();
+                } else if (b == '{' || b == '[') {
+                    if (depth == stack.length)
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    stack[depth++] = (byte)(b == '{' ? '}' : ']');
+                } else if (b == '}' || b == ']') {
+                    if (stack[--depth] != b)
+                        throw error("Mismatched '" + (char)b + "'");
+                }
+            } while (depth > 0);
+        }
+        
+        /** Skips the remainder of a string, after the opening quote */
+        private void skipString() {
+            while (pos < limit) {
+                byte b = buf[pos++];
+                if (b == '"') return;
+                if (b == '\\') pos++; // Skip escaped char
+            }
+            throw error("Unterminated string");
+        }
+        
+        /** Reads a member name, after the opening quote */
+        private String readName() {
+            int start = pos;
+            boolean escaped = false;
+            while (pos < limit && buf[pos] != '"') {
+                if (buf[pos] == '\\') {
+                    escaped = true;
+                    pos++;
+                }
+                pos++;
+            }
+            if (pos >= limit)
+                throw error("Unterminated string");
+            int end = pos++;
+            if (escaped) // Uncommon, let Gson handle the escape sequences
+                return JsonParser.parseString(new String(buf, start - 1, end - start + 2, StandardCharsets.UTF_8))
+                        .getAsString();
+            return new String(buf, start, end - start, StandardCharsets.UTF_8);
+        }
+        
+        private void expect(char c) {
+            if (next() != c)
+                throw error("Expected '" + c + "'");
+        }
+        
+        /** Returns the next non-whitespace byte without consuming it */
+        private byte peek() {
+            skipWhitespace();
+            if (pos >= limit)
+                throw error("Unexpected end of document");
+            return buf[pos];
+        }
+        
+        /** Consumes and returns the next non-whitespace byte */
+        private byte next() {
+            byte b = peek();
+            pos++;
+            return b;
+        }
+        
+        private void skipWhitespace() {
+            while (pos < limit && isWhitespace(buf[pos]))
+                pos++;
+        }
+        
+        private void skipBom() {
+            if (limit - pos >= 3 && buf[pos] == (byte)0xEF && buf[pos + 1] == (byte)0xBB && buf[pos + 2] == (byte)0xBF)
+                pos += 3;
+        }
+        
+        private JsonSyntaxException error(String message) {
+            return new JsonSyntaxException(message + " at byte " + pos);
+        }
+        
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+        
+        private static boolean isDelimiter(byte b) {
+            return b == ',' || b == '}' || b == ']' || isWhitespace(b);
+        }
+    }
+    
+}
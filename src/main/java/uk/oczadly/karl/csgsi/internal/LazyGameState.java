@@ -0,0 +1,171 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import uk.oczadly.karl.csgsi.state.*;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A {@link GameState} which only deserializes each top-level section when it is first accessed.
+ *
+ * <p>When constructed, the document is only scanned to locate the byte offsets of each section (see
+ * {@link JsonSectionIndex}). Each section is then deserialized upon the first call to its getter method, and the
+ * result cached for subsequent calls. Accessor methods are thread-safe.</p>
+ *
+ * <p>As sections are only deserialized when accessed, an invalid section will cause a
+ * {@link com.google.gson.JsonParseException} to be thrown from its getter method.</p>
+ *
+ * <p>When serialized by Gson, the state is written through its getter methods (see {@link GameStateWriter}), and so
+ * every section is deserialized.</p>
+ */
+@JsonAdapter(GameStateWriter.class)
+public class LazyGameState extends GameState {
+    
+    private static final Type ALL_PLAYERS_TYPE = new TypeToken<Map<PlayerSteamID, PlayerState>>() {}.getType();
+    private static final Type AUTH_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+    
+    private final byte[] json;
+    private final JsonSectionIndex index;
+    
+    private final Section<ProviderState> provider = new Section<>("provider", ProviderState.class);
+    private final Section<MapState> map = new Section<>("map", MapState.class);
+    private final Section<PlayerState> player = new Section<>("player", PlayerState.class);
+    private final Section<RoundState> round = new Section<>("round", RoundState.class);
+    private final Section<GrenadeState> grenades = new Section<>("grenades", GrenadeState.class);
+    private final Section<Map<PlayerSteamID, PlayerState>> players = new Section<>("allplayers", ALL_PLAYERS_TYPE);
+    private final Section<BombState> bomb = new Section<>("bomb", BombState.class);
+    private final Section<PhaseCountdownState> phaseCountdowns =
+            new Section<>("phase_countdowns", PhaseCountdownState.class);
+    
+    
+    private LazyGameState(byte[] json, JsonSectionIndex index) {
+        this.json = json;
+        this.index = index;
+    }
+    
+    
+    /**
+     * Indexes the top-level sections of the given state document.
+     *
+     * @param json the UTF-8 encoded JSON state
+     * @return a lazily-deserialized game state
+     * @throws com.google.gson.JsonSyntaxException if the document is not a structurally valid JSON object
+     */
+    public static LazyGameState parse(byte[] json) {
+        return new LazyGameState(json, JsonSectionIndex.scan(json));
+    }
+    
+    /**
+     * Creates a lazily-deserialized game state using an existing index of its sections.
+     *
+     * @param json  the UTF-8 encoded JSON state
+     * @param index the index of the top-level sections of {@code json}
+     * @return a lazily-deserialized game state
+     */
+    public static LazyGameState parse(byte[] json, JsonSectionIndex index) {
+        return new LazyGameState(json, index);
+    }
+    
+    
+    /**
+     * Deserializes the authentication tokens sent by the game client.
+     *
+     * @return the authentication tokens, or an empty map if none were sent
+     */
+    public Map<String, String> readAuthTokens() {
+        Map<String, String> tokens = readSection("auth", AUTH_TYPE);
+        return tokens != null ? tokens : Collections.emptyMap();
+    }
+    
+    /**
+     * Compares the raw bytes of a top-level section against another state, without deserializing either section.
+     *
+     * @param name  the name of the section, eg. {@code "map"}
+     * @param other the state to compare against
+     * @return true if the section is absent from both states, or is byte-for-byte identical
+     */
+    public boolean sectionEquals(String name, LazyGameState other) {
+        return JsonSectionIndex.memberEquals(name, json, index, other.json, other.index);
+    }
+    
+    @Override
+    public Optional<ProviderState> getProvider() {
+        return Optional.ofNullable(provider.get());
+    }
+    
+    @Override
+    public Optional<MapState> getMap() {
+        return Optional.ofNullable(map.get());
+    }
+    
+    @Override
+    public Optional<PlayerState> getPlayer() {
+        return Optional.ofNullable(player.get());
+    }
+    
+    @Override
+    public Optional<RoundState> getRound() {
+        return Optional.ofNullable(round.get());
+    }
+    
+    @Override
+    public Optional<GrenadeState> getGrenades() {
+        return Optional.ofNullable(grenades.get());
+    }
+    
+    @Override
+    public Optional<Map<PlayerSteamID, PlayerState>> getAllPlayers() {
+        return Optional.ofNullable(players.get());
+    }
+    
+    @Override
+    public Optional<BombState> getBomb() {
+        return Optional.ofNullable(bomb.get());
+    }
+    
+    @Override
+    public Optional<PhaseCountdownState> getPhaseCountdowns() {
+        return Optional.ofNullable(phaseCountdowns.get());
+    }
+    
+    
+    /** Deserializes the value of a top-level member, or returns null if not present */
+    private <T> T readSection(String name, Type type) {
+        int start = index.getStart(name);
+        if (start == -1)
+            return null;
+        return Util.GSON.fromJson(new Utf8ByteReader(json, start, index.getEnd(name) - start), type);
+    }
+    
+    
+    /** A section which is deserialized and cached upon first access */
+    private class Section<T> {
+        private final String name;
+        private final Type type;
+        private volatile boolean loaded;
+        private T value;
+        
+        Section(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+        
+        T get() {
+            if (!loaded) {
+                synchronized (this) {
+                    if (!loaded) {
+                        value = readSection(name, type);
+                        loaded = true; // Volatile write publishes value
+                    }
+                }
+            }
+            return value;
+        }
+    }
+    
+}
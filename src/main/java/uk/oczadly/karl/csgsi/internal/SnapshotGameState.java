@@ -0,0 +1,230 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import uk.oczadly.karl.csgsi.state.*;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * A fully deserialized {@link GameState} which shares unchanged objects with the state received before it.
+ *
+ * <p>When parsing, the raw bytes of each top-level section, and of each player entry within {@code allplayers}, are
+ * hashed and compared against the hashes of the same section or player of the previous snapshot. Where the hashes
+ * match, the previously deserialized (immutable) object is reused rather than being parsed again. Consecutive states
+ * can therefore be compared by reference, for example {@code state.getMap().get() == previous.getMap().get()} is
+ * true when the map section has not changed.</p>
+ *
+ * <p>Only the 64-bit hashes are retained for comparison, not the payload itself. As with {@link StateFingerprint},
+ * the hashes are not cryptographic, so a deliberately crafted section could be mistaken for an unchanged one.</p>
+ *
+ * <p>The map returned by {@link #getAllPlayers()} is unmodifiable, as it may be shared between states. Only the
+ * previous snapshot is consulted, so a snapshot never references states older than itself.</p>
+ *
+ * <p>When serialized by Gson, the state is written through its getter methods (see {@link GameStateWriter}).</p>
+ */
+@JsonAdapter(GameStateWriter.class)
+public final class SnapshotGameState extends GameState {
+    
+    private static final Type AUTH_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+    
+    private static final int PROVIDER = 0, MAP = 1, PLAYER = 2, ROUND = 3, GRENADES = 4, BOMB = 5,
+            PHASE_COUNTDOWNS = 6, ALL_PLAYERS = 7;
+    
+    private final long[] sectionHashes = new long[8]; // Indexed by the section constants, zero if absent
+    private final String[] playerIds; // Null if allplayers is absent or null
+    private final long[] playerHashes; // Parallel to playerIds
+    private final PlayerState[] playerValues; // Parallel to playerIds
+    
+    private final ProviderState provider;
+    private final MapState map;
+    private final PlayerState player;
+    private final RoundState round;
+    private final GrenadeState grenades;
+    private final Map<PlayerSteamID, PlayerState> players;
+    private final BombState bomb;
+    private final PhaseCountdownState phaseCountdowns;
+    
+    
+    private SnapshotGameState(byte[] json, JsonSectionIndex index, SnapshotGameState prev) {
+        this.provider = readSection(json, index, PROVIDER, "provider", ProviderState.class, prev,
+                prev != null ? prev.provider : null);
+        this.map = readSection(json, index, MAP, "map", MapState.class, prev, prev != null ? prev.map : null);
+        this.player = readSection(json, index, PLAYER, "player", PlayerState.class, prev,
+                prev != null ? prev.player : null);
+        this.round = readSection(json, index, ROUND, "round", RoundState.class, prev,
+                prev != null ? prev.round : null);
+        this.grenades = readSection(json, index, GRENADES, "grenades", GrenadeState.class, prev,
+                prev != null ? prev.grenades : null);
+        this.bomb = readSection(json, index, BOMB, "bomb", BombState.class, prev, prev != null ? prev.bomb : null);
+        this.phaseCountdowns = readSection(json, index, PHASE_COUNTDOWNS, "phase_countdowns",
+                PhaseCountdownState.class, prev, prev != null ? prev.phaseCountdowns : null);
+        
+        // Players
+        int start = index.getStart("allplayers"), end = index.getEnd("allplayers");
+        if (start == -1 || isNull(json, start, end)) {
+            this.playerIds = null;
+            this.playerHashes = null;
+            this.playerValues = null;
+            this.players = null;
+        } else {
+            long hash = sectionHashes[ALL_PLAYERS] = hash(json, start, end);
+            if (prev != null && prev.playerIds != null && prev.sectionHashes[ALL_PLAYERS] == hash) {
+                this.playerIds = prev.playerIds;
+                this.playerHashes = prev.playerHashes;
+                this.playerValues = prev.playerValues;
+                this.players = prev.players;
+            } else {
+                JsonSectionIndex playersIndex = JsonSectionIndex.scan(json, start, end);
+                this.playerIds = new String[playersIndex.size()];
+                this.playerHashes = new long[playerIds.length];
+                this.playerValues = new PlayerState[playerIds.length];
+                Map<PlayerSteamID, PlayerState> players = new LinkedHashMap<>(playerIds.length * 2);
+                for (int i = 0; i < playerIds.length; i++) {
+                    playerIds[i] = playersIndex.nameAt(i);
+                    playerValues[i] = readPlayer(json, playersIndex, i, prev);
+                    players.put(parseSteamId(playerIds[i]), playerValues[i]);
+                }
+                this.players = Collections.unmodifiableMap(players);
+            }
+        }
+    }
+    
+    
+    /**
+     * Parses the given state, reusing any unchanged sections and players from the previous snapshot.
+     *
+     * @param json     the UTF-8 encoded JSON state
+     * @param previous the previously received state, or null
+     * @return the parsed state
+     * @throws com.google.gson.JsonParseException if the document or one of its sections is invalid
+     */
+    public static SnapshotGameState parse(byte[] json, SnapshotGameState previous) {
+        return new SnapshotGameState(json, JsonSectionIndex.scan(json), previous);
+    }
+    
+    /**
+     * Parses the given state using an existing index of its sections, reusing any unchanged sections and players
+     * from the previous snapshot.
+     *
+     * @param json     the UTF-8 encoded JSON state
+     * @param index    the index of the top-level sections of {@code json}
+     * @param previous the previously received state, or null
+     * @return the parsed state
+     * @throws com.google.gson.JsonParseException if one of the sections is invalid
+     */
+    public static SnapshotGameState parse(byte[] json, JsonSectionIndex index, SnapshotGameState previous) {
+        return new SnapshotGameState(json, index, previous);
+    }
+    
+    
+    /**
+     * Deserializes the authentication tokens sent by the game client. The tokens are not retained by any snapshot.
+     *
+     * @param json  the UTF-8 encoded JSON state
+     * @param index the index of the top-level sections of {@code json}
+     * @return the authentication tokens, or an empty map if none were sent
+     */
+    public static Map<String, String> readAuthTokens(byte[] json, JsonSectionIndex index) {
+        int start = index.getStart("auth");
+        Map<String, String> tokens = start != -1 ? Util.GSON.fromJson(
+                new Utf8ByteReader(json, start, index.getEnd("auth") - start), AUTH_TYPE) : null;
+        return tokens != null ? tokens : Collections.emptyMap();
+    }
+    
+    @Override
+    public Optional<ProviderState> getProvider() {
+        return Optional.ofNullable(provider);
+    }
+    
+    @Override
+    public Optional<MapState> getMap() {
+        return Optional.ofNullable(map);
+    }
+    
+    @Override
+    public Optional<PlayerState> getPlayer() {
+        return Optional.ofNullable(player);
+    }
+    
+    @Override
+    public Optional<RoundState> getRound() {
+        return Optional.ofNullable(round);
+    }
+    
+    @Override
+    public Optional<GrenadeState> getGrenades() {
+        return Optional.ofNullable(grenades);
+    }
+    
+    @Override
+    public Optional<Map<PlayerSteamID, PlayerState>> getAllPlayers() {
+        return Optional.ofNullable(players);
+    }
+    
+    @Override
+    public Optional<BombState> getBomb() {
+        return Optional.ofNullable(bomb);
+    }
+    
+    @Override
+    public Optional<PhaseCountdownState> getPhaseCountdowns() {
+        return Optional.ofNullable(phaseCountdowns);
+    }
+    
+    
+    /** Returns the previous value if the section is unchanged, otherwise deserializes the section */
+    private <T> T readSection(byte[] json, JsonSectionIndex index, int section, String name, Class<T> type,
+                              SnapshotGameState prev, T prevValue) {
+        int start = index.getStart(name);
+        if (start == -1)
+            return null;
+        int end = index.getEnd(name);
+        long hash = sectionHashes[section] = hash(json, start, end);
+        if (prevValue != null && prev.sectionHashes[section] == hash)
+            return prevValue;
+        return Util.GSON.fromJson(new Utf8ByteReader(json, start, end - start), type);
+    }
+    
+    /** Returns the previous player if the entry is unchanged, otherwise deserializes the player */
+    private PlayerState readPlayer(byte[] json, JsonSectionIndex playersIndex, int i, SnapshotGameState prev) {
+        int start = playersIndex.startAt(i), end = playersIndex.endAt(i);
+        long hash = playerHashes[i] = hash(json, start, end);
+        if (prev != null && prev.playerIds != null) {
+            int p = prev.indexOfPlayer(playerIds[i], i);
+            if (p != -1 && prev.playerValues[p] != null && prev.playerHashes[p] == hash)
+                return prev.playerValues[p];
+        }
+        return Util.GSON.fromJson(new Utf8ByteReader(json, start, end - start), PlayerState.class);
+    }
+    
+    /** Returns the index of the player with the given ID, checking the expected index first */
+    private int indexOfPlayer(String id, int expected) {
+        if (expected < playerIds.length && playerIds[expected].equals(id))
+            return expected;
+        for (int i = 0; i < playerIds.length; i++)
+            if (playerIds[i].equals(id)) return i;
+        return -1;
+    }
+    
+    private static long hash(byte[] json, int start, int end) {
+        return StateFingerprint.hash(0, json, start, end);
+    }
+    
+    private static PlayerSteamID parseSteamId(String id) {
+        try {
+            return PlayerSteamID.fromId64(id);
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException("Invalid player Steam ID \"" + id + "\".", e);
+        }
+    }
+    
+    private static boolean isNull(byte[] json, int start, int end) {
+        return end - start == 4 && json[start] == 'n' && json[start + 1] == 'u'
+                && json[start + 2] == 'l' && json[start + 3] == 'l';
+    }
+    
+}
@@ -0,0 +1,182 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Base class for the streaming adapters of the state model, which read objects directly from the {@link JsonReader}
+ * rather than through Gson's reflective adapter or the intermediate {@code JsonElement} tree.
+ *
+ * <p>Implementations are referenced through a class-level {@link com.google.gson.annotations.JsonAdapter} annotation,
+ * and resolve any nested adapters once through {@link #createReader(Gson)}. The read helpers match the lenient
+ * behaviour of Gson's built-in adapters, with {@code null} values leaving primitive fields at their default. Writing
+ * is delegated to Gson's reflective adapter, as it is not part of the deserialization hot path.</p>
+ *
+ * @param <T> the state class type
+ */
+public abstract class StateAdapterFactory<T> implements TypeAdapterFactory {
+    
+    private static final StringPool STRING_POOL = new StringPool(1024);
+    
+    private final Class<T> clazz;
+    
+    protected StateAdapterFactory(Class<T> clazz) {
+        this.clazz = clazz;
+    }
+    
+    
+    /**
+     * Creates the reader for the state class, resolving any required nested adapters from the given {@link Gson}.
+     *
+     * @param gson the Gson instance
+     * @return the reader
+     */
+    protected abstract ObjectReader<T> createReader(Gson gson);
+    
+    @Override
+    public final <A> TypeAdapter<A> create(Gson gson, TypeToken<A> type) {
+        if (type.getRawType() != clazz)
+            return null;
+        @SuppressWarnings("unchecked")
+        TypeAdapter<A> adapter = (TypeAdapter<A>)new Adapter(gson, createReader(gson));
+        return adapter;
+    }
+    
+    
+    /**
+     * Reads a value into a primitive {@code int} field.
+     *
+     * @param in      the reader
+     * @param current the current field value, returned if the JSON value is null
+     * @return the read value
+     * @throws IOException if the value cannot be read
+     */
+    public static int nextInt(JsonReader in, int current) throws IOException {
+        return skipNull(in) ? current : in.nextInt();
+    }
+    
+    /** @see #nextInt(JsonReader, int) */
+    public static short nextShort(JsonReader in, short current) throws IOException {
+        return skipNull(in) ? current : (short)in.nextInt();
+    }
+    
+    /** @see #nextInt(JsonReader, int) */
+    public static long nextLong(JsonReader in, long current) throws IOException {
+        return skipNull(in) ? current : in.nextLong();
+    }
+    
+    /** @see #nextInt(JsonReader, int) */
+    public static boolean nextBoolean(JsonReader in, boolean current) throws IOException {
+        if (skipNull(in))
+            return current;
+        if (in.peek() == JsonToken.STRING)
+            return Boolean.parseBoolean(in.nextString());
+        return in.nextBoolean();
+    }
+    
+    /**
+     * Reads a nullable {@link Byte} value.
+     *
+     * @param in the reader
+     * @return the read value, or null
+     * @throws IOException if the value cannot be read
+     */
+    public static Byte nextByte(JsonReader in) throws IOException {
+        return skipNull(in) ? null : (byte)in.nextInt();
+    }
+    
+    /** @see #nextByte(JsonReader) */
+    public static Integer nextInteger(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextInt();
+    }
+    
+    /** @see #nextByte(JsonReader) */
+    public static Double nextDouble(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextDouble();
+    }
+    
+    /** @see #nextByte(JsonReader) */
+    public static String nextString(JsonReader in) throws IOException {
+        if (skipNull(in))
+            return null;
+        if (in.peek() == JsonToken.BOOLEAN)
+            return Boolean.toString(in.nextBoolean());
+        return in.nextString();
+    }
+    
+    /**
+     * Reads a nullable {@link String} value, returning the same instance as a previously read equal string where
+     * possible. This should be used for values which are unlikely to change between state updates, such as names.
+     *
+     * @param in the reader
+     * @return the read value, or null
+     * @throws IOException if the value cannot be read
+     * @see StringPool
+     */
+    public static String nextPooledString(JsonReader in) throws IOException {
+        return STRING_POOL.intern(nextString(in));
+    }
+    
+    /** Consumes the next value if it is null, returning true if it was consumed */
+    private static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+    
+    
+    /**
+     * Reads a single state object from the stream.
+     *
+     * @param <T> the state class type
+     */
+    @FunctionalInterface
+    protected interface ObjectReader<T> {
+        /**
+         * Reads the (non-null) object at the current position of the stream.
+         *
+         * @param in the reader
+         * @return the read object
+         * @throws IOException if the object cannot be read
+         */
+        T read(JsonReader in) throws IOException;
+    }
+    
+    
+    private class Adapter extends TypeAdapter<T> {
+        private final Gson gson;
+        private final ObjectReader<T> reader;
+        private volatile TypeAdapter<T> writeDelegate;
+        
+        Adapter(Gson gson, ObjectReader<T> reader) {
+            this.gson = gson;
+            this.reader = reader;
+        }
+        
+        
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (skipNull(in))
+                return null;
+            return reader.read(in);
+        }
+        
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            TypeAdapter<T> delegate = writeDelegate;
+            if (delegate == null)
+                writeDelegate = delegate = gson.getDelegateAdapter(StateAdapterFactory.this, TypeToken.get(clazz));
+            delegate.write(out, value);
+        }
+    }
+    
+}
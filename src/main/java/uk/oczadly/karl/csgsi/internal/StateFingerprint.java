@@ -0,0 +1,70 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Computes a 64-bit fingerprint of a raw state payload, for detecting repeated states such as those re-sent by the
+ * game client at each heartbeat interval while idle.
+ *
+ * <p>The value of the {@code provider.timestamp} member changes with every state sent by the client, and so is
+ * excluded from the fingerprint; all other bytes (including whitespace and member order) are included. The payload is
+ * hashed eight bytes at a time, and no objects are allocated other than a small index of the provider section.</p>
+ *
+ * <p>This is not a cryptographic hash. The chance of two different states sharing a fingerprint is negligible for
+ * accidental changes, but the fingerprint should not be relied upon where states may be crafted.</p>
+ */
+public final class StateFingerprint {
+    
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long M1 = 0x9E3779B97F4A7C15L, M2 = 0xBF58476D1CE4E5B9L, M3 = 0x94D049BB133111EBL;
+    
+    
+    private StateFingerprint() {}
+    
+    
+    /**
+     * Computes the fingerprint of a state payload, excluding the {@code provider.timestamp} value.
+     *
+     * @param json  the UTF-8 encoded JSON state
+     * @param index the index of the top-level sections of the state
+     * @param seed  an initial value, such as a hash of the request path
+     * @return the fingerprint
+     */
+    public static long compute(byte[] json, JsonSectionIndex index, long seed) {
+        int start = index.getStart("provider");
+        if (start != -1 && json[start] == '{') {
+            JsonSectionIndex provider = JsonSectionIndex.scan(json, start, index.getEnd("provider"));
+            int tsStart = provider.getStart("timestamp");
+            if (tsStart != -1) {
+                long h = hash(seed, json, 0, tsStart);
+                return finish(hash(h, json, provider.getEnd("timestamp"), json.length));
+            }
+        }
+        return finish(hash(seed, json, 0, json.length));
+    }
+    
+    
+    /** Mixes the bytes within the range [from, to) into the hash, including the length of the range */
+    static long hash(long h, byte[] b, int from, int to) {
+        int i = from;
+        for (; i <= to - Long.BYTES; i += Long.BYTES)
+            h = mix(h, (long)LONGS.get(b, i));
+        long tail = 0;
+        for (int shift = 0; i < to; i++, shift += 8)
+            tail |= (b[i] & 0xFFL) << shift;
+        return mix(mix(h, tail), to - from);
+    }
+    
+    private static long mix(long h, long word) {
+        return Long.rotateLeft(h ^ (word * M1), 31) * M2;
+    }
+    
+    private static long finish(long h) {
+        h = (h ^ (h >>> 30)) * M2;
+        h = (h ^ (h >>> 27)) * M3;
+        return h ^ (h >>> 31);
+    }
+    
+}
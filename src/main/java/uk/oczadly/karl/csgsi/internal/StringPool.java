@@ -0,0 +1,51 @@
+package uk.oczadly.karl.csgsi.internal;
+
+/**
+ * A bounded, lossy pool of canonical {@link String} instances, used to deduplicate values which rarely change between
+ * state updates (such as player names and map names).
+ *
+ * <p>The pool is a direct-mapped table: each string hashes to a single slot, and a colliding string replaces the
+ * previous occupant. Memory use is therefore fixed regardless of the values received. Returning the previous instance
+ * allows the newly read string to be collected while still young, rather than each retained state holding its own
+ * copy in the old generation.</p>
+ *
+ * <p>This class is thread-safe. Concurrent updates to a slot may overwrite each other, which only results in a missed
+ * deduplication.</p>
+ */
+public final class StringPool {
+    
+    private final String[] table;
+    private final int mask;
+    
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    public StringPool(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30))
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30.");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+    }
+    
+    
+    /**
+     * Returns the pooled instance equal to the given string, or adds the given string to the pool.
+     *
+     * @param str the string, or null
+     * @return an equal string instance, or null if {@code str} is null
+     */
+    public String intern(String str) {
+        if (str == null)
+            return null;
+        int h = str.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        String pooled = table[slot]; // Strings are immutable, so are safely published through a racy read
+        if (pooled != null && pooled.hashCode() == h && pooled.equals(str))
+            return pooled;
+        table[slot] = str;
+        return str;
+    }
+    
+}
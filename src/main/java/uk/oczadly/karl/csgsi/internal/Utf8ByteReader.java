@@ -0,0 +1,160 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Reader} which decodes UTF-8 directly from a byte array, for passing raw request bodies to Gson's
+ * {@link com.google.gson.stream.JsonReader}.
+ *
+ * <p>Unlike an {@link java.io.InputStreamReader}, no intermediate buffers or {@link java.nio.charset.CharsetDecoder}
+ * are used. ASCII bytes (which make up the majority of a state payload) are widened straight into the destination
+ * buffer, and only multi-byte sequences, such as those within player names and clan tags, are decoded. Malformed
+ * sequences are substituted with the replacement character {@code U+FFFD}.</p>
+ *
+ * <p>This class is not thread-safe, and the underlying array must not be modified while reading.</p>
+ */
+public final class Utf8ByteReader extends Reader {
+    
+    private static final char REPLACEMENT = '\uFFFD';
+    
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+    private char pendingLowSurrogate; // Zero if none
+    
+    /**
+     * @param buf the UTF-8 encoded data
+     */
+    public Utf8ByteReader(byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+    
+    /**
+     * @param buf    the UTF-8 encoded data
+     * @param offset the offset of the first byte to read
+     * @param length the number of bytes to read
+     */
+    public Utf8ByteReader(byte[] buf, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buf.length)
+            throw new IndexOutOfBoundsException("Invalid offset or length.");
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+    
+    
+    /**
+     * Creates a reader over the remaining bytes of a buffer, without copying if the buffer is backed by an array. The
+     * position of the buffer is not modified.
+     *
+     * @param buffer the UTF-8 encoded data
+     * @return a reader for the buffer contents
+     */
+    public static Utf8ByteReader of(ByteBuffer buffer) {
+        if (buffer.hasArray())
+            return new Utf8ByteReader(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new Utf8ByteReader(bytes);
+    }
+    
+    
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (off < 0 || len < 0 || off + len > cbuf.length)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+        int n = 0;
+        if (pendingLowSurrogate != 0) {
+            cbuf[off + n++] = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+        } else if (pos >= end) {
+            return -1;
+        }
+        while (n < len && pos < end) {
+            byte b = buf[pos];
+            if (b >= 0) {
+                cbuf[off + n++] = (char)b; // ASCII
+                pos++;
+                continue;
+            }
+            int cp = decodeMultiByte();
+            if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                cbuf[off + n++] = (char)cp;
+            } else {
+                cbuf[off + n++] = Character.highSurrogate(cp);
+                char low = Character.lowSurrogate(cp);
+                if (n < len) {
+                    cbuf[off + n++] = low;
+                } else {
+                    pendingLowSurrogate = low; // Returned by the next read
+                }
+            }
+        }
+        return n;
+    }
+    
+    @Override
+    public int read() {
+        if (pendingLowSurrogate != 0) {
+            char c = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+            return c;
+        }
+        if (pos >= end)
+            return -1;
+        byte b = buf[pos];
+        if (b >= 0) {
+            pos++;
+            return b;
+        }
+        int cp = decodeMultiByte();
+        if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT)
+            return cp;
+        pendingLowSurrogate = Character.lowSurrogate(cp);
+        return Character.highSurrogate(cp);
+    }
+    
+    @Override
+    public boolean ready() {
+        return pendingLowSurrogate != 0 || pos < end;
+    }
+    
+    @Override
+    public void close() {}
+    
+    
+    /**
+     * Decodes the multi-byte sequence at the current position, advancing past it. If the sequence is malformed, the
+     * lead byte and any valid continuation bytes are consumed and the replacement character is returned.
+     */
+    private int decodeMultiByte() {
+        int b0 = buf[pos] & 0xFF;
+        int length, cp, min;
+        if ((b0 & 0xE0) == 0xC0) {
+            length = 2; cp = b0 & 0x1F; min = 0x80;
+        } else if ((b0 & 0xF0) == 0xE0) {
+            length = 3; cp = b0 & 0x0F; min = 0x800;
+        } else if ((b0 & 0xF8) == 0xF0) {
+            length = 4; cp = b0 & 0x07; min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+        } else {
+            pos++; // Unexpected continuation byte, or invalid lead byte
+            return REPLACEMENT;
+        }
+        int i = 1;
+        for (; i < length && pos + i < end; i++) {
+            int b = buf[pos + i];
+            if ((b & 0xC0) != 0x80)
+                break;
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        pos += i;
+        if (i < length || cp < min || cp > Character.MAX_CODE_POINT
+                || (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE))
+            return REPLACEMENT; // Truncated, overlong or out of range
+        return cp;
+    }
+    
+}
@@ -0,0 +1,59 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides access to virtual threads (JDK 21+) through reflection, as the library is compiled against an older release.
+ * On runtimes without virtual thread support, platform threads are used instead.
+ */
+public class VirtualThreads {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+    
+    private static final Method NEW_EXECUTOR_METHOD = findExecutorMethod();
+    
+    
+    private VirtualThreads() {}
+    
+    
+    /**
+     * @return true if the current runtime supports virtual threads
+     */
+    public static boolean isSupported() {
+        return NEW_EXECUTOR_METHOD != null;
+    }
+    
+    /**
+     * Creates an executor which starts a new virtual thread for each task. If virtual threads are not supported by the
+     * current runtime, a cached platform thread pool will be returned instead.
+     *
+     * @return a new executor service
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        if (NEW_EXECUTOR_METHOD != null) {
+            try {
+                return (ExecutorService)NEW_EXECUTOR_METHOD.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn("Failed to create virtual thread executor, falling back to platform threads", e);
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+    
+    
+    private static Method findExecutorMethod() {
+        if (Runtime.version().major() < 21)
+            return null; // Unsupported, or only available as a preview feature
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+}
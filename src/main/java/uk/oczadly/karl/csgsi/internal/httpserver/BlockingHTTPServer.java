@@ -0,0 +1,131 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.oczadly.karl.csgsi.internal.VirtualThreads;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An {@link HTTPServer} backed by a blocking {@link ServerSocket}. Connections are accepted and handled sequentially
+ * from a single thread, unless persistent connections are enabled, in which case each connection is handled on its own
+ * thread (as an idle connection would otherwise prevent others from being accepted).
+ *
+ * <p>If virtual threads are enabled in the {@link HTTPServerConfig}, each connection is always handled on its own
+ * virtual thread.</p>
+ */
+public class BlockingHTTPServer extends HTTPServer {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlockingHTTPServer.class);
+    
+    private volatile Thread thread;
+    private volatile ServerSocket socket;
+    private volatile ExecutorService connectionExecutor;
+    private final Set<Socket> openConnections = ConcurrentHashMap.newKeySet();
+    
+    
+    /**
+     * @param port     the port number to listen on
+     * @param bindAddr the local address to bind to, or null for all interfaces
+     * @param handler  the handling class to receive HTTP requests
+     */
+    public BlockingHTTPServer(int port, InetAddress bindAddr, HTTPRequestHandler handler) {
+        this(port, bindAddr, handler, new HTTPServerConfig());
+    }
+    
+    /**
+     * @param port     the port number to listen on
+     * @param bindAddr the local address to bind to, or null for all interfaces
+     * @param handler  the handling class to receive HTTP requests
+     * @param config   the server configuration
+     */
+    public BlockingHTTPServer(int port, InetAddress bindAddr, HTTPRequestHandler handler, HTTPServerConfig config) {
+        super(port, bindAddr, handler, config);
+    }
+    
+    
+    @Override
+    public boolean isRunning() {
+        return thread != null && thread.isAlive();
+    }
+    
+    @Override
+    public void start() throws IOException {
+        if (isRunning())
+            throw new IllegalStateException("Server is already running.");
+        
+        LOGGER.info("Starting HTTP server on port {}...", getPort());
+        socket = new ServerSocket(getPort(), 50, getBindAddress());
+        if (getConfig().isVirtualThreads()) {
+            connectionExecutor = VirtualThreads.newThreadPerTaskExecutor();
+        } else if (getConfig().isKeepAliveEnabled()) {
+            connectionExecutor = Executors.newCachedThreadPool();
+        } else {
+            connectionExecutor = null;
+        }
+        thread = new Thread(new ConnectionAcceptorTask());
+        thread.start();
+    }
+    
+    @Override
+    public void stop() {
+        if (!isRunning())
+            throw new IllegalStateException("Server is not currently running.");
+        
+        LOGGER.info("Stopping HTTP server on port {}...", getPort());
+        
+        thread.interrupt();
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+        if (connectionExecutor != null) {
+            connectionExecutor.shutdown();
+            // Close idle persistent (or in-progress) connections
+            for (Socket conn : openConnections) {
+                try {
+                    conn.close();
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+    
+    
+    /** Accepts new client connections and handles them */
+    private class ConnectionAcceptorTask implements Runnable {
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    LOGGER.debug("Awaiting HTTP connection...");
+                    Socket conn = socket.accept();
+                    LOGGER.debug("Incoming HTTP request from {} on server port {}...",
+                            conn.getInetAddress(), getPort());
+                    getStats().connections.incrementAndGet();
+                    if (connectionExecutor != null) {
+                        openConnections.add(conn);
+                        connectionExecutor.execute(() -> {
+                            try {
+                                new HTTPConnection(conn, BlockingHTTPServer.this).run();
+                            } finally {
+                                openConnections.remove(conn);
+                            }
+                        });
+                    } else {
+                        new HTTPConnection(conn, BlockingHTTPServer.this).run();
+                        LOGGER.debug("HTTP exchange finished.");
+                    }
+                } catch (Exception e) {
+                    LOGGER.error("Exception occured while handling HTTP connection", e);
+                }
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,50 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds counters on the connections and requests handled by an {@link HTTPServer}.
+ */
+public class ConnectionStats {
+    
+    final AtomicLong connections = new AtomicLong(), requests = new AtomicLong(), reusedRequests = new AtomicLong();
+    
+    
+    /**
+     * @return the total number of connections accepted
+     */
+    public long getConnections() {
+        return connections.get();
+    }
+    
+    /**
+     * @return the total number of requests handled
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+    
+    /**
+     * @return the number of requests which were received on a previously used (kept-alive) connection
+     */
+    public long getReusedRequests() {
+        return reusedRequests.get();
+    }
+    
+    /** Records a handled request, where {@code index} is the zero-based request number on the connection */
+    void recordRequest(int index) {
+        requests.incrementAndGet();
+        if (index > 0)
+            reusedRequests.incrementAndGet();
+    }
+    
+    /**
+     * Resets all the counters to zero.
+     */
+    public void reset() {
+        connections.set(0);
+        requests.set(0);
+        reusedRequests.set(0);
+    }
+    
+}
@@ -4,14 +4,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.InetAddress;
 import java.net.Socket;
-import java.net.URLDecoder;
+import java.net.SocketTimeoutException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Manages an active HTTP connection, parsing the request data, calling the handler and writing the response data.
@@ -21,65 +20,86 @@ class HTTPConnection implements Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(HTTPConnection.class);
     
     private static final Charset CHARSET = StandardCharsets.UTF_8;
-    private static final Pattern HEADER_REGEX = Pattern.compile("^([\\w-]+)\\s*:\\s*(.+)$");
-    private static final Pattern START_REGEX = Pattern.compile("^(\\w+) (.+) (HTTP/[0-9.]+)$");
+    static final HTTPResponse RESPONSE_TOO_LARGE = new HTTPResponse(413);
+    static final int MAX_LINE_LENGTH = 8192;
     
     private final Socket socket;
-    private final HTTPRequestHandler handler;
+    private final HTTPServer server;
     
-    public HTTPConnection(Socket socket, HTTPRequestHandler handler) {
+    public HTTPConnection(Socket socket, HTTPServer server) {
         this.socket = socket;
-        this.handler = handler;
+        this.server = server;
     }
     
     
     @Override
     public void run() {
+        HTTPServerConfig config = server.getConfig();
+        HTTPRequestReader reader = null;
         try {
-            InputStream is = socket.getInputStream();
+            reader = new HTTPRequestReader(socket.getInputStream());
             OutputStream os = socket.getOutputStream();
+            if (config.isKeepAliveEnabled())
+                socket.setSoTimeout(config.getKeepAliveTimeout());
             
-            // Read start-line header
-            String startLine = readLine(is);
-            if (startLine == null) {
-                LOGGER.warn("Socket InputStream returned null data.");
-                return;
+            for (int reqIndex = 0; ; reqIndex++) {
+                // Read start-line header
+                CharSequence startLine;
+                try {
+                    startLine = reader.readLine(MAX_LINE_LENGTH);
+                } catch (SocketTimeoutException e) {
+                    LOGGER.debug("Persistent connection timed out after {} requests.", reqIndex);
+                    return;
+                }
+                if (startLine == null) {
+                    if (reqIndex == 0)
+                        LOGGER.warn("Socket InputStream returned null data.");
+                    return;
+                }
+                String[] start = HTTPRequestParser.parseStartLine(startLine);
+                if (start == null) {
+                    LOGGER.warn("Invalid HTTP start-line header \"{}\"!", startLine);
+                    return;
+                }
+                String reqMethod = start[0], reqPath = start[1], reqVersion = start[2];
+                
+                // Read headers and body
+                Map<String, String> headers = parseHeaders(reader);
+                LOGGER.debug("Parsed {} headers from request.", headers.size());
+                byte[] body = null;
+                String contentLength = headers.get(HTTPRequestParser.HEADER_CONTENT_LENGTH);
+                if (contentLength != null) {
+                    int length = HTTPRequestParser.parseContentLength(contentLength);
+                    if (length == -1) {
+                        LOGGER.warn("Invalid content-length header \"{}\"!", contentLength);
+                        return;
+                    }
+                    if (length > config.getMaxBodySize()) {
+                        LOGGER.warn("Rejecting request body of {} bytes (exceeds maximum of {})!",
+                                length, config.getMaxBodySize());
+                        writeResponse(RESPONSE_TOO_LARGE, os, config, false);
+                        os.flush();
+                        return;
+                    }
+                    body = readBody(reader, length);
+                    if (body == null) return; // Stream ended
+                }
+                
+                // Handle response
+                HTTPResponse res = handleRequest(server.getHandler(), socket.getInetAddress(),
+                        reqPath, reqMethod, headers, body);
+                server.getStats().recordRequest(reqIndex);
+                
+                // Return header & body data
+                boolean keepAlive = isKeepAlive(config, reqIndex, reqVersion, headers);
+                writeResponse(res, os, config, keepAlive);
+                os.flush();
+                if (!keepAlive) return;
             }
-            Matcher startMatcher = START_REGEX.matcher(startLine);
-            if (!startMatcher.matches()) {
-                LOGGER.warn("Invalid HTTP start-line header \"{}\"!", startLine);
-                return;
-            }
-            String reqMethod = startMatcher.group(1).toUpperCase();
-            String reqPath = URLDecoder.decode(startMatcher.group(2), CHARSET.name());
-            
-            // Read headers and body
-            Map<String, String> headers = parseHeaders(is);
-            LOGGER.debug("Parsed {} headers from request.", headers.size());
-            String body = null;
-            if (headers.containsKey("content-length")) {
-                body = readBody(socket.getInputStream(), Integer.parseInt(headers.get("content-length")));
-            }
-            
-            // Handle response
-            HTTPResponse res;
-            try {
-                res = handler.handle(socket.getInetAddress(), reqPath, reqMethod, headers, body);
-            } catch (Exception e) {
-                LOGGER.error("Handler threw uncaught exception.", e);
-                res = new HTTPResponse(500);
-            }
-
-            // Return header & body data
-            LOGGER.debug("Writing response data, status code: {}, body len: {}...",
-                    res.getStatusCode(), res.getBody() != null ? res.getBody().length() : 0);
-            writeResponse(res, socket.getOutputStream());
-
-            // Close socket
-            os.flush();
         } catch (Exception e) {
             LOGGER.error("Failed to handle HTTP connection.", e);
         } finally {
+            if (reader != null) reader.release();
             //Close socket
             try {
                 if (!socket.isClosed()) socket.close();
@@ -88,59 +108,84 @@ class HTTPConnection implements Runnable {
     }
     
     
+    /**
+     * Determines whether the connection should be kept open after responding to a request.
+     *
+     * @param config   the server configuration
+     * @param reqIndex the zero-based index of the request on this connection
+     * @param version  the HTTP version of the request
+     * @param headers  the request headers
+     * @return true if the connection should persist
+     */
+    static boolean isKeepAlive(HTTPServerConfig config, int reqIndex, String version, Map<String, String> headers) {
+        if (!config.isKeepAliveEnabled())
+            return false;
+        if (config.getMaxKeepAliveRequests() > 0 && reqIndex + 1 >= config.getMaxKeepAliveRequests())
+            return false;
+        String connection = headers.get(HTTPRequestParser.HEADER_CONNECTION);
+        if (connection != null)
+            return connection.trim().equalsIgnoreCase("keep-alive");
+        return version.equals("HTTP/1.1"); // Persistent by default from HTTP/1.1
+    }
+    
+    /** Pass the request to the handler, returning a 500 error response if an exception is thrown */
+    static HTTPResponse handleRequest(HTTPRequestHandler handler, InetAddress address, String path, String method,
+                                      Map<String, String> headers, byte[] body) {
+        try {
+            return handler.handle(address, path, method, headers, body);
+        } catch (Exception e) {
+            LOGGER.error("Handler threw uncaught exception.", e);
+            return new HTTPResponse(500);
+        }
+    }
+    
+    
     /** Parse a set of headers into a map */
-    private static Map<String, String> parseHeaders(InputStream is) throws IOException {
+    private static Map<String, String> parseHeaders(HTTPRequestReader reader) throws IOException {
         Map<String, String> headers = new HashMap<>();
-        String s;
-        while ((s = readLine(is)) != null) {
-            if (s.equals("")) break; // End of headers
-            
-            Matcher matcher = HEADER_REGEX.matcher(s);
-            if (matcher.matches()) {
-                headers.put(matcher.group(1).toLowerCase(), matcher.group(2));
-            }
+        CharSequence s;
+        while ((s = reader.readLine(MAX_LINE_LENGTH)) != null) {
+            if (s.length() == 0) break; // End of headers
+            if (!HTTPRequestParser.parseHeader(s, headers))
+                LOGGER.debug("Ignoring malformed header line \"{}\".", s);
         }
         return headers;
     }
     
-    /** Read the body as a string */
-    private static String readBody(InputStream is, int length) throws IOException {
-        byte[] buffer = new byte[length];
-        int readLen = is.read(buffer, 0, length);
-        if (readLen == -1) {
-            LOGGER.debug("Read 0 bytes as stream has ended.");
-            return null;
-        }
-        return new String(buffer, 0, readLen, CHARSET);
+    /** Read the full body (which must be read entirely to keep persistent connections in sync) */
+    private static byte[] readBody(HTTPRequestReader reader, int length) throws IOException {
+        byte[] body = reader.readBytes(length);
+        if (body == null)
+            LOGGER.debug("Stream ended before {} bytes of body were read.", length);
+        return body;
     }
     
     /** Write response message and server information */
-    private static void writeResponse(HTTPResponse res, OutputStream os) throws IOException {
+    static void writeResponse(HTTPResponse res, OutputStream os, HTTPServerConfig config, boolean keepAlive)
+            throws IOException {
+        LOGGER.debug("Writing response data, status code: {}, body len: {}...",
+                res.getStatusCode(), res.getBody() != null ? res.getBody().length() : 0);
         writeString(os, "HTTP/1.1 " + res.getStatusCode());
         if (res.getStatusCode() >= 200 && res.getStatusCode() < 300) {
             writeString(os, " OK\r\n"); // 200 series
         } else {
             writeString(os, " Error\r\n"); // non-200 series
         }
+        if (keepAlive) {
+            writeString(os, "Connection: keep-alive\r\n");
+            writeString(os, "Keep-Alive: timeout=" + Math.max(1, config.getKeepAliveTimeout() / 1000) + "\r\n");
+        } else {
+            writeString(os, "Connection: close\r\n");
+        }
         if (res.getBody() != null) {
             byte[] body = res.getBody().getBytes(CHARSET);
-            writeString(os, "Connection: close\r\n");
             writeString(os, "Content-length: " + body.length + "\r\n");
             String contentType = res.getContentType() != null ? res.getContentType() : "text/plain";
             writeString(os, "Content-type: " + contentType + "; charset=" + CHARSET.name() + "\r\n\r\n");
             os.write(body);
+        } else {
+            writeString(os, "Content-length: 0\r\n\r\n");
         }
-        os.close();
-    }
-    
-    /** Read a line without buffering/reading further */
-    private static String readLine(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        int c;
-        for (c = inputStream.read(); c != '\n' && c != -1; c = inputStream.read())
-            if (c != '\r') bos.write(c);
-        if (c == -1 && bos.size() == 0) return null;
-        return new String(bos.toByteArray(), 0, bos.size(), CHARSET);
     }
     
     /** Write a string in the correct char encoding */
@@ -16,8 +16,8 @@ public interface HTTPRequestHandler {
      * @param path    the requested URL path
      * @param method  the HTTP request method (eg. POST, GET)
      * @param headers a map of headers
-     * @param body    the payload body contents
+     * @param body    the raw payload body bytes, or null if the request has no body
      */
-    HTTPResponse handle(InetAddress address, String path, String method, Map<String, String> headers, String body);
+    HTTPResponse handle(InetAddress address, String path, String method, Map<String, String> headers, byte[] body);
     
 }
@@ -0,0 +1,223 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Parses HTTP request start-lines and header lines.
+ *
+ * <p>Only the headers which are used by the server and request handler (see {@link #KNOWN_HEADERS}) are retained,
+ * with all other headers being skipped. Header names are matched case-insensitively against the known names without
+ * allocating, and are stored in the map using their lower-case name.</p>
+ */
+class HTTPRequestParser {
+    
+    static final String HEADER_CONTENT_TYPE = "content-type";
+    static final String HEADER_CONTENT_LENGTH = "content-length";
+    static final String HEADER_CONNECTION = "connection";
+    
+    /** Lower-case names of the headers retained by {@link #parseHeader(CharSequence, Map)} */
+    static final String[] KNOWN_HEADERS = { HEADER_CONTENT_TYPE, HEADER_CONTENT_LENGTH, HEADER_CONNECTION };
+    
+    private static final String VERSION_PREFIX = "HTTP/";
+    
+    
+    private HTTPRequestParser() {}
+    
+    
+    /**
+     * Parses the HTTP start-line, in the format {@code METHOD target HTTP/version}. The request target may contain
+     * spaces, as the version is always taken from the final space-separated token.
+     *
+     * @param line the start-line, excluding the line terminator
+     * @return an array of the request method (upper-case), decoded path and HTTP version, or null if the line is
+     *         invalid
+     */
+    static String[] parseStartLine(CharSequence line) {
+        int len = line.length();
+        
+        // Method
+        int methodEnd = 0;
+        while (methodEnd < len && isWordChar(line.charAt(methodEnd)))
+            methodEnd++;
+        if (methodEnd == 0 || methodEnd == len || line.charAt(methodEnd) != ' ')
+            return null;
+        
+        // Version
+        int versionStart = len;
+        while (versionStart > methodEnd + 1 && line.charAt(versionStart - 1) != ' ')
+            versionStart--;
+        if (versionStart <= methodEnd + 1 || !isVersion(line, versionStart, len))
+            return null;
+        
+        // Target (between the method and version)
+        int pathStart = methodEnd + 1, pathEnd = versionStart - 1;
+        if (pathEnd <= pathStart)
+            return null;
+        String path = decodePath(line, pathStart, pathEnd);
+        if (path == null)
+            return null;
+        
+        return new String[] {
+                toUpperCase(line, 0, methodEnd),
+                path,
+                line.subSequence(versionStart, len).toString() };
+    }
+    
+    /**
+     * Parses a single header line, and adds it to the map if valid and one of the {@link #KNOWN_HEADERS}. The header
+     * name is stored in lower-case, and the value is trimmed of surrounding whitespace.
+     *
+     * @param line    the header line, excluding the line terminator
+     * @param headers the map to add the header to
+     * @return false if the line is malformed, or true if it was valid (regardless of whether it was retained)
+     */
+    static boolean parseHeader(CharSequence line, Map<String, String> headers) {
+        int len = line.length();
+        
+        // Name
+        int nameEnd = 0;
+        while (nameEnd < len && isHeaderNameChar(line.charAt(nameEnd)))
+            nameEnd++;
+        if (nameEnd == 0)
+            return false;
+        
+        // Optional whitespace, then colon
+        int i = skipWhitespace(line, nameEnd, len);
+        if (i == len || line.charAt(i) != ':')
+            return false;
+        
+        String name = findKnownHeader(line, nameEnd);
+        if (name == null)
+            return true; // Valid, but not needed
+        
+        // Value
+        int valueStart = skipWhitespace(line, i + 1, len), valueEnd = len;
+        while (valueEnd > valueStart && isWhitespace(line.charAt(valueEnd - 1)))
+            valueEnd--;
+        if (valueStart == valueEnd)
+            return false;
+        headers.put(name, line.subSequence(valueStart, valueEnd).toString());
+        return true;
+    }
+    
+    /**
+     * Parses the value of a content-length header.
+     *
+     * @param value the header value
+     * @return the length, or -1 if the value is not a valid non-negative integer
+     */
+    static int parseContentLength(String value) {
+        int len = value.length();
+        if (len == 0 || len > 10)
+            return -1;
+        long length = 0;
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            length = length * 10 + (c - '0');
+        }
+        return length <= Integer.MAX_VALUE ? (int)length : -1;
+    }
+    
+    /**
+     * Decodes a line of bytes into the given builder, without creating an intermediate String for ASCII data.
+     *
+     * @param buf   the byte array
+     * @param start the start index (inclusive)
+     * @param end   the end index (exclusive), excluding the line terminator
+     * @param out   the builder to append to
+     */
+    static void decodeLine(byte[] buf, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            if (buf[i] < 0) {
+                out.append(new String(buf, i, end - i, StandardCharsets.UTF_8)); // Non-ASCII
+                return;
+            }
+            out.append((char)buf[i]);
+        }
+    }
+    
+    
+    /** Returns the matching known header name for the name within [0, end), or null if not known */
+    private static String findKnownHeader(CharSequence line, int end) {
+        for (String known : KNOWN_HEADERS) {
+            if (known.length() == end && regionEqualsIgnoreCase(line, known, end))
+                return known;
+        }
+        return null;
+    }
+    
+    /** Compares the first {@code len} chars against the lower-case ASCII string {@code lower} */
+    private static boolean regionEqualsIgnoreCase(CharSequence seq, String lower, int len) {
+        for (int i = 0; i < len; i++) {
+            char c = seq.charAt(i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            if (c != lower.charAt(i))
+                return false;
+        }
+        return true;
+    }
+    
+    private static boolean isVersion(CharSequence line, int start, int end) {
+        int digitsStart = start + VERSION_PREFIX.length();
+        if (digitsStart >= end)
+            return false;
+        for (int i = 0; i < VERSION_PREFIX.length(); i++)
+            if (line.charAt(start + i) != VERSION_PREFIX.charAt(i))
+                return false;
+        for (int i = digitsStart; i < end; i++) {
+            char c = line.charAt(i);
+            if ((c < '0' || c > '9') && c != '.')
+                return false;
+        }
+        return true;
+    }
+    
+    /** Decodes the URL-encoded path, or returns null if the encoding is invalid */
+    private static String decodePath(CharSequence line, int start, int end) {
+        String path = line.subSequence(start, end).toString();
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '%' || c == '+') {
+                try {
+                    return URLDecoder.decode(path, StandardCharsets.UTF_8.name());
+                } catch (IllegalArgumentException | UnsupportedEncodingException e) {
+                    return null;
+                }
+            }
+        }
+        return path; // Nothing to decode
+    }
+    
+    private static String toUpperCase(CharSequence seq, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            char c = seq.charAt(i);
+            chars[i - start] = (c >= 'a' && c <= 'z') ? (char)(c - ('a' - 'A')) : c;
+        }
+        return new String(chars);
+    }
+    
+    private static int skipWhitespace(CharSequence seq, int i, int end) {
+        while (i < end && isWhitespace(seq.charAt(i)))
+            i++;
+        return i;
+    }
+    
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+    
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+    
+    private static boolean isHeaderNameChar(char c) {
+        return isWordChar(c) || c == '-';
+    }
+    
+}
@@ -0,0 +1,142 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads HTTP request data from an {@link InputStream} through an internal buffer, so that the start-line and headers
+ * can be scanned in bulk rather than reading a single byte at a time from the socket.
+ *
+ * <p>Lines are decoded into a reusable {@link CharSequence}, which is only valid until the next read operation. Buffers
+ * are pooled between connections, and must be returned through {@link #release()} once the connection is closed.</p>
+ */
+class HTTPRequestReader {
+    
+    static final int BUFFER_SIZE = 8192;
+    private static final BlockingQueue<byte[]> BUFFER_POOL = new ArrayBlockingQueue<>(16);
+    
+    private final InputStream is;
+    private byte[] buf;
+    private int pos, limit;
+    private final StringBuilder line = new StringBuilder(128);
+    
+    
+    HTTPRequestReader(InputStream is) {
+        this.is = is;
+        byte[] pooled = BUFFER_POOL.poll();
+        this.buf = pooled != null ? pooled : new byte[BUFFER_SIZE];
+    }
+    
+    
+    /**
+     * Reads a single line, excluding the line terminator ({@code \n} or {@code \r\n}).
+     *
+     * <p>The returned sequence is reused, and will be overwritten by the next call to this reader.</p>
+     *
+     * @param maxLength the maximum line length in bytes
+     * @return the line contents, or null if the stream ended before any data was read
+     * @throws IOException if the stream cannot be read, or the line exceeds the maximum length
+     */
+    CharSequence readLine(int maxLength) throws IOException {
+        line.setLength(0);
+        boolean read = false, ascii = true;
+        byte[] nonAscii = null;
+        int nonAsciiLen = 0;
+        while (true) {
+            if (pos >= limit) {
+                if (!fill())
+                    break; // Stream ended
+            }
+            read = true;
+            // Scan buffer for the line terminator
+            int start = pos, end = start;
+            while (end < limit && buf[end] != '\n') {
+                if (buf[end] < 0) ascii = false;
+                end++;
+            }
+            int len = end - start;
+            if (line.length() + nonAsciiLen + len > maxLength)
+                throw new IOException("Request line exceeds maximum length.");
+            if (ascii) {
+                for (int i = start; i < end; i++)
+                    line.append((char)buf[i]);
+            } else {
+                // Fall back to accumulating raw bytes for UTF-8 decoding
+                if (nonAscii == null) {
+                    nonAscii = new byte[Math.max(128, line.length() + len)];
+                    for (int i = 0; i < line.length(); i++)
+                        nonAscii[i] = (byte)line.charAt(i);
+                    nonAsciiLen = line.length();
+                    line.setLength(0);
+                }
+                if (nonAsciiLen + len > nonAscii.length) {
+                    byte[] newArr = new byte[Math.max(nonAscii.length * 2, nonAsciiLen + len)];
+                    System.arraycopy(nonAscii, 0, newArr, 0, nonAsciiLen);
+                    nonAscii = newArr;
+                }
+                System.arraycopy(buf, start, nonAscii, nonAsciiLen, len);
+                nonAsciiLen += len;
+            }
+            pos = end;
+            if (end < limit) {
+                pos++; // Consume '\n'
+                break;
+            }
+        }
+        if (!read)
+            return null;
+        if (nonAscii != null)
+            line.append(new String(nonAscii, 0, nonAsciiLen, StandardCharsets.UTF_8));
+        // Strip trailing carriage return
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\r')
+            line.setLength(line.length() - 1);
+        return line;
+    }
+    
+    /**
+     * Reads the given number of bytes, consuming any data which has already been buffered first.
+     *
+     * @param length the number of bytes to read
+     * @return the read bytes, or null if the stream ended before all the data could be read
+     * @throws IOException if the stream cannot be read
+     */
+    byte[] readBytes(int length) throws IOException {
+        byte[] data = new byte[length];
+        int buffered = Math.min(limit - pos, length);
+        System.arraycopy(buf, pos, data, 0, buffered);
+        pos += buffered;
+        int read = buffered;
+        while (read < length) {
+            int n = is.read(data, read, length - read);
+            if (n == -1)
+                return null;
+            read += n;
+        }
+        return data;
+    }
+    
+    /**
+     * Returns the internal buffer to the pool. This reader must not be used afterwards.
+     */
+    void release() {
+        if (buf != null) {
+            BUFFER_POOL.offer(buf);
+            buf = null;
+        }
+    }
+    
+    
+    /** Reads more data into the buffer, returning false if the stream has ended */
+    private boolean fill() throws IOException {
+        int n = is.read(buf, 0, buf.length);
+        if (n == -1)
+            return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+    
+}
@@ -1,37 +1,53 @@
 package uk.oczadly.karl.csgsi.internal.httpserver;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
 
 /**
  * This class implements a basic HTTP server for the use of retrieving request data. The server always returns a 200 OK
  * response, complete with an empty body of data.
+ *
+ * <p>Two engines are available: {@link BlockingHTTPServer}, which handles one connection at a time from a blocking
+ * {@link java.net.ServerSocket}, and {@link NIOHTTPServer}, which multiplexes all connections through a single
+ * selector thread so that slow clients cannot hold up others.</p>
  */
-public class HTTPServer {
-    
-    private static final Logger LOGGER = LoggerFactory.getLogger(HTTPServer.class);
+public abstract class HTTPServer {
     
     private final int port;
     private final InetAddress bindAddr;
     private final HTTPRequestHandler handler;
-    
-    private volatile Thread thread;
-    private volatile ServerSocket socket;
+    private final HTTPServerConfig config;
+    private final ConnectionStats stats = new ConnectionStats();
     
     
     /**
-     * @param port            the port number to listen on
-     * @param handler         the handling class to receive HTTP requests
+     * @param port     the port number to listen on
+     * @param bindAddr the local address to bind to, or null for all interfaces
+     * @param handler  the handling class to receive HTTP requests
+     * @param config   the server configuration
      */
-    public HTTPServer(int port, InetAddress bindAddr, HTTPRequestHandler handler) {
+    protected HTTPServer(int port, InetAddress bindAddr, HTTPRequestHandler handler, HTTPServerConfig config) {
         this.port = port;
         this.bindAddr = bindAddr;
         this.handler = handler;
+        this.config = config;
+    }
+    
+    
+    /**
+     * Creates a new server using the engine specified by the configuration.
+     *
+     * @param port     the port number to listen on
+     * @param bindAddr the local address to bind to, or null for all interfaces
+     * @param handler  the handling class to receive HTTP requests
+     * @param config   the server configuration
+     * @return a new server instance
+     */
+    public static HTTPServer create(int port, InetAddress bindAddr, HTTPRequestHandler handler,
+                                    HTTPServerConfig config) {
+        return config.isNonBlocking()
+                ? new NIOHTTPServer(port, bindAddr, handler, config)
+                : new BlockingHTTPServer(port, bindAddr, handler, config);
     }
     
     
@@ -47,12 +63,30 @@ public class HTTPServer {
     }
     
     /**
-     * @return true if the server is currently running
+     * @return the handler which receives the HTTP requests
+     */
+    public HTTPRequestHandler getHandler() {
+        return handler;
+    }
+    
+    /**
+     * @return the server configuration
      */
-    public boolean isRunning() {
-        return thread != null && thread.isAlive();
+    public HTTPServerConfig getConfig() {
+        return config;
     }
     
+    /**
+     * @return the connection and request counters for this server
+     */
+    public ConnectionStats getStats() {
+        return stats;
+    }
+    
+    /**
+     * @return true if the server is currently running
+     */
+    public abstract boolean isRunning();
     
     /**
      * Starts the server inside a newly issued thread.
@@ -60,51 +94,13 @@ public class HTTPServer {
      * @throws IOException           if the port cannot be opened
      * @throws IllegalStateException if the server is already running
      */
-    public void start() throws IOException {
-        if (isRunning())
-            throw new IllegalStateException("Server is already running.");
-        
-        LOGGER.info("Starting HTTP server on port {}...", port);
-        socket = new ServerSocket(port, 50, bindAddr);
-        thread = new Thread(new ConnectionAcceptorTask());
-        thread.start();
-    }
+    public abstract void start() throws IOException;
     
     /**
      * Stops the server from running and frees the socket port.
      *
      * @throws IllegalStateException if the server is not currently running
      */
-    public void stop() {
-        if (!isRunning())
-            throw new IllegalStateException("Server is not currently running.");
-        
-        LOGGER.info("Stopping HTTP server on port {}...", port);
-        
-        thread.interrupt();
-        try {
-            socket.close();
-        } catch (IOException ignored) {}
-    }
-    
-    
-    /** Accepts new client connections and handles them */
-    private class ConnectionAcceptorTask implements Runnable {
-        @Override
-        public void run() {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    LOGGER.debug("Awaiting HTTP connection...");
-                    Socket conn = socket.accept();
-                    LOGGER.debug("Incoming HTTP request from {} on server port {}...",
-                            conn.getInetAddress(), getPort());
-                    new HTTPConnection(conn, handler).run();
-                    LOGGER.debug("HTTP exchange finished.");
-                } catch (Exception e) {
-                    LOGGER.error("Exception occured while handling HTTP connection", e);
-                }
-            }
-        }
-    }
+    public abstract void stop();
     
 }
@@ -0,0 +1,151 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+/**
+ * Contains the configuration options for an {@link HTTPServer}.
+ */
+public class HTTPServerConfig {
+    
+    /** The default maximum request body size, in bytes */
+    public static final int DEFAULT_MAX_BODY_SIZE = 8 * 1024 * 1024;
+    /** The default number of milliseconds to wait for the remainder of an incomplete request */
+    public static final int DEFAULT_REQUEST_TIMEOUT = 10000;
+    
+    private boolean nonBlocking = false, virtualThreads = false;
+    private int keepAliveTimeout = 0, maxKeepAliveRequests = 0;
+    private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private int requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    
+    
+    /**
+     * Creates a config object with the default options.
+     */
+    public HTTPServerConfig() {}
+    
+    /**
+     * Creates a copy of an existing config object.
+     *
+     * @param config the config to copy
+     */
+    public HTTPServerConfig(HTTPServerConfig config) {
+        this.nonBlocking = config.nonBlocking;
+        this.virtualThreads = config.virtualThreads;
+        this.keepAliveTimeout = config.keepAliveTimeout;
+        this.maxKeepAliveRequests = config.maxKeepAliveRequests;
+        this.maxBodySize = config.maxBodySize;
+        this.requestTimeout = config.requestTimeout;
+    }
+    
+    
+    /**
+     * @return true if the non-blocking server engine should be used
+     */
+    public boolean isNonBlocking() {
+        return nonBlocking;
+    }
+    
+    /**
+     * @param nonBlocking true if the non-blocking server engine should be used
+     * @return this config object
+     */
+    public HTTPServerConfig setNonBlocking(boolean nonBlocking) {
+        this.nonBlocking = nonBlocking;
+        return this;
+    }
+    
+    /**
+     * @return true if connections (or requests, for the non-blocking engine) should be handled on virtual threads
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    /**
+     * Sets whether virtual threads should be used to handle connections. If the current runtime does not support
+     * virtual threads, platform threads will be used instead.
+     *
+     * @param virtualThreads true if virtual threads should be used
+     * @return this config object
+     */
+    public HTTPServerConfig setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+    
+    /**
+     * @return the maximum size of a request body, in bytes
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+    
+    /**
+     * Sets the maximum size of a request body. Requests with a larger body will be rejected with a {@code 413} status
+     * code, and the connection closed.
+     *
+     * @param maxBodySize the maximum size in bytes
+     * @return this config object
+     */
+    public HTTPServerConfig setMaxBodySize(int maxBodySize) {
+        if (maxBodySize <= 0) throw new IllegalArgumentException("Max body size must be positive.");
+        this.maxBodySize = maxBodySize;
+        return this;
+    }
+    
+    /**
+     * @return the number of milliseconds to wait for the remainder of an incomplete request
+     */
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+    
+    /**
+     * Sets the maximum time a connection may go without receiving data while a request is incomplete, after which
+     * it is closed. This only applies to the non-blocking engine when persistent connections are disabled; otherwise
+     * the keep-alive timeout is used.
+     *
+     * @param requestTimeout the timeout in milliseconds
+     * @return this config object
+     */
+    public HTTPServerConfig setRequestTimeout(int requestTimeout) {
+        if (requestTimeout <= 0) throw new IllegalArgumentException("Request timeout must be positive.");
+        this.requestTimeout = requestTimeout;
+        return this;
+    }
+    
+    /**
+     * @return true if persistent (keep-alive) connections are enabled
+     */
+    public boolean isKeepAliveEnabled() {
+        return keepAliveTimeout > 0;
+    }
+    
+    /**
+     * @return the number of milliseconds an idle persistent connection is kept open for
+     */
+    public int getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+    
+    /**
+     * @return the maximum number of requests handled on a single connection, or 0 for no limit
+     */
+    public int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+    
+    /**
+     * Enables persistent connections, allowing multiple requests to be handled on a single connection.
+     *
+     * @param timeout     the number of milliseconds an idle connection is kept open for, or 0 to disable
+     * @param maxRequests the maximum number of requests handled on a single connection, or 0 for no limit
+     * @return this config object
+     */
+    public HTTPServerConfig setKeepAlive(int timeout, int maxRequests) {
+        if (timeout < 0) throw new IllegalArgumentException("Keep-alive timeout cannot be negative.");
+        if (maxRequests < 0) throw new IllegalArgumentException("Max keep-alive requests cannot be negative.");
+        this.keepAliveTimeout = timeout;
+        this.maxKeepAliveRequests = maxRequests;
+        return this;
+    }
+    
+}
@@ -0,0 +1,261 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the state of a single non-blocking connection managed by {@link NIOHTTPServer}. Request bytes are accumulated
+ * as they arrive until a complete request (start-line, headers and body) has been received, at which point the request
+ * can be passed to the handler.
+ */
+class NIOConnection {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(NIOConnection.class);
+    
+    static final int INITIAL_BUFFER_SIZE = 4096;
+    static final int MAX_HEADER_SIZE = 65536;
+    
+    private final SocketChannel channel;
+    private final InetAddress address;
+    private final HTTPServer server;
+    
+    private ByteBuffer headBuf = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer bodyBuf;
+    private boolean bodyTooLarge;
+    private ByteBuffer responseBuf;
+    private int requestEnd; // Index within headBuf where the current request ends
+    private int headStart; // Index within headBuf where the start-line begins, after any leading empty lines
+    private int headScan, lineLen; // Progress of the search for the end of the head
+    private boolean startLineReceived;
+    
+    private String method, path, version;
+    private Map<String, String> headers;
+    private int reqIndex = 0;
+    private boolean keepAlive;
+    private volatile long lastActive = System.nanoTime();
+    
+    NIOConnection(SocketChannel channel, HTTPServer server) {
+        this.channel = channel;
+        this.address = channel.socket().getInetAddress();
+        this.server = server;
+    }
+    
+    
+    SocketChannel getChannel() {
+        return channel;
+    }
+    
+    InetAddress getAddress() {
+        return address;
+    }
+    
+    /**
+     * @return the {@link System#nanoTime()} timestamp of when data was last transferred
+     */
+    long getLastActive() {
+        return lastActive;
+    }
+    
+    /**
+     * @return true if the connection should be kept open once the response has been written
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+    
+    /**
+     * Reads the available bytes from the channel.
+     *
+     * @return true if a complete request has been received
+     * @throws IOException if the channel cannot be read, has been closed, or the request is malformed
+     */
+    boolean read() throws IOException {
+        lastActive = System.nanoTime();
+        if (headers == null) {
+            // Still reading start-line and headers
+            if (!headBuf.hasRemaining()) {
+                if (headBuf.capacity() >= MAX_HEADER_SIZE)
+                    throw new IOException("Request headers exceed maximum size.");
+                ByteBuffer newBuf = ByteBuffer.allocate(headBuf.capacity() * 2);
+                headBuf.flip();
+                newBuf.put(headBuf);
+                headBuf = newBuf;
+            }
+            if (channel.read(headBuf) == -1)
+                throw new EOFException("Connection closed by client before request was complete.");
+        } else if (bodyBuf != null && bodyBuf.hasRemaining()) {
+            if (channel.read(bodyBuf) == -1)
+                throw new EOFException("Connection closed by client before request body was complete.");
+        }
+        return process();
+    }
+    
+    /**
+     * Processes the data which has already been received.
+     * @return true if a complete request has been received
+     * @throws IOException if the request is malformed
+     */
+    boolean process() throws IOException {
+        if (headers == null) {
+            int headEnd = findHeadEnd();
+            if (headEnd == -1)
+                return false; // Need more data
+            parseHead(headEnd);
+            requestEnd = headEnd;
+            
+            // Move any received body bytes into the body buffer
+            if (bodyBuf != null) {
+                int len = Math.min(headBuf.position() - headEnd, bodyBuf.remaining());
+                bodyBuf.put(headBuf.array(), headEnd, len);
+                requestEnd += len;
+            }
+        }
+        return bodyBuf == null || !bodyBuf.hasRemaining();
+    }
+    
+    /**
+     * Resets the connection state ready to receive another request on the same connection.
+     */
+    void reset() {
+        // Retain any data received beyond the current request (pipelined requests)
+        int leftover = headBuf.position() - requestEnd;
+        if (leftover > 0) {
+            System.arraycopy(headBuf.array(), requestEnd, headBuf.array(), 0, leftover);
+        }
+        headBuf.position(Math.max(leftover, 0));
+        bodyBuf = null;
+        bodyTooLarge = false;
+        responseBuf = null;
+        requestEnd = headStart = headScan = lineLen = 0;
+        startLineReceived = false;
+        method = path = version = null;
+        headers = null;
+        keepAlive = false;
+        reqIndex++;
+        lastActive = System.nanoTime();
+    }
+    
+    /**
+     * Passes the received request to the handler, and stores the encoded response ready for writing.
+     */
+    void handle() {
+        HTTPResponse res;
+        if (bodyTooLarge) {
+            res = HTTPConnection.RESPONSE_TOO_LARGE;
+            keepAlive = false; // Body hasn't been read, so the connection can't be reused
+        } else {
+            byte[] body = bodyBuf != null ? bodyBuf.array() : null;
+            res = HTTPConnection.handleRequest(server.getHandler(), address, path, method, headers, body);
+            server.getStats().recordRequest(reqIndex);
+            keepAlive = HTTPConnection.isKeepAlive(server.getConfig(), reqIndex, version, headers);
+        }
+        
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            HTTPConnection.writeResponse(res, bos, server.getConfig(), keepAlive);
+        } catch (IOException e) {
+            throw new AssertionError(e); // Not thrown by ByteArrayOutputStream
+        }
+        responseBuf = ByteBuffer.wrap(bos.toByteArray());
+    }
+    
+    /**
+     * Writes the pending response data to the channel.
+     * @return true if the response has been fully written
+     * @throws IOException if the channel cannot be written to
+     */
+    boolean write() throws IOException {
+        lastActive = System.nanoTime();
+        channel.write(responseBuf);
+        return !responseBuf.hasRemaining();
+    }
+    
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close connection channel.", e);
+        }
+    }
+    
+    
+    /** Parses the start-line and headers, which end at the given index */
+    private void parseHead(int headEnd) throws IOException {
+        byte[] arr = headBuf.array();
+        StringBuilder line = new StringBuilder(128);
+        int lineStart = headStart;
+        String[] start = null;
+        Map<String, String> headers = new HashMap<>();
+        for (int i = headStart; i < headEnd; i++) {
+            if (arr[i] != '\n') continue;
+            int lineEnd = (i > lineStart && arr[i - 1] == '\r') ? i - 1 : i;
+            line.setLength(0);
+            HTTPRequestParser.decodeLine(arr, lineStart, lineEnd, line);
+            lineStart = i + 1;
+            
+            if (start == null) {
+                start = HTTPRequestParser.parseStartLine(line);
+                if (start == null)
+                    throw new IOException("Invalid HTTP start-line header \"" + line + "\"!");
+            } else if (line.length() > 0 && !HTTPRequestParser.parseHeader(line, headers)) {
+                LOGGER.debug("Ignoring malformed header line \"{}\".", line);
+            }
+        }
+        if (start == null)
+            throw new IOException("Missing HTTP start-line header!");
+        method = start[0];
+        path = start[1];
+        version = start[2];
+        LOGGER.debug("Parsed {} headers from request.", headers.size());
+        
+        String contentLength = headers.get(HTTPRequestParser.HEADER_CONTENT_LENGTH);
+        if (contentLength != null) {
+            int length = HTTPRequestParser.parseContentLength(contentLength);
+            if (length == -1)
+                throw new IOException("Invalid content-length header.");
+            if (length > server.getConfig().getMaxBodySize()) {
+                LOGGER.warn("Rejecting request body of {} bytes (exceeds maximum of {})!",
+                        length, server.getConfig().getMaxBodySize());
+                bodyTooLarge = true;
+            } else {
+                bodyBuf = ByteBuffer.allocate(length);
+            }
+        }
+        this.headers = headers;
+    }
+    
+    /**
+     * Finds the end of the header section (the empty line) within the buffer. Scanning resumes from where the
+     * previous call finished, and any empty lines preceding the start-line are skipped.
+     * @return the index of the first byte after the empty line, or -1 if not yet received
+     */
+    private int findHeadEnd() {
+        byte[] arr = headBuf.array();
+        while (headScan < headBuf.position()) {
+            byte b = arr[headScan++];
+            if (b == '\n') {
+                if (lineLen > 0) {
+                    startLineReceived = true;
+                    lineLen = 0;
+                } else if (startLineReceived) {
+                    return headScan;
+                } else {
+                    headStart = headScan; // Ignore empty line before the start-line
+                }
+            } else if (b != '\r') {
+                lineLen++;
+            }
+        }
+        return -1;
+    }
+    
+}
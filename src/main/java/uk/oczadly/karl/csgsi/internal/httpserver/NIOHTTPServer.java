@@ -0,0 +1,263 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.oczadly.karl.csgsi.internal.VirtualThreads;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link HTTPServer} backed by a non-blocking {@link ServerSocketChannel} and {@link Selector}.
+ *
+ * <p>A single selector thread accepts connections and reads request data as it arrives, so that a slow or stalled
+ * client cannot hold up requests from other clients. Once a request has been fully received, it is passed to the
+ * {@link HTTPRequestHandler} on a worker thread, and the response is written back by the selector thread.</p>
+ */
+public class NIOHTTPServer extends HTTPServer {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(NIOHTTPServer.class);
+    
+    private final Queue<NIOConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+    
+    private volatile Thread thread;
+    private volatile Selector selector;
+    private volatile ServerSocketChannel serverChannel;
+    private volatile ExecutorService handlerExecutor;
+    private long lastIdleSweep;
+    
+    
+    /**
+     * @param port     the port number to listen on
+     * @param bindAddr the local address to bind to, or null for all interfaces
+     * @param handler  the handling class to receive HTTP requests
+     */
+    public NIOHTTPServer(int port, InetAddress bindAddr, HTTPRequestHandler handler) {
+        this(port, bindAddr, handler, new HTTPServerConfig());
+    }
+    
+    /**
+     * @param port     the port number to listen on
+     * @param bindAddr the local address to bind to, or null for all interfaces
+     * @param handler  the handling class to receive HTTP requests
+     * @param config   the server configuration
+     */
+    public NIOHTTPServer(int port, InetAddress bindAddr, HTTPRequestHandler handler, HTTPServerConfig config) {
+        super(port, bindAddr, handler, config);
+    }
+    
+    
+    @Override
+    public boolean isRunning() {
+        return thread != null && thread.isAlive();
+    }
+    
+    @Override
+    public void start() throws IOException {
+        if (isRunning())
+            throw new IllegalStateException("Server is already running.");
+        
+        LOGGER.info("Starting non-blocking HTTP server on port {}...", getPort());
+        selector = Selector.open();
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.bind(new InetSocketAddress(getBindAddress(), getPort()), 50);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+            throw e;
+        }
+        pendingWrites.clear();
+        lastIdleSweep = System.nanoTime(); // Origin is arbitrary, so must not start from zero
+        handlerExecutor = getConfig().isVirtualThreads()
+                ? VirtualThreads.newThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+        thread = new Thread(new SelectorTask());
+        thread.start();
+    }
+    
+    @Override
+    public void stop() {
+        if (!isRunning())
+            throw new IllegalStateException("Server is not currently running.");
+        
+        LOGGER.info("Stopping non-blocking HTTP server on port {}...", getPort());
+        
+        handlerExecutor.shutdown();
+        thread.interrupt();
+        selector.wakeup();
+        // Wait for the selector thread to close the connections and free the port
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for the HTTP server to stop");
+        }
+    }
+    
+    
+    /** Called by the selector thread when a connection has received a complete request */
+    private void dispatch(SelectionKey key, NIOConnection conn) {
+        key.interestOps(0); // Stop reading until the response has been written
+        try {
+            handlerExecutor.execute(() -> {
+                conn.handle();
+                pendingWrites.add(conn);
+                selector.wakeup();
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Server is stopping, dropping request from {}.", conn.getAddress());
+            key.cancel();
+            conn.close();
+        }
+    }
+    
+    /** Registers write interest for connections which have a response ready */
+    private void processPendingWrites() {
+        NIOConnection conn;
+        while ((conn = pendingWrites.poll()) != null) {
+            SelectionKey key = conn.getChannel().keyFor(selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                conn.close();
+            }
+        }
+    }
+    
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        NIOConnection conn = new NIOConnection(channel, this);
+        channel.register(selector, SelectionKey.OP_READ, conn);
+        getStats().connections.incrementAndGet();
+        LOGGER.debug("Incoming HTTP connection from {} on server port {}...", conn.getAddress(), getPort());
+    }
+    
+    /**
+     * @return the number of milliseconds a connection awaiting request data may remain idle for
+     */
+    private int getIdleTimeout() {
+        HTTPServerConfig config = getConfig();
+        return config.isKeepAliveEnabled() ? config.getKeepAliveTimeout() : config.getRequestTimeout();
+    }
+    
+    /** Closes connections which have been idle for longer than the keep-alive or request timeout */
+    private void closeIdleConnections() {
+        long now = System.nanoTime();
+        long timeout = TimeUnit.MILLISECONDS.toNanos(getIdleTimeout());
+        if (now - lastIdleSweep < timeout / 4) return;
+        lastIdleSweep = now;
+        
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            // Only connections awaiting request data are considered idle
+            if (attachment instanceof NIOConnection && key.isValid()
+                    && key.interestOps() == SelectionKey.OP_READ) {
+                NIOConnection conn = (NIOConnection)attachment;
+                if (now - conn.getLastActive() > timeout) {
+                    LOGGER.debug("Closing idle HTTP connection from {}.", conn.getAddress());
+                    key.cancel();
+                    conn.close();
+                }
+            }
+        }
+    }
+    
+    private static void closeQuietly(Closeable c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (IOException ignored) {}
+    }
+    
+    
+    /** Selects ready channels, accepting connections and reading/writing data */
+    private class SelectorTask implements Runnable {
+        @Override
+        public void run() {
+            try {
+                long selectTimeout = Math.max(1, getIdleTimeout() / 4);
+                while (!Thread.currentThread().isInterrupted()) {
+                    selector.select(selectTimeout);
+                    processPendingWrites();
+                    
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        handleKey(key);
+                    }
+                    closeIdleConnections();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                LOGGER.error("Non-blocking HTTP server selector failed", e);
+            } finally {
+                // Close all connections and free the port
+                try {
+                    for (SelectionKey key : selector.keys())
+                        closeQuietly(key.channel());
+                } catch (ClosedSelectorException ignored) {}
+                closeQuietly(serverChannel);
+                closeQuietly(selector);
+            }
+        }
+        
+        private void handleKey(SelectionKey key) {
+            if (!key.isValid()) return;
+            if (key.isAcceptable()) {
+                try {
+                    accept();
+                } catch (IOException e) {
+                    LOGGER.error("Exception occured while accepting HTTP connection", e);
+                }
+                return;
+            }
+            
+            NIOConnection conn = (NIOConnection)key.attachment();
+            try {
+                if (key.isReadable()) {
+                    if (conn.read())
+                        dispatch(key, conn);
+                } else if (key.isWritable()) {
+                    if (conn.write()) {
+                        LOGGER.debug("HTTP exchange finished.");
+                        if (conn.isKeepAlive()) {
+                            conn.reset();
+                            if (conn.process()) {
+                                dispatch(key, conn); // Pipelined request already received
+                            } else {
+                                key.interestOps(SelectionKey.OP_READ);
+                            }
+                        } else {
+                            key.cancel();
+                            conn.close();
+                        }
+                    }
+                }
+            } catch (EOFException e) {
+                LOGGER.debug("HTTP connection from {} closed: {}", conn.getAddress(), e.getMessage());
+                key.cancel();
+                conn.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to handle HTTP connection from {}: {}", conn.getAddress(), e.getMessage());
+                key.cancel();
+                conn.close();
+            }
+        }
+    }
+    
+}
@@ -1,11 +1,17 @@
 package uk.oczadly.karl.csgsi.state;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
 import uk.oczadly.karl.csgsi.state.components.Coordinate;
 import uk.oczadly.karl.csgsi.state.components.EnumValue;
 import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
 
+@JsonAdapter(BombState.Adapter.class)
 public class BombState {
     
     @Expose @SerializedName("state")
@@ -87,4 +93,34 @@ public class BombState {
         @SerializedName("exploded") EXPLODED
     }
     
+    
+    static class Adapter extends StateAdapterFactory<BombState> {
+        Adapter() {
+            super(BombState.class);
+        }
+        
+        @Override
+        protected ObjectReader<BombState> createReader(Gson gson) {
+            TypeAdapter<EnumValue<BombStatus>> statusAdapter =
+                    gson.getAdapter(new TypeToken<EnumValue<BombStatus>>() {});
+            TypeAdapter<Coordinate> coordAdapter = gson.getAdapter(Coordinate.class);
+            TypeAdapter<PlayerSteamID> steamIdAdapter = gson.getAdapter(PlayerSteamID.class);
+            return in -> {
+                BombState state = new BombState();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "state":     state.phase = statusAdapter.read(in); break;
+                        case "position":  state.position = coordAdapter.read(in); break;
+                        case "countdown": state.countdown = nextDouble(in); break;
+                        case "player":    state.playerId = steamIdAdapter.read(in); break;
+                        default:          in.skipValue();
+                    }
+                }
+                in.endObject();
+                return state;
+            };
+        }
+    }
+    
 }
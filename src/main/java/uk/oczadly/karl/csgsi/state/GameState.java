@@ -1,13 +1,16 @@
 package uk.oczadly.karl.csgsi.state;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import uk.oczadly.karl.csgsi.config.DataComponent;
+import uk.oczadly.karl.csgsi.internal.GameStateWriter;
 import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
 
 import java.util.Map;
 import java.util.Optional;
 
+@JsonAdapter(GameStateWriter.class)
 public class GameState {
     
     @Expose @SerializedName("provider") private ProviderState provider;
@@ -114,6 +117,10 @@ public class GameState {
      *     <li>{@link DataComponent#PLAYERS_WEAPONS} (spectator only)</li>
      * </ul>
      *
+     * <p>The returned map should be treated as read-only. Unless lazy parsing is enabled, states received by a
+     * {@link uk.oczadly.karl.csgsi.GSIServer} return an unmodifiable map, which is shared with subsequent states while
+     * the players are unchanged.</p>
+     *
      * @return a list of other players in the game
      */
     public Optional<Map<PlayerSteamID, PlayerState>> getAllPlayers() {
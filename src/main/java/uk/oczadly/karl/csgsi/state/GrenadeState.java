@@ -1,15 +1,17 @@
 package uk.oczadly.karl.csgsi.state;
 
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.JsonAdapter;
-import com.google.gson.reflect.TypeToken;
+import uk.oczadly.karl.csgsi.internal.IntKeyMap;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
 import uk.oczadly.karl.csgsi.state.components.grenade.EffectGrenade;
 import uk.oczadly.karl.csgsi.state.components.grenade.Grenade;
 import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
 import uk.oczadly.karl.csgsi.state.components.grenade.IncendiaryGrenade;
 import uk.oczadly.karl.csgsi.state.components.grenade.ProjectileGrenade;
 
-import java.lang.reflect.Type;
 import java.util.*;
 
 /**
@@ -22,14 +24,42 @@ import java.util.*;
  *     <li>{@link EffectGrenade}</li>
  *     <li>{@link IncendiaryGrenade}</li>
  * </ul>
+ *
+ * <p>The grenades are indexed by type and owner when the state is deserialized, and all returned maps are immutable
+ * and iterate in ascending ID order.</p>
  */
 @JsonAdapter(GrenadeState.Adapter.class)
 public class GrenadeState {
     
-    private final Map<Integer, Grenade> grenades;
+    private final IntKeyMap<Grenade> grenades;
+    private final Map<Grenade.Type, IntKeyMap<Grenade>> byType;
+    private final IntKeyMap<Grenade> unresolvedType;
+    private final Map<PlayerSteamID, IntKeyMap<Grenade>> byOwner;
     
-    private GrenadeState(Map<Integer, Grenade> grenades) {
+    private GrenadeState(IntKeyMap<Grenade> grenades) {
         this.grenades = grenades;
+        
+        // Build indexes
+        Map<Grenade.Type, IntKeyMap.Builder<Grenade>> typeBuilders = new EnumMap<>(Grenade.Type.class);
+        IntKeyMap.Builder<Grenade> unresolvedBuilder = new IntKeyMap.Builder<>(0);
+        Map<PlayerSteamID, IntKeyMap.Builder<Grenade>> ownerBuilders = new HashMap<>();
+        for (int i = 0; i < grenades.size(); i++) {
+            int id = grenades.keyAt(i);
+            Grenade grenade = grenades.valueAt(i);
+            if (grenade.getType() != null && grenade.getType().isResolved()) {
+                typeBuilders.computeIfAbsent(grenade.getType().get(), k -> new IntKeyMap.Builder<>(4))
+                        .put(id, grenade);
+            } else {
+                unresolvedBuilder.put(id, grenade);
+            }
+            if (grenade.getOwner() != null)
+                ownerBuilders.computeIfAbsent(grenade.getOwner(), k -> new IntKeyMap.Builder<>(4)).put(id, grenade);
+        }
+        this.byType = new EnumMap<>(Grenade.Type.class);
+        typeBuilders.forEach((type, builder) -> byType.put(type, builder.build()));
+        this.unresolvedType = unresolvedBuilder.build();
+        this.byOwner = new HashMap<>(ownerBuilders.size() * 2);
+        ownerBuilders.forEach((owner, builder) -> byOwner.put(owner, builder.build()));
     }
     
     
@@ -41,30 +71,51 @@ public class GrenadeState {
         return grenades.get(id);
     }
     
+    /**
+     * @param type the grenade type, or null for grenades of an unknown type
+     * @return an immutable map of the grenades of the given type
+     */
     public Map<Integer, Grenade> getByType(Grenade.Type type) {
-        Map<Integer, Grenade> matches = new HashMap<>();
-        for (Map.Entry<Integer, Grenade> g : grenades.entrySet()) {
-            if (g.getValue().getType().get() == type)
-                matches.put(g.getKey(), g.getValue());
-        }
-        return Collections.unmodifiableMap(matches);
+        if (type == null)
+            return unresolvedType;
+        return byType.getOrDefault(type, IntKeyMap.empty());
     }
     
+    /**
+     * @param playerId the Steam ID of the owner
+     * @return an immutable map of the grenades thrown by the given player
+     */
     public Map<Integer, Grenade> getByOwner(PlayerSteamID playerId) {
-        Map<Integer, Grenade> matches = new HashMap<>();
-        for (Map.Entry<Integer, Grenade> g : grenades.entrySet()) {
-            if (g.getValue().getOwner().equals(playerId))
-                matches.put(g.getKey(), g.getValue());
-        }
-        return Collections.unmodifiableMap(matches);
+        return byOwner.getOrDefault(playerId, IntKeyMap.empty());
     }
     
     
-    static class Adapter implements JsonDeserializer<GrenadeState> {
+    static class Adapter extends StateAdapterFactory<GrenadeState> {
+        Adapter() {
+            super(GrenadeState.class);
+        }
+        
         @Override
-        public GrenadeState deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-                throws JsonParseException {
-            return new GrenadeState(context.deserialize(json, new TypeToken<Map<Integer, Grenade>>() {}.getType()));
+        protected ObjectReader<GrenadeState> createReader(Gson gson) {
+            TypeAdapter<Grenade> grenadeAdapter = gson.getAdapter(Grenade.class);
+            return in -> {
+                IntKeyMap.Builder<Grenade> grenades = new IntKeyMap.Builder<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String key = in.nextName();
+                    int id;
+                    try {
+                        id = Integer.parseInt(key);
+                    } catch (NumberFormatException e) {
+                        throw new JsonSyntaxException("Invalid grenade ID \"" + key + "\".", e);
+                    }
+                    Grenade grenade = grenadeAdapter.read(in);
+                    if (grenade != null)
+                        grenades.put(id, grenade);
+                }
+                in.endObject();
+                return new GrenadeState(grenades.build());
+            };
         }
     }
     
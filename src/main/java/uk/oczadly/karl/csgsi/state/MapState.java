@@ -1,26 +1,29 @@
 package uk.oczadly.karl.csgsi.state;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import uk.oczadly.karl.csgsi.config.DataComponent;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
 import uk.oczadly.karl.csgsi.state.components.EnumValue;
 import uk.oczadly.karl.csgsi.state.components.Team;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.TreeMap;
 
+@JsonAdapter(MapState.Adapter.class)
 public class MapState {
     
-    @Expose @SerializedName("round_wins") @JsonAdapter(RoundOutcomeDeserializer.class)
+    @Expose @SerializedName("round_wins")
     private List<EnumValue<RoundOutcome>> rounds = Collections.emptyList();
     
     @Expose @SerializedName("mode")
@@ -182,16 +185,74 @@ public class MapState {
     }
     
     
-    static class RoundOutcomeDeserializer implements JsonDeserializer<List<EnumValue<RoundOutcome>>> {
+    static class Adapter extends StateAdapterFactory<MapState> {
+        Adapter() {
+            super(MapState.class);
+        }
+        
         @Override
-        public List<EnumValue<RoundOutcome>> deserialize(JsonElement json, Type typeOfT,
-                                                         JsonDeserializationContext context) throws JsonParseException {
-            TreeMap<Integer, EnumValue<RoundOutcome>> map = context.deserialize(json,
-                    new TypeToken<TreeMap<Integer, EnumValue<RoundOutcome>>>() {}.getType());
-            
-            return map != null
-                    ? Collections.unmodifiableList(new ArrayList<>(map.values()))
-                    : Collections.emptyList();
+        protected ObjectReader<MapState> createReader(Gson gson) {
+            TypeAdapter<EnumValue<RoundOutcome>> outcomeAdapter =
+                    gson.getAdapter(new TypeToken<EnumValue<RoundOutcome>>() {});
+            TypeAdapter<EnumValue<GameMode>> modeAdapter = gson.getAdapter(new TypeToken<EnumValue<GameMode>>() {});
+            TypeAdapter<EnumValue<GamePhase>> phaseAdapter =
+                    gson.getAdapter(new TypeToken<EnumValue<GamePhase>>() {});
+            TypeAdapter<TeamStats> teamAdapter = gson.getAdapter(TeamStats.class);
+            return in -> {
+                MapState state = new MapState();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "round_wins":
+                            state.rounds = readRounds(in, outcomeAdapter); break;
+                        case "mode":
+                            state.mode = modeAdapter.read(in); break;
+                        case "name":
+                            state.name = nextPooledString(in); break;
+                        case "phase":
+                            state.phase = phaseAdapter.read(in); break;
+                        case "round":
+                            state.roundNum = nextShort(in, state.roundNum); break;
+                        case "team_ct":
+                            state.ctStats = teamAdapter.read(in); break;
+                        case "team_t":
+                            state.tStats = teamAdapter.read(in); break;
+                        case "num_matches_to_win_series":
+                            state.seriesMatchesToWin = nextShort(in, state.seriesMatchesToWin); break;
+                        case "current_spectators":
+                            state.spectatorCount = nextInt(in, state.spectatorCount); break;
+                        case "souvenirs_total":
+                            state.souvenirDrops = nextInt(in, state.souvenirDrops); break;
+                        default:
+                            in.skipValue();
+                    }
+                }
+                in.endObject();
+                return state;
+            };
+        }
+        
+        /** Reads the round outcomes, which are keyed by the round number */
+        private static List<EnumValue<RoundOutcome>> readRounds(
+                JsonReader in, TypeAdapter<EnumValue<RoundOutcome>> outcomeAdapter) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return Collections.emptyList();
+            }
+            TreeMap<Integer, EnumValue<RoundOutcome>> rounds = new TreeMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String key = in.nextName();
+                int round;
+                try {
+                    round = Integer.parseInt(key);
+                } catch (NumberFormatException e) {
+                    throw new JsonSyntaxException("Invalid round number \"" + key + "\"", e);
+                }
+                rounds.put(round, outcomeAdapter.read(in));
+            }
+            in.endObject();
+            return Collections.unmodifiableList(new ArrayList<>(rounds.values()));
         }
     }
     
@@ -286,6 +347,7 @@ public class MapState {
         @SerializedName("intermission") INTERMISSION
     }
     
+    @JsonAdapter(TeamStats.Adapter.class)
     public static class TeamStats {
         @Expose @SerializedName("score")
         private short score;
@@ -327,6 +389,37 @@ public class MapState {
         public short getSeriesMatchesWon() {
             return seriesMatchesWon;
         }
+        
+        
+        static class Adapter extends StateAdapterFactory<TeamStats> {
+            Adapter() {
+                super(TeamStats.class);
+            }
+            
+            @Override
+            protected ObjectReader<TeamStats> createReader(Gson gson) {
+                return in -> {
+                    TeamStats stats = new TeamStats();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        switch (in.nextName()) {
+                            case "score":
+                                stats.score = nextShort(in, stats.score); break;
+                            case "consecutive_round_losses":
+                                stats.consecutiveLosses = nextShort(in, stats.consecutiveLosses); break;
+                            case "timeouts_remaining":
+                                stats.timeoutsRemaining = nextShort(in, stats.timeoutsRemaining); break;
+                            case "matches_won_this_series":
+                                stats.seriesMatchesWon = nextShort(in, stats.seriesMatchesWon); break;
+                            default:
+                                in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    return stats;
+                };
+            }
+        }
     }
     
 }
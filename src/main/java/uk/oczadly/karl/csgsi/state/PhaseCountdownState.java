@@ -1,9 +1,15 @@
 package uk.oczadly.karl.csgsi.state;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
 import uk.oczadly.karl.csgsi.state.components.EnumValue;
 
+@JsonAdapter(PhaseCountdownState.Adapter.class)
 public class PhaseCountdownState {
     
     @Expose @SerializedName("phase")
@@ -55,4 +61,29 @@ public class PhaseCountdownState {
         @SerializedName("freezetime") FREEZE_TIME
     }
     
+    
+    static class Adapter extends StateAdapterFactory<PhaseCountdownState> {
+        Adapter() {
+            super(PhaseCountdownState.class);
+        }
+        
+        @Override
+        protected ObjectReader<PhaseCountdownState> createReader(Gson gson) {
+            TypeAdapter<EnumValue<Phase>> phaseAdapter = gson.getAdapter(new TypeToken<EnumValue<Phase>>() {});
+            return in -> {
+                PhaseCountdownState state = new PhaseCountdownState();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "phase":         state.phase = phaseAdapter.read(in); break;
+                        case "phase_ends_in": state.timer = nextDouble(in); break;
+                        default:              in.skipValue();
+                    }
+                }
+                in.endObject();
+                return state;
+            };
+        }
+    }
+    
 }
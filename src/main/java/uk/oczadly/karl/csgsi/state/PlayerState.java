@@ -1,10 +1,16 @@
 package uk.oczadly.karl.csgsi.state;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
 import uk.oczadly.karl.csgsi.config.DataComponent;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
 import uk.oczadly.karl.csgsi.state.components.*;
 
+@JsonAdapter(PlayerState.Adapter.class)
 public class PlayerState {
 
     @Expose @SerializedName("steamid")
@@ -215,6 +221,47 @@ public class PlayerState {
     }
     
     
+    static class Adapter extends StateAdapterFactory<PlayerState> {
+        Adapter() {
+            super(PlayerState.class);
+        }
+        
+        @Override
+        protected ObjectReader<PlayerState> createReader(Gson gson) {
+            TypeAdapter<PlayerSteamID> steamIdAdapter = gson.getAdapter(PlayerSteamID.class);
+            TypeAdapter<EnumValue<Team>> teamAdapter = gson.getAdapter(new TypeToken<EnumValue<Team>>() {});
+            TypeAdapter<EnumValue<Activity>> activityAdapter =
+                    gson.getAdapter(new TypeToken<EnumValue<Activity>>() {});
+            TypeAdapter<MatchStats> statsAdapter = gson.getAdapter(MatchStats.class);
+            TypeAdapter<PlayerStateDetails> detailsAdapter = gson.getAdapter(PlayerStateDetails.class);
+            TypeAdapter<PlayerInventory> inventoryAdapter = gson.getAdapter(PlayerInventory.class);
+            TypeAdapter<Coordinate> coordAdapter = gson.getAdapter(Coordinate.class);
+            return in -> {
+                PlayerState state = new PlayerState();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "steamid":       state.steamId = steamIdAdapter.read(in); break;
+                        case "name":          state.name = nextPooledString(in); break;
+                        case "clan":          state.groupName = nextPooledString(in); break;
+                        case "observer_slot": state.observerSlot = nextByte(in); break;
+                        case "team":          state.team = teamAdapter.read(in); break;
+                        case "activity":      state.activity = activityAdapter.read(in); break;
+                        case "match_stats":   state.stats = statsAdapter.read(in); break;
+                        case "state":         state.state = detailsAdapter.read(in); break;
+                        case "weapons":       state.inventory = inventoryAdapter.read(in); break;
+                        case "spectarget":    state.specTarget = steamIdAdapter.read(in); break;
+                        case "position":      state.position = coordAdapter.read(in); break;
+                        case "forward":       state.facing = coordAdapter.read(in); break;
+                        default:              in.skipValue();
+                    }
+                }
+                in.endObject();
+                return state;
+            };
+        }
+    }
+    
     public enum Activity {
         /**
          * Currently playing/watching the game.
@@ -232,6 +279,7 @@ public class PlayerState {
         @SerializedName("menu") MENU
     }
     
+    @JsonAdapter(PlayerStateDetails.Adapter.class)
     public static class PlayerStateDetails {
         
         @Expose @SerializedName("health")
@@ -401,8 +449,43 @@ public class PlayerState {
                     ", equipmentValue=" + equipmentValue +
                     '}';
         }
+        
+        
+        static class Adapter extends StateAdapterFactory<PlayerStateDetails> {
+            Adapter() {
+                super(PlayerStateDetails.class);
+            }
+            
+            @Override
+            protected ObjectReader<PlayerStateDetails> createReader(Gson gson) {
+                return in -> {
+                    PlayerStateDetails d = new PlayerStateDetails();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        switch (in.nextName()) {
+                            case "health":         d.health = nextShort(in, d.health); break;
+                            case "armor":          d.armor = nextShort(in, d.armor); break;
+                            case "helmet":         d.helmet = nextBoolean(in, d.helmet); break;
+                            case "defusekit":      d.defuseKit = nextBoolean(in, d.defuseKit); break;
+                            case "flashed":        d.flashed = nextShort(in, d.flashed); break;
+                            case "smoked":         d.smoked = nextShort(in, d.smoked); break;
+                            case "burning":        d.burning = nextShort(in, d.burning); break;
+                            case "money":          d.money = nextInt(in, d.money); break;
+                            case "round_kills":    d.roundKills = nextShort(in, d.roundKills); break;
+                            case "round_killhs":   d.roundKillsHeadshot = nextShort(in, d.roundKillsHeadshot); break;
+                            case "round_totaldmg": d.roundTotalDamage = nextShort(in, d.roundTotalDamage); break;
+                            case "equip_value":    d.equipmentValue = nextInt(in, d.equipmentValue); break;
+                            default:               in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    return d;
+                };
+            }
+        }
     }
     
+    @JsonAdapter(MatchStats.Adapter.class)
     public static class MatchStats {
         
         @Expose @SerializedName("kills")
@@ -474,6 +557,33 @@ public class PlayerState {
                     ", score=" + score +
                     '}';
         }
+        
+        
+        static class Adapter extends StateAdapterFactory<MatchStats> {
+            Adapter() {
+                super(MatchStats.class);
+            }
+            
+            @Override
+            protected ObjectReader<MatchStats> createReader(Gson gson) {
+                return in -> {
+                    MatchStats stats = new MatchStats();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        switch (in.nextName()) {
+                            case "kills":   stats.kills = nextShort(in, stats.kills); break;
+                            case "assists": stats.assists = nextShort(in, stats.assists); break;
+                            case "deaths":  stats.deaths = nextShort(in, stats.deaths); break;
+                            case "mvps":    stats.mvps = nextShort(in, stats.mvps); break;
+                            case "score":   stats.score = nextShort(in, stats.score); break;
+                            default:        in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    return stats;
+                };
+            }
+        }
     }
 
 }
@@ -1,11 +1,16 @@
 package uk.oczadly.karl.csgsi.state;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
 import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
 
 import java.time.Instant;
 
+@JsonAdapter(ProviderState.Adapter.class)
 public class ProviderState {
     
     @Expose @SerializedName("name")
@@ -59,4 +64,32 @@ public class ProviderState {
         return timestamp;
     }
     
+    
+    static class Adapter extends StateAdapterFactory<ProviderState> {
+        Adapter() {
+            super(ProviderState.class);
+        }
+        
+        @Override
+        protected ObjectReader<ProviderState> createReader(Gson gson) {
+            TypeAdapter<PlayerSteamID> steamIdAdapter = gson.getAdapter(PlayerSteamID.class);
+            return in -> {
+                ProviderState state = new ProviderState();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "name":      state.name = nextPooledString(in); break;
+                        case "appid":     state.appId = nextInt(in, state.appId); break;
+                        case "version":   state.version = nextInt(in, state.version); break;
+                        case "steamid":   state.steamId = steamIdAdapter.read(in); break;
+                        case "timestamp": state.timestamp = nextLong(in, state.timestamp); break;
+                        default:          in.skipValue();
+                    }
+                }
+                in.endObject();
+                return state;
+            };
+        }
+    }
+    
 }
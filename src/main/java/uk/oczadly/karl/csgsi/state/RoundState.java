@@ -1,10 +1,16 @@
 package uk.oczadly.karl.csgsi.state;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
 import uk.oczadly.karl.csgsi.state.components.EnumValue;
 import uk.oczadly.karl.csgsi.state.components.Team;
 
+@JsonAdapter(RoundState.Adapter.class)
 public class RoundState {
     
     @Expose @SerializedName("phase")
@@ -73,4 +79,33 @@ public class RoundState {
         @SerializedName("defused") DEFUSED
     }
     
+    
+    static class Adapter extends StateAdapterFactory<RoundState> {
+        Adapter() {
+            super(RoundState.class);
+        }
+        
+        @Override
+        protected ObjectReader<RoundState> createReader(Gson gson) {
+            TypeAdapter<EnumValue<RoundPhase>> phaseAdapter =
+                    gson.getAdapter(new TypeToken<EnumValue<RoundPhase>>() {});
+            TypeAdapter<EnumValue<Team>> teamAdapter = gson.getAdapter(new TypeToken<EnumValue<Team>>() {});
+            TypeAdapter<EnumValue<BombPhase>> bombAdapter = gson.getAdapter(new TypeToken<EnumValue<BombPhase>>() {});
+            return in -> {
+                RoundState state = new RoundState();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "phase":    state.phase = phaseAdapter.read(in); break;
+                        case "win_team": state.winningTeam = teamAdapter.read(in); break;
+                        case "bomb":     state.bomb = bombAdapter.read(in); break;
+                        default:         in.skipValue();
+                    }
+                }
+                in.endObject();
+                return state;
+            };
+        }
+    }
+    
 }
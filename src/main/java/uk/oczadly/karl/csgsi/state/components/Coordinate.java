@@ -1,14 +1,15 @@
 package uk.oczadly.karl.csgsi.state.components;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
 import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import uk.oczadly.karl.csgsi.internal.CoordinateParser;
 
-import java.lang.reflect.Type;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
 
 /**
  * This class can be used to represent a set of 3 floating point values, labelled {@code X}, {@code Y} and {@code Z}.
@@ -80,21 +81,26 @@ public class Coordinate {
     
     
     
-    static class Deserializer implements JsonDeserializer<Coordinate> {
-        private static final Pattern PATTERN = Pattern.compile("^([-.0-9]+), ([-.0-9]+), ([-.0-9]+)$");
-        
+    /** Reads coordinate strings, while writing is delegated to Gson's reflective adapter */
+    static class Deserializer implements TypeAdapterFactory {
         @Override
-        public Coordinate deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-                throws JsonParseException {
-            Matcher matcher = PATTERN.matcher(json.getAsString());
-            if (matcher.matches()) {
-                return new Coordinate(
-                        Double.parseDouble(matcher.group(1)),
-                        Double.parseDouble(matcher.group(2)),
-                        Double.parseDouble(matcher.group(3)));
-            } else {
-                throw new JsonParseException("Invalid coordinate format.");
-            }
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != Coordinate.class)
+                return null;
+            TypeAdapter<T> writer = gson.getDelegateAdapter(this, type);
+            return new TypeAdapter<T>() {
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    @SuppressWarnings("unchecked")
+                    T coord = (T)CoordinateParser.parse(in.nextString());
+                    return coord;
+                }
+                
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    writer.write(out, value);
+                }
+            };
         }
     }
     
@@ -7,6 +7,7 @@ import com.google.gson.TypeAdapterFactory;
 import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import uk.oczadly.karl.csgsi.internal.Util;
 
@@ -16,6 +17,8 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
 
 /**
@@ -26,11 +29,14 @@ import java.util.function.Consumer;
  * where the originally returned value could not be parsed as an enum constant (resulting in a null enum value), the
  * {@link #getString()} value will return the raw serialized value received from the game client.
  *
+ * Instances are immutable. Values deserialized by Gson (or created through {@link #of(String, Class, Gson)}) are
+ * cached per enum type, so the same raw string will typically return the same instance.
+ *
  * @param <E> the enum class
  *
  * @see #get()
  */
-@JsonAdapter(EnumValue.DeserializerFactory.class)
+@JsonAdapter(value = EnumValue.DeserializerFactory.class, nullSafe = false) // Null-safe itself, to allow caching
 public class EnumValue<E> {
     
     private final E enumVal;
@@ -119,7 +125,15 @@ public class EnumValue<E> {
      * @return an {@link EnumValue} containing the object
      */
     public static <T> EnumValue<T> of(String strVal, Class<T> clazz, Gson gson) {
-        return of(strVal, gson.getAdapter(clazz));
+        @SuppressWarnings("unchecked")
+        TypeAdapter<EnumValue<T>> adapter = (TypeAdapter<EnumValue<T>>)gson.getAdapter(
+                TypeToken.getParameterized(EnumValue.class, clazz));
+        if (adapter instanceof DeserializerFactory.Deserializer) {
+            @SuppressWarnings("unchecked")
+            DeserializerFactory.Deserializer<T> deserializer = (DeserializerFactory.Deserializer<T>)adapter;
+            return deserializer.valueOf(strVal);
+        }
+        return of(strVal, gson.getAdapter(clazz)); // Custom EnumValue adapter registered
     }
     
     private static <T> EnumValue<T> of(String strVal, TypeAdapter<T> adapter) {
@@ -144,8 +158,12 @@ public class EnumValue<E> {
             return null;
         }
     
-        static class Deserializer<E extends Enum<E>> extends TypeAdapter<EnumValue<E>> {
-            TypeAdapter<E> enumAdapter;
+        static class Deserializer<E> extends TypeAdapter<EnumValue<E>> {
+            /** Maximum number of cached values per enum type, so unexpected strings cannot grow the cache forever */
+            static final int MAX_CACHE_SIZE = 256;
+            
+            final TypeAdapter<E> enumAdapter;
+            private final ConcurrentMap<String, EnumValue<E>> cache = new ConcurrentHashMap<>();
         
             Deserializer(TypeAdapter<E> enumAdapter) {
                 this.enumAdapter = enumAdapter;
@@ -154,12 +172,31 @@ public class EnumValue<E> {
         
             @Override
             public EnumValue<E> read(JsonReader in) throws IOException {
-                return of(in.nextString(), enumAdapter);
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+                return valueOf(in.nextString());
+            }
+            
+            /** Returns the cached value for the raw string, creating it if absent */
+            EnumValue<E> valueOf(String strVal) {
+                EnumValue<E> val = cache.get(strVal);
+                if (val == null) {
+                    val = of(strVal, enumAdapter);
+                    if (cache.size() < MAX_CACHE_SIZE) {
+                        EnumValue<E> existing = cache.putIfAbsent(strVal, val);
+                        if (existing != null) val = existing;
+                    }
+                }
+                return val;
             }
         
             @Override
             public void write(JsonWriter out, EnumValue<E> value) throws IOException {
-                if (value.isResolved()) {
+                if (value == null) {
+                    out.nullValue();
+                } else if (value.isResolved()) {
                     enumAdapter.write(out, value.get());
                 } else {
                     out.value(value.getString());
@@ -1,14 +1,13 @@
 package uk.oczadly.karl.csgsi.state.components;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
 
-import java.lang.reflect.Type;
 import java.util.*;
 
 /**
@@ -17,7 +16,7 @@ import java.util.*;
  *
  * @author Karl Oczadly
  */
-@com.google.gson.annotations.JsonAdapter(PlayerInventory.JsonAdapter.class)
+@JsonAdapter(PlayerInventory.Adapter.class)
 public class PlayerInventory {
     
     private final List<ItemDetails> items;
@@ -25,27 +24,40 @@ public class PlayerInventory {
     private Collection<ItemDetails> utilities;
     
     
-    private PlayerInventory(List<ItemDetails> items) {
-        this.items = Collections.unmodifiableList(items);
-        
-        // Determine helper values
-        List<ItemDetails> utilities = new ArrayList<>();
-        for (ItemDetails item : items) {
-            if (activeWeapon == null && (item.getState().get() == WeaponState.ACTIVE
-                    || item.getState().get() == WeaponState.RELOADING))
+    /**
+     * @param slots  the items indexed by slot number, which may contain gaps (null elements)
+     * @param length the number of used elements in {@code slots}
+     * @param count  the number of non-null elements in {@code slots}
+     */
+    private PlayerInventory(ItemDetails[] slots, int length, int count) {
+        // Compact the slots and determine helper values in a single pass
+        ItemDetails[] items = count == slots.length ? slots : new ItemDetails[count];
+        List<ItemDetails> utilities = null;
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            ItemDetails item = slots[i];
+            if (item == null) continue;
+            items[n++] = item;
+            
+            WeaponState state = item.getState() != null ? item.getState().get() : null;
+            if (activeWeapon == null && (state == WeaponState.ACTIVE || state == WeaponState.RELOADING))
                 activeWeapon = item;
-            if (knifeSlot == null && item.getType() != null && item.getType().get() == Weapon.Type.KNIFE)
-                knifeSlot = item;
             if (item.getType() != null && item.getType().isResolved()) {
-                if (primarySlot == null && item.getType().get().isPrimaryWeapon())
+                Weapon.Type type = item.getType().get();
+                if (knifeSlot == null && type == Weapon.Type.KNIFE)
+                    knifeSlot = item;
+                if (primarySlot == null && type.isPrimaryWeapon())
                     primarySlot = item;
-                if (secondarySlot == null && item.getType().get().isSecondaryWeapon())
+                if (secondarySlot == null && type.isSecondaryWeapon())
                     secondarySlot = item;
-                if (item.getType().get().isUtility())
+                if (type.isUtility()) {
+                    if (utilities == null) utilities = new ArrayList<>(4);
                     utilities.add(item);
+                }
             }
         }
-        this.utilities = Collections.unmodifiableList(utilities);
+        this.items = Collections.unmodifiableList(Arrays.asList(items));
+        this.utilities = utilities != null ? Collections.unmodifiableList(utilities) : Collections.emptyList();
     }
     
     
@@ -146,6 +158,7 @@ public class PlayerInventory {
     
     
     
+    @JsonAdapter(ItemDetails.Adapter.class)
     public static class ItemDetails {
         @Expose @SerializedName("name")
         private EnumValue<Weapon> weapon;
@@ -262,6 +275,40 @@ public class PlayerInventory {
                     ", state=" + getState() +
                     '}';
         }
+        
+        
+        static class Adapter extends StateAdapterFactory<ItemDetails> {
+            Adapter() {
+                super(ItemDetails.class);
+            }
+            
+            @Override
+            protected ObjectReader<ItemDetails> createReader(Gson gson) {
+                TypeAdapter<EnumValue<Weapon>> weaponAdapter = gson.getAdapter(new TypeToken<EnumValue<Weapon>>() {});
+                TypeAdapter<EnumValue<Weapon.Type>> typeAdapter =
+                        gson.getAdapter(new TypeToken<EnumValue<Weapon.Type>>() {});
+                TypeAdapter<EnumValue<WeaponState>> stateAdapter =
+                        gson.getAdapter(new TypeToken<EnumValue<WeaponState>>() {});
+                return in -> {
+                    ItemDetails item = new ItemDetails();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        switch (in.nextName()) {
+                            case "name":          item.weapon = weaponAdapter.read(in); break;
+                            case "paintkit":      item.skin = nextPooledString(in); break;
+                            case "type":          item.weaponType = typeAdapter.read(in); break;
+                            case "ammo_clip":     item.ammoClip = nextInt(in, item.ammoClip); break;
+                            case "ammo_clip_max": item.maxAmmoClip = nextInteger(in); break;
+                            case "ammo_reserve":  item.ammoReserve = nextInteger(in); break;
+                            case "state":         item.state = stateAdapter.read(in); break;
+                            default:              in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    return item;
+                };
+            }
+        }
     }
     
     public enum WeaponState {
@@ -277,20 +324,55 @@ public class PlayerInventory {
     
     
     
-    static class JsonAdapter implements JsonDeserializer<PlayerInventory> {
+    /**
+     * Reads the weapons object directly into an array indexed by the {@code N} of each {@code weapon_N} key. Gaps in
+     * the slot numbering are skipped, and any items with an unexpected key are placed after the indexed slots.
+     */
+    static class Adapter extends StateAdapterFactory<PlayerInventory> {
+        private static final String KEY_PREFIX = "weapon_";
+        private static final int MAX_SLOTS = 64;
+        
+        Adapter() {
+            super(PlayerInventory.class);
+        }
+        
         @Override
-        public PlayerInventory deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-                throws JsonParseException {
-            // Fetch map of weapons
-            Map<String, ItemDetails> map = context.deserialize(json,
-                    new TypeToken<HashMap<String, ItemDetails>>() {}.getType());
-            
-            // Add to list (in order)
-            List<ItemDetails> list = new ArrayList<>(map.size());
-            for (int i=0; i<map.size(); i++) {
-                list.add(map.get("weapon_" + i));
+        protected ObjectReader<PlayerInventory> createReader(Gson gson) {
+            TypeAdapter<ItemDetails> itemAdapter = gson.getAdapter(ItemDetails.class);
+            return in -> {
+                ItemDetails[] slots = new ItemDetails[8];
+                int count = 0, length = 0, unindexed = 0;
+                in.beginObject();
+                while (in.hasNext()) {
+                    int index = parseSlotIndex(in.nextName());
+                    ItemDetails item = itemAdapter.read(in);
+                    if (item == null) continue;
+                    if (index == -1)
+                        index = MAX_SLOTS + unindexed++; // Append after all indexed slots
+                    if (index >= slots.length)
+                        slots = Arrays.copyOf(slots, Math.max(index + 1, slots.length * 2));
+                    if (slots[index] == null) count++;
+                    slots[index] = item;
+                    length = Math.max(length, index + 1);
+                }
+                in.endObject();
+                return new PlayerInventory(slots, length, count);
+            };
+        }
+        
+        /** Returns the slot index of a {@code weapon_N} key, or -1 if not in the expected format */
+        static int parseSlotIndex(String key) {
+            int len = key.length();
+            if (len == KEY_PREFIX.length() || len > KEY_PREFIX.length() + 2 || !key.startsWith(KEY_PREFIX))
+                return -1;
+            int index = 0;
+            for (int i = KEY_PREFIX.length(); i < len; i++) {
+                char c = key.charAt(i);
+                if (c < '0' || c > '9')
+                    return -1;
+                index = index * 10 + (c - '0');
             }
-            return new PlayerInventory(list);
+            return index < MAX_SLOTS ? index : -1;
         }
     }
     
@@ -1,12 +1,11 @@
 package uk.oczadly.karl.csgsi.state.components;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -130,11 +129,15 @@ public final class PlayerSteamID {
     
     
     
-    static class Deserializer implements JsonDeserializer<PlayerSteamID> {
+    static class Deserializer extends TypeAdapter<PlayerSteamID> {
         @Override
-        public PlayerSteamID deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-                throws JsonParseException {
-            return fromId64(json.getAsString());
+        public PlayerSteamID read(JsonReader in) throws IOException {
+            return fromId64(in.nextString());
+        }
+        
+        @Override
+        public void write(JsonWriter out, PlayerSteamID value) throws IOException {
+            out.value(value.getAsID64());
         }
     }
     
@@ -1,12 +1,12 @@
 package uk.oczadly.karl.csgsi.state.components;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -140,11 +140,15 @@ public enum Weapon {
     }
     
     
-    static class WeaponDeserializer implements JsonDeserializer<Weapon> {
+    static class WeaponDeserializer extends TypeAdapter<Weapon> {
         @Override
-        public Weapon deserialize(JsonElement json, java.lang.reflect.Type typeOfT, JsonDeserializationContext context)
-                throws JsonParseException {
-            return valueOfFromName(json.getAsString());
+        public Weapon read(JsonReader in) throws IOException {
+            return valueOfFromName(in.nextString());
+        }
+        
+        @Override
+        public void write(JsonWriter out, Weapon value) throws IOException {
+            out.value(value.getName());
         }
     }
     
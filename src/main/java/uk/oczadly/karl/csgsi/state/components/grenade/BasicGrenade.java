@@ -15,6 +15,15 @@ public class BasicGrenade implements Grenade {
     @Expose private double lifetime;
     
     
+    public BasicGrenade() {}
+    
+    BasicGrenade(GrenadeAdapter.Fields fields) {
+        this.type = fields.type;
+        this.owner = fields.owner;
+        this.lifetime = fields.lifetime;
+    }
+    
+    
     @Override
     public final EnumValue<Type> getType() {
         return type;
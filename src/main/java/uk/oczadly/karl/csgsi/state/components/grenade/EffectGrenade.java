@@ -11,6 +11,15 @@ public class EffectGrenade extends ProjectileGrenade {
     @Expose @SerializedName("effecttime")
     private double effectTime;
     
+    
+    public EffectGrenade() {}
+    
+    EffectGrenade(GrenadeAdapter.Fields fields) {
+        super(fields);
+        this.effectTime = fields.effectTime;
+    }
+    
+    
     /**
      * @return the number of seconds the effect has been active for
      */
@@ -1,10 +1,7 @@
 package uk.oczadly.karl.csgsi.state.components.grenade;
 
-import com.google.gson.*;
-import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
-import uk.oczadly.karl.csgsi.internal.Util;
 import uk.oczadly.karl.csgsi.state.components.EnumValue;
 import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
 
@@ -18,7 +15,7 @@ import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
  *     <li>{@link IncendiaryGrenade}</li>
  * </ul>
  */
-@JsonAdapter(Grenade.Adapter.class)
+@JsonAdapter(GrenadeAdapter.class)
 public interface Grenade {
     
     /**
@@ -66,18 +63,4 @@ public interface Grenade {
         }
     }
     
-    
-    static class Adapter implements JsonDeserializer<Grenade> {
-        @Override
-        public Grenade deserialize(JsonElement json, java.lang.reflect.Type typeOfT,
-                                   JsonDeserializationContext context) throws JsonParseException {
-            JsonObject obj = json.getAsJsonObject();
-            EnumValue<Grenade.Type> gType = EnumValue.of(
-                    obj.get("type").getAsString(), Grenade.Type.class, Util.GSON);
-            Class<? extends Grenade> classType = gType.isResolved()
-                    ? gType.get().getObjectClass() : BasicGrenade.class;
-            return context.deserialize(obj, classType);
-        }
-    }
-    
 }
@@ -0,0 +1,123 @@
+package uk.oczadly.karl.csgsi.state.components.grenade;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import uk.oczadly.karl.csgsi.internal.CoordinateParser;
+import uk.oczadly.karl.csgsi.internal.StateAdapterFactory;
+import uk.oczadly.karl.csgsi.state.components.Coordinate;
+import uk.oczadly.karl.csgsi.state.components.EnumValue;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads each grenade in a single pass, dispatching on the raw {@code type} string to construct the concrete
+ * {@link Grenade} class.
+ *
+ * <p>As the game client sends the {@code type} member after most of the other members, the members of all grenade
+ * types are read into a {@link Fields} object before the grenade is constructed from the dispatch table.</p>
+ */
+final class GrenadeAdapter extends StateAdapterFactory<Grenade> {
+    
+    GrenadeAdapter() {
+        super(Grenade.class);
+    }
+    
+    
+    @Override
+    protected ObjectReader<Grenade> createReader(Gson gson) {
+        TypeAdapter<EnumValue<Grenade.Type>> typeAdapter =
+                gson.getAdapter(new TypeToken<EnumValue<Grenade.Type>>() {});
+        TypeAdapter<Grenade.Type> enumAdapter = gson.getAdapter(Grenade.Type.class);
+        TypeAdapter<PlayerSteamID> ownerAdapter = gson.getAdapter(PlayerSteamID.class);
+        TypeAdapter<Coordinate> coordAdapter = gson.getAdapter(Coordinate.class);
+        
+        // Build dispatch table from raw type string
+        Map<String, Function<Fields, Grenade>> dispatch = new HashMap<>();
+        for (Grenade.Type type : Grenade.Type.values())
+            dispatch.put(enumAdapter.toJsonTree(type).getAsString(), constructorOf(type.getObjectClass()));
+        
+        return in -> {
+            Fields fields = new Fields();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type":       fields.type = typeAdapter.read(in); break;
+                    case "owner":      fields.owner = ownerAdapter.read(in); break;
+                    case "lifetime":   fields.lifetime = nextDouble(in, fields.lifetime); break;
+                    case "position":   fields.position = coordAdapter.read(in); break;
+                    case "velocity":   fields.velocity = coordAdapter.read(in); break;
+                    case "effecttime": fields.effectTime = nextDouble(in, fields.effectTime); break;
+                    case "flames":     readFlames(in, fields); break;
+                    default:           in.skipValue();
+                }
+            }
+            in.endObject();
+            Function<Fields, Grenade> constructor = fields.type != null
+                    ? dispatch.get(fields.type.getString()) : null;
+            return constructor != null ? constructor.apply(fields) : new BasicGrenade(fields);
+        };
+    }
+    
+    
+    private static Function<Fields, Grenade> constructorOf(Class<? extends Grenade> clazz) {
+        if (clazz == IncendiaryGrenade.class) return IncendiaryGrenade::new;
+        if (clazz == EffectGrenade.class) return EffectGrenade::new;
+        if (clazz == ProjectileGrenade.class) return ProjectileGrenade::new;
+        return BasicGrenade::new;
+    }
+    
+    private static double nextDouble(JsonReader in, double current) throws IOException {
+        Double val = nextDouble(in);
+        return val != null ? val : current;
+    }
+    
+    /** Reads the flames object into the packed coordinate array */
+    private static void readFlames(JsonReader in, Fields fields) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+        String[] ids = new String[8];
+        double[] coords = new double[ids.length * 3];
+        int count = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String id = in.nextName();
+            String coord = nextString(in);
+            if (coord == null) continue;
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                coords = Arrays.copyOf(coords, count * 6);
+            }
+            ids[count] = id;
+            CoordinateParser.parse(coord, coords, count * 3);
+            count++;
+        }
+        in.endObject();
+        fields.flameIds = count == ids.length ? ids : Arrays.copyOf(ids, count);
+        fields.flameCoords = count * 3 == coords.length ? coords : Arrays.copyOf(coords, count * 3);
+    }
+    
+    
+    /** The union of the members of all grenade types */
+    static final class Fields {
+        private static final String[] NO_FLAME_IDS = new String[0];
+        private static final double[] NO_FLAME_COORDS = new double[0];
+        
+        EnumValue<Grenade.Type> type;
+        PlayerSteamID owner;
+        double lifetime, effectTime;
+        Coordinate position, velocity;
+        String[] flameIds = NO_FLAME_IDS;
+        double[] flameCoords = NO_FLAME_COORDS;
+    }
+    
+}
@@ -1,21 +1,31 @@
 package uk.oczadly.karl.csgsi.state.components.grenade;
 
-import com.google.gson.annotations.Expose;
 import uk.oczadly.karl.csgsi.state.components.Coordinate;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Represents a set of flames on the ground, from a thrown molotov or incendiary grenade.
+ *
+ * <p>The flame positions are stored in a packed array of {@code x, y, z} values, and are only wrapped in
+ * {@link Coordinate} objects when requested.</p>
  */
 public class IncendiaryGrenade extends BasicGrenade {
     
-    @Expose private Map<String, Coordinate> flames;
-    private volatile Coordinate approxPos = null;
-    private volatile double approxSize = 0;
+    private final String[] flameIds;
+    private final double[] flameCoords; // Packed x, y, z values of each flame
+    private final FlameSummary summary;
+    private volatile Map<String, Coordinate> flames;
+    
+    IncendiaryGrenade(GrenadeAdapter.Fields fields) {
+        super(fields);
+        this.flameIds = fields.flameIds;
+        this.flameCoords = fields.flameCoords;
+        this.summary = FlameSummary.of(flameCoords);
+    }
     
-    private IncendiaryGrenade() {}
     
     /**
      * Returns a map of all the individual flames. The key is a unique identifier of the flame, and the value is the
@@ -24,47 +34,181 @@ public class IncendiaryGrenade extends BasicGrenade {
      * @return the flames from this grenade
      */
     public Map<String, Coordinate> getFlames() {
-        return Collections.unmodifiableMap(flames);
+        Map<String, Coordinate> flames = this.flames;
+        if (flames == null) {
+            Map<String, Coordinate> map = new LinkedHashMap<>();
+            for (int i = 0; i < flameIds.length; i++)
+                map.put(flameIds[i], getFlamePosition(i));
+            this.flames = flames = Collections.unmodifiableMap(map);
+        }
+        return flames;
+    }
+    
+    /**
+     * @return the number of individual flames
+     */
+    public int getFlameCount() {
+        return flameIds.length;
     }
     
     /**
-     * @return the <em>approximate</em> position of the flames
+     * Returns the position of a single flame, without creating the map of {@link #getFlames()}.
+     *
+     * @param index the index of the flame, between 0 (inclusive) and {@link #getFlameCount()} (exclusive)
+     * @return the position of the flame
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Coordinate getFlamePosition(int index) {
+        if (index < 0 || index >= flameIds.length)
+            throw new IndexOutOfBoundsException("Flame index out of range.");
+        int i = index * 3;
+        return new Coordinate(flameCoords[i], flameCoords[i + 1], flameCoords[i + 2]);
+    }
+    
+    /**
+     * Returns a spatial summary of the flames, which is computed once when the grenade is deserialized.
+     *
+     * @return the summary of the flame positions, or null if there are no flames
+     */
+    public FlameSummary getSummary() {
+        return summary;
+    }
+    
+    /**
+     * @return the <em>approximate</em> position of the flames (the center of their bounding box), or null if there
+     *         are no flames
+     * @see #getSummary()
      */
     public Coordinate getApproxPosition() {
-        calcApproxVals();
-        return approxPos;
+        return summary != null ? summary.getBoundsCenter() : null;
     }
     
     /**
-     * @return the <em>approximate</em> size of the flames, in units
+     * @return the <em>approximate</em> size of the flames (the largest horizontal dimension of their bounding box,
+     *         plus the width of a single flame), in units
+     * @see #getSummary()
      */
     public double getApproxSize() {
-        calcApproxVals();
-        return approxSize;
+        if (summary == null)
+            return 0;
+        return Math.max(summary.getMax().getX() - summary.getMin().getX(),
+                summary.getMax().getY() - summary.getMin().getY()) + FlameSummary.FLAME_WIDTH;
     }
     
-    private void calcApproxVals() {
-        if (this.approxPos == null && !flames.isEmpty()) {
-            synchronized (this) {
-                double minX = Double.MAX_VALUE, maxX = Double.MIN_VALUE,
-                        minY = Double.MAX_VALUE, maxY = Double.MIN_VALUE,
-                        minZ = Double.MAX_VALUE, maxZ = Double.MIN_VALUE;
-                for (Coordinate c : flames.values()) {
-                    minX = Math.min(c.getX(), minX);
-                    maxX = Math.max(c.getX(), minX);
-                    minY = Math.min(c.getY(), minY);
-                    maxY = Math.max(c.getY(), minY);
-                    minZ = Math.min(c.getZ(), minZ);
-                    maxZ = Math.max(c.getZ(), minZ);
-                }
-                // Approx pos = center of outer boundaries
-                this.approxPos = new Coordinate(
-                        minX + ((maxX - minX) / 2),
-                        minY + ((maxY - minY) / 2),
-                        minZ + ((maxZ - minZ) / 2));
-                // Approx size = diameter of boundaries
-                this.approxSize = Math.max(maxX - minX, maxY - minY) + 32;
+    
+    /**
+     * An immutable spatial summary of a set of flames.
+     */
+    public static final class FlameSummary {
+        /** The approximate width of a single flame, in units. */
+        static final double FLAME_WIDTH = 32;
+        
+        private final int count;
+        private final Coordinate min, max, centroid;
+        private final double hullRadius;
+        
+        private FlameSummary(int count, Coordinate min, Coordinate max, Coordinate centroid, double hullRadius) {
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.centroid = centroid;
+            this.hullRadius = hullRadius;
+        }
+        
+        
+        /**
+         * @return the number of flames
+         */
+        public int getCount() {
+            return count;
+        }
+        
+        /**
+         * @return the minimum corner of the bounding box
+         */
+        public Coordinate getMin() {
+            return min;
+        }
+        
+        /**
+         * @return the maximum corner of the bounding box
+         */
+        public Coordinate getMax() {
+            return max;
+        }
+        
+        /**
+         * @return the center of the bounding box
+         */
+        public Coordinate getBoundsCenter() {
+            return new Coordinate((min.getX() + max.getX()) / 2, (min.getY() + max.getY()) / 2,
+                    (min.getZ() + max.getZ()) / 2);
+        }
+        
+        /**
+         * @return the centroid (mean position) of the flames
+         */
+        public Coordinate getCentroid() {
+            return centroid;
+        }
+        
+        /**
+         * Returns the horizontal radius of the convex hull of the flames, measured from the centroid. This is the
+         * radius of the smallest circle around the {@link #getCentroid() centroid} on the {@code x, y} plane which
+         * contains the center of every flame.
+         *
+         * @return the radius of the flame cluster, in units
+         */
+        public double getHullRadius() {
+            return hullRadius;
+        }
+        
+        @Override
+        public String toString() {
+            return "FlameSummary{" +
+                    "count=" + count +
+                    ", min=" + min +
+                    ", max=" + max +
+                    ", centroid=" + centroid +
+                    ", hullRadius=" + hullRadius + '}';
+        }
+        
+        
+        /**
+         * Computes the summary of a packed array of {@code x, y, z} flame positions.
+         *
+         * @param coords the packed positions
+         * @return the summary, or null if the array is empty
+         */
+        static FlameSummary of(double[] coords) {
+            int count = coords.length / 3;
+            if (count == 0)
+                return null;
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            double sumX = 0, sumY = 0, sumZ = 0;
+            for (int i = 0; i < count * 3; i += 3) {
+                double x = coords[i], y = coords[i + 1], z = coords[i + 2];
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                minZ = Math.min(minZ, z);
+                maxZ = Math.max(maxZ, z);
+                sumX += x;
+                sumY += y;
+                sumZ += z;
+            }
+            double cx = sumX / count, cy = sumY / count;
+            
+            // The furthest point from any interior point is always a vertex of the convex hull
+            double maxDistSq = 0;
+            for (int i = 0; i < count * 3; i += 3) {
+                double dx = coords[i] - cx, dy = coords[i + 1] - cy;
+                maxDistSq = Math.max(maxDistSq, dx * dx + dy * dy);
             }
+            return new FlameSummary(count, new Coordinate(minX, minY, minZ), new Coordinate(maxX, maxY, maxZ),
+                    new Coordinate(cx, cy, sumZ / count), Math.sqrt(maxDistSq));
         }
     }
     
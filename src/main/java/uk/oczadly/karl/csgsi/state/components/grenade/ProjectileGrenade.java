@@ -12,6 +12,15 @@ public class ProjectileGrenade extends BasicGrenade {
     @Expose private Coordinate velocity;
     
     
+    public ProjectileGrenade() {}
+    
+    ProjectileGrenade(GrenadeAdapter.Fields fields) {
+        super(fields);
+        this.position = fields.position;
+        this.velocity = fields.velocity;
+    }
+    
+    
     /**
      * @return the current position on the map
      */
@@ -2,9 +2,13 @@ package uk.oczadly.karl.csgsi;
 
 import com.google.gson.JsonObject;
 import org.junit.Test;
+import uk.oczadly.karl.csgsi.config.DataComponent;
+import uk.oczadly.karl.csgsi.internal.httpserver.HTTPServerConfig;
 import uk.oczadly.karl.csgsi.state.GameState;
 
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -90,6 +94,326 @@ public class GSIServerTest {
         assertFalse("Observer was notified despite invalid auth", checkAuthValidation(expectedTokens));
     }
     
+    @Test
+    public void testAuthRejectedBeforeParsing() {
+        MockListener observer = new MockListener();
+        GSIServer server = new GSIServer.Builder(1337)
+                .requireAuthToken("token1", "abc123")
+                .acknowledgeBeforeProcessing(4, QueueOverflowPolicy.DROP_NEWEST)
+                .registerListener(observer).build();
+        // Rejected synchronously, without queueing or parsing the remainder
+        server.handleStateUpdate("{\"auth\": {\"token1\": \"abc124\"}, \"map\": {[[", "/", ADDRESS);
+        server.handleStateUpdate("{\"map\": {}}", "/", ADDRESS);
+        assertEquals(2, server.stats.stateRejectCounter.get());
+        assertEquals(0, server.pipeline.size());
+        assertFalse(observer.called);
+    }
+    
+    @Test
+    public void testRawJsonFromBytes() {
+        MockListener observer = new MockListener();
+        GSIServer server = new GSIServer.Builder(1337).registerListener(observer).build();
+        String json = "{\"provider\": {\"name\": \"Caf\u00e9\"}}";
+        server.handleStateUpdate(json.getBytes(StandardCharsets.UTF_8), "/", ADDRESS);
+        
+        assertTrue(observer.called);
+        assertEquals("Caf\u00e9", observer.context.getRawJsonObject()
+                .getAsJsonObject("provider").get("name").getAsString());
+        assertEquals(json, observer.context.getRawJsonString());
+        assertSame(observer.context.getRawJsonString(), observer.context.getRawJsonString());
+        assertSame(observer.context.getRawJsonObject(), observer.context.getRawJsonObject());
+        assertEquals("Caf\u00e9", observer.state.getProvider().get().getName());
+    }
+    
+    @Test
+    public void testUnchangedSectionsShared() {
+        MockListener observer = new MockListener();
+        GSIServer server = new GSIServer.Builder(1337).registerListener(observer).build();
+        server.handleStateUpdate(StatePayloads.spectatorState(null), "/", ADDRESS);
+        server.handleStateUpdate(StatePayloads.spectatorState(null), "/", ADDRESS);
+        
+        GameState previous = observer.context.getPreviousState().get();
+        assertNotSame(previous, observer.state);
+        assertSame(previous.getMap().get(), observer.state.getMap().get());
+        assertSame(previous.getAllPlayers().get(), observer.state.getAllPlayers().get());
+    }
+    
+    @Test
+    public void testInterestFilteredListeners() {
+        checkInterestFiltering(new GSIServer.Builder(1337).build());
+        checkInterestFiltering(new GSIServer.Builder(1337).useLazyStateParsing().build());
+    }
+    
+    private void checkInterestFiltering(GSIServer server) {
+        MockListener all = new MockListener(), map = new MockListener(), bomb = new MockListener();
+        server.registerListener(all);
+        server.registerListener(map, DataComponent.MAP_ROUND_WINS);
+        server.registerListener(bomb, GameStateDiff.Section.BOMB);
+        String payload = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8);
+        String roundChanged = payload.replace("\"round\": 2,", "\"round\": 3,");
+        
+        server.handleStateUpdate(payload, "/", ADDRESS); // First state
+        assertTrue(all.called && map.called && bomb.called);
+        
+        all.called = map.called = bomb.called = false;
+        server.handleStateUpdate(payload, "/", ADDRESS); // Unchanged
+        assertTrue(all.called);
+        assertFalse(map.called || bomb.called);
+        
+        all.called = map.called = bomb.called = false;
+        server.handleStateUpdate(roundChanged, "/", ADDRESS);
+        assertTrue(all.called && map.called);
+        assertFalse(bomb.called);
+        assertEquals(3, map.context.getSequentialCounter());
+    }
+    
+    @Test
+    public void testDuplicateSuppression() throws Exception {
+        MockListener observer = new MockListener();
+        GSIServer server = new GSIServer.Builder(1337).suppressDuplicateStates().registerListener(observer).build();
+        String payload = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8);
+        String heartbeat = payload.replace("1600000000", "1600000010");
+        InetAddress other = InetAddress.getByName("192.168.0.2");
+        
+        server.handleStateUpdate(payload, "/", ADDRESS);
+        server.handleStateUpdate(heartbeat, "/", ADDRESS); // Suppressed
+        assertEquals(1, server.stats.stateCounter.get());
+        assertEquals(1, server.stats.stateDuplicateCounter.get());
+        
+        server.handleStateUpdate(heartbeat, "/", other); // Different client
+        server.handleStateUpdate(heartbeat, "/other", ADDRESS); // Different path
+        server.handleStateUpdate(payload.replace("\"round\": 2,", "\"round\": 3,"), "/other", ADDRESS);
+        server.handleStateUpdate(payload, "/other", ADDRESS); // Only compared against the latest state
+        assertEquals(5, server.stats.stateCounter.get());
+        assertEquals(1, server.stats.stateDuplicateCounter.get());
+        assertEquals(5, observer.context.getSequentialCounter());
+        
+        server.handleStateUpdate("{\"map\": {", "/", ADDRESS); // Invalid
+        assertEquals(5, server.stats.stateCounter.get());
+        
+        // Disabled by default
+        GSIServer unsuppressed = new GSIServer.Builder(1337).build();
+        unsuppressed.handleStateUpdate(payload, "/", ADDRESS);
+        unsuppressed.handleStateUpdate(heartbeat, "/", ADDRESS);
+        assertEquals(2, unsuppressed.stats.stateCounter.get());
+        assertEquals(0, unsuppressed.stats.stateDuplicateCounter.get());
+    }
+    
+    @Test
+    public void testDuplicateSuppressionPerPath() {
+        GSIServer server = new GSIServer.Builder(1337).suppressDuplicateStates().build();
+        String payload = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8);
+        String heartbeat = payload.replace("1600000000", "1600000010");
+        
+        // Same client alternating between two paths
+        server.handleStateUpdate(payload, "/a", ADDRESS);
+        server.handleStateUpdate(payload, "/b", ADDRESS);
+        server.handleStateUpdate(heartbeat, "/a", ADDRESS);
+        server.handleStateUpdate(heartbeat, "/b", ADDRESS);
+        assertEquals(2, server.stats.stateCounter.get());
+        assertEquals(2, server.stats.stateDuplicateCounter.get());
+    }
+    
+    @Test
+    public void testDuplicateSuppressionWhileQueued() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1), release = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(2);
+        GSIServer server = new GSIServer.Builder(1337)
+                .suppressDuplicateStates()
+                .acknowledgeBeforeProcessing(4, QueueOverflowPolicy.DROP_NEWEST)
+                .registerListener((state, context) -> {
+                    entered.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {}
+                    processed.countDown();
+                }).build();
+        String payload = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8);
+        String queued = payload.replace("\"round\": 2,", "\"round\": 3,");
+        server.pipeline.start();
+        try {
+            server.handleStateUpdate(payload, "/", ADDRESS);
+            assertTrue(entered.await(1, TimeUnit.SECONDS)); // Worker is busy processing the first state
+            server.handleStateUpdate(queued, "/", ADDRESS);
+            server.handleStateUpdate(queued.replace("1600000000", "1600000010"), "/", ADDRESS); // Suppressed
+            assertEquals(1, server.pipeline.size());
+            assertEquals(1, server.stats.stateDuplicateCounter.get());
+            release.countDown();
+            assertTrue(processed.await(1, TimeUnit.SECONDS));
+            assertEquals(2, server.stats.stateCounter.get());
+        } finally {
+            release.countDown();
+            server.pipeline.stop();
+        }
+    }
+    
+    @Test
+    public void testDuplicateSuppressionAfterInvalidState() {
+        GSIServer server = new GSIServer.Builder(1337).suppressDuplicateStates().build();
+        String payload = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8);
+        String invalid = payload.replace("\"de_mirage\"", "[1, 2]"); // Valid JSON, but invalid map name
+        server.handleStateUpdate(payload, "/", ADDRESS);
+        server.handleStateUpdate(invalid, "/", ADDRESS);
+        assertEquals(1, server.stats.stateCounter.get());
+        
+        // Compared against the last valid state
+        server.handleStateUpdate(payload.replace("1600000000", "1600000010"), "/", ADDRESS);
+        assertEquals(1, server.stats.stateDuplicateCounter.get());
+        assertEquals(1, server.stats.stateCounter.get());
+    }
+    
+    @Test
+    public void testDuplicateSuppressionAfterDroppedState() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1), release = new CountDownLatch(1);
+        CountDownLatch queued = new CountDownLatch(2), processed = new CountDownLatch(3);
+        GSIServer server = new GSIServer.Builder(1337)
+                .suppressDuplicateStates()
+                .acknowledgeBeforeProcessing(1, QueueOverflowPolicy.DROP_NEWEST)
+                .registerListener((state, context) -> {
+                    entered.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {}
+                    queued.countDown();
+                    processed.countDown();
+                }).build();
+        String payload = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8);
+        String dropped = payload.replace("de_mirage", "de_dust2");
+        server.pipeline.start();
+        try {
+            server.handleStateUpdate(payload, "/", ADDRESS);
+            assertTrue(entered.await(1, TimeUnit.SECONDS)); // Worker is busy processing the first state
+            server.handleStateUpdate(payload.replace("\"round\": 2,", "\"round\": 3,"), "/", ADDRESS); // Queued
+            server.handleStateUpdate(dropped, "/", ADDRESS); // Queue is full
+            assertEquals(1, server.pipeline.droppedCounter.get());
+            release.countDown();
+            assertTrue(queued.await(1, TimeUnit.SECONDS));
+            
+            // Re-sent state was never processed, so is not a duplicate
+            server.handleStateUpdate(dropped.replace("1600000000", "1600000010"), "/", ADDRESS);
+            assertTrue(processed.await(1, TimeUnit.SECONDS));
+            assertEquals(0, server.stats.stateDuplicateCounter.get());
+            assertEquals(3, server.stats.stateCounter.get());
+        } finally {
+            release.countDown();
+            server.pipeline.stop();
+        }
+    }
+    
+    @Test
+    public void testBuilderConfigCopied() {
+        GSIServer.Builder builder = new GSIServer.Builder(1337);
+        GSIServer server = builder.build();
+        builder.enableKeepAlive(Duration.ofSeconds(5), 0).setMaxRequestBodySize(1024).useVirtualThreads();
+        assertFalse(server.server.getConfig().isKeepAliveEnabled());
+        assertFalse(server.server.getConfig().isVirtualThreads());
+        assertEquals(HTTPServerConfig.DEFAULT_MAX_BODY_SIZE, server.server.getConfig().getMaxBodySize());
+        assertTrue(builder.build().server.getConfig().isKeepAliveEnabled());
+    }
+    
+    @Test
+    public void testBuilderAuthTokensCopied() {
+        MockListener observer = new MockListener();
+        GSIServer.Builder builder = new GSIServer.Builder(1337).requireAuthToken("token1", "abc123");
+        GSIServer server = builder.registerListener(observer).build();
+        builder.requireAuthToken("token3", "ghi789");
+        assertEquals(Map.of("token1", "abc123"), server.getRequiredAuthTokens());
+        
+        server.handleStateUpdate(AUTH_TOKEN_JSON, "/", ADDRESS); // Only the reported tokens are enforced
+        assertTrue(observer.called);
+        assertEquals(Map.of("token1", "abc123", "token3", "ghi789"), builder.build().getRequiredAuthTokens());
+    }
+    
+    @Test
+    public void testKeepAliveSubMillisecondTimeout() {
+        GSIServer server = new GSIServer.Builder(1337).enableKeepAlive(Duration.ofNanos(500), 0).build();
+        assertTrue(server.server.getConfig().isKeepAliveEnabled());
+        assertEquals(1, server.server.getConfig().getKeepAliveTimeout());
+    }
+    
+    @Test
+    public void testAsynchronousDispatch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1), failed = new CountDownLatch(1);
+        GSIServer server = new GSIServer.Builder(1337)
+                .dispatchAsynchronously()
+                .setListenerTimeout(Duration.ofMillis(50))
+                .setListenerFailureHandler((listener, context, cause) -> failed.countDown())
+                .registerListener((state, context) -> {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {}
+                }).build();
+        try {
+            server.handleStateUpdate(StatePayloads.spectatorState(null), "/", ADDRESS); // Returns without waiting
+            assertEquals(1, server.stats.stateCounter.get());
+            assertTrue(failed.await(1, TimeUnit.SECONDS)); // Timed out
+        } finally {
+            release.countDown();
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidListenerTimeout() {
+        new GSIServer.Builder(1337).setListenerTimeout(Duration.ofSeconds(-1));
+    }
+    
+    @Test
+    public void testLazyStateParsing() {
+        MockListener observer = new MockListener();
+        GSIServer server = new GSIServer.Builder(1337)
+                .requireAuthToken("token", "secret")
+                .useLazyStateParsing()
+                .registerListener(observer).build();
+        server.handleStateUpdate(StatePayloads.spectatorState("secret"), "/", ADDRESS);
+        
+        assertTrue(observer.called);
+        assertEquals("de_mirage", observer.state.getMap().get().getName());
+        assertEquals(10, observer.state.getAllPlayers().get().size());
+        assertEquals(Map.of("token", "secret"), observer.context.getAuthTokens());
+        
+        // Invalid auth token
+        MockListener rejected = new MockListener();
+        server.registerListener(rejected);
+        server.handleStateUpdate(StatePayloads.spectatorState("wrong"), "/", ADDRESS);
+        assertFalse(rejected.called);
+        
+        // Malformed structure
+        server.handleStateUpdate("{\"map\": {".getBytes(StandardCharsets.UTF_8), "/", ADDRESS);
+        assertFalse(rejected.called);
+    }
+    
+    @Test
+    public void testInvalidJson() { // Ensure no exception
+        GSIServer server = new GSIServer.Builder(1337).build();
+        server.handleStateUpdate("[1, 2]", "/", ADDRESS);
+        server.handleStateUpdate("{\"unterminated\": ", "/", ADDRESS);
+        assertEquals(0, server.stats.stateCounter.get());
+    }
+    
+    @Test
+    public void testAcknowledgeBeforeProcessing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1), finished = new CountDownLatch(1);
+        GSIServer server = new GSIServer.Builder(InetAddress.getLoopbackAddress(), 1337)
+                .acknowledgeBeforeProcessing(4, QueueOverflowPolicy.DROP_NEWEST)
+                .registerListener((state, context) -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {}
+                    finished.countDown();
+                }).build();
+        server.pipeline.start();
+        try {
+            server.handleStateUpdate("{}", "/", ADDRESS); // Returns without waiting for the listener
+            assertEquals(1, finished.getCount());
+            release.countDown();
+            assertTrue(finished.await(OBSERVER_TIMEOUT, TimeUnit.MILLISECONDS));
+            assertEquals(1, server.stats.stateCounter.get());
+        } finally {
+            release.countDown();
+            server.pipeline.stop();
+        }
+    }
+    
     @Test
     public void testEmptyState() { //Ensure no exception
         new GSIServer.Builder(1337).build()
@@ -112,7 +436,7 @@ public class GSIServerTest {
         String uriPath = "/", jsonString = "{}";
         Instant i1 = Instant.ofEpochMilli(500), i2 = Instant.ofEpochMilli(200);
         GameStateContext context = new GameStateContext(
-                server, uriPath, previous, i1, i2, 43, address, authTokens, jsonObject, jsonString);
+                server, uriPath, state, previous, i1, i2, 43, address, authTokens, jsonObject, jsonString);
         
         // Notify observing object
         server.listeners.notify(state, context);
@@ -0,0 +1,149 @@
+package uk.oczadly.karl.csgsi;
+
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.config.DataComponent;
+import uk.oczadly.karl.csgsi.internal.LazyGameState;
+import uk.oczadly.karl.csgsi.internal.SnapshotGameState;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GameStateDiffTest {
+    
+    private static final String PAYLOAD = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8);
+    private static final PlayerSteamID PLAYER_3 = PlayerSteamID.fromId64("76561197960265733");
+    
+    
+    @Test
+    public void testUnchanged() {
+        SnapshotGameState first = parse(PAYLOAD, null);
+        GameStateDiff diff = GameStateDiff.compute(first, parse(PAYLOAD, first));
+        assertTrue(diff.isEmpty());
+        assertTrue(diff.getChangedPlayers().isEmpty());
+        assertTrue(diff.getFieldChanges().isEmpty());
+        
+        // Not shared, but equal
+        assertTrue(GameStateDiff.compute(parse(PAYLOAD, null), parse(PAYLOAD, null)).isEmpty());
+    }
+    
+    @Test
+    public void testFirstState() {
+        GameStateDiff diff = GameStateDiff.compute(null, parse(PAYLOAD, null));
+        assertEquals(EnumSet.allOf(GameStateDiff.Section.class), diff.getChangedSections());
+        assertEquals(10, diff.getAddedPlayers().size());
+        assertEquals(diff.getAddedPlayers(), diff.getChangedPlayers());
+        assertTrue(diff.getFieldChanges().isEmpty());
+    }
+    
+    @Test
+    public void testFieldChanges() {
+        SnapshotGameState first = parse(PAYLOAD, null);
+        SnapshotGameState second = parse(PAYLOAD
+                .replace("\"round\": 2,", "\"round\": 3,")
+                .replace("\"team_ct\": {\n      \"score\": 1,", "\"team_ct\": {\n      \"score\": 2,")
+                .replace("\"Player 3\"", "\"Player Three\"")
+                .replace("\"lifetime\": \"7.1\"", "\"lifetime\": \"7.2\""), first);
+        GameStateDiff diff = GameStateDiff.compute(first, second);
+        
+        assertEquals(EnumSet.of(GameStateDiff.Section.MAP, GameStateDiff.Section.ALL_PLAYERS,
+                GameStateDiff.Section.GRENADES), diff.getChangedSections());
+        assertFalse(diff.hasChanged(GameStateDiff.Section.PROVIDER));
+        
+        GameStateDiff.FieldChange round = diff.getFieldChange(GameStateDiff.Section.MAP, "round").get();
+        assertEquals(2, round.getOldValue());
+        assertEquals(3, round.getNewValue());
+        GameStateDiff.FieldChange score = diff.getFieldChange(GameStateDiff.Section.MAP, "team_ct.score").get();
+        assertEquals(1, score.getOldValue());
+        assertEquals(2, score.getNewValue());
+        assertFalse(diff.getFieldChange(GameStateDiff.Section.MAP, "team_t.score").isPresent());
+        GameStateDiff.FieldChange lifetime = diff.getFieldChange(
+                GameStateDiff.Section.GRENADES, "129.lifetime").get();
+        assertEquals(7.1, (double)lifetime.getOldValue(), 0);
+        assertEquals(7.2, (double)lifetime.getNewValue(), 0);
+        
+        assertEquals(Set.of(PLAYER_3), diff.getChangedPlayers());
+        assertTrue(diff.getAddedPlayers().isEmpty());
+        List<GameStateDiff.FieldChange> playerChanges = diff.getPlayerChanges(PLAYER_3);
+        assertEquals(1, playerChanges.size());
+        assertEquals("name", playerChanges.get(0).getField());
+        assertEquals("Player 3", playerChanges.get(0).getOldValue());
+        assertEquals("Player Three", playerChanges.get(0).getNewValue());
+        assertEquals(4, diff.getFieldChanges().size());
+    }
+    
+    @Test
+    public void testPlayersAddedAndRemoved() {
+        String removed = PAYLOAD.replace("\"76561197960265733\": {", "\"76561197960265799\": {");
+        SnapshotGameState first = parse(PAYLOAD, null);
+        GameStateDiff diff = GameStateDiff.compute(first, parse(removed, first));
+        assertEquals(EnumSet.of(GameStateDiff.Section.ALL_PLAYERS), diff.getChangedSections());
+        assertEquals(Set.of(PLAYER_3), diff.getRemovedPlayers());
+        assertEquals(Set.of(PlayerSteamID.fromId64("76561197960265799")), diff.getAddedPlayers());
+        assertEquals(2, diff.getChangedPlayers().size());
+        assertTrue(diff.getFieldChanges().isEmpty());
+    }
+    
+    @Test
+    public void testSectionRemoved() {
+        SnapshotGameState first = parse(PAYLOAD, null);
+        GameStateDiff diff = GameStateDiff.compute(first, parse("{}", first));
+        assertEquals(EnumSet.allOf(GameStateDiff.Section.class), diff.getChangedSections());
+        assertEquals(10, diff.getRemovedPlayers().size());
+    }
+    
+    @Test
+    public void testContextDiffShared() {
+        GameState previous = parse(PAYLOAD, null);
+        GameState state = parse(PAYLOAD.replace("\"round\": 2,", "\"round\": 3,"), null);
+        GameStateContext context = new GameStateContext(null, "/", state, previous, null, null, 2,
+                InetAddress.getLoopbackAddress(), Map.of(), null, "{}");
+        GameStateDiff diff = context.getDiff();
+        assertSame(diff, context.getDiff());
+        assertEquals(EnumSet.of(GameStateDiff.Section.MAP), diff.getChangedSections());
+    }
+    
+    
+    @Test
+    public void testChangedSections() {
+        String changed = PAYLOAD.replace("\"round\": 2,", "\"round\": 3,").replace("\"129\": {", "\"140\": {");
+        int expected = (1 << GameStateDiff.Section.MAP.ordinal()) | (1 << GameStateDiff.Section.GRENADES.ordinal());
+        
+        SnapshotGameState first = parse(PAYLOAD, null);
+        assertEquals(GameStateDiff.ALL_SECTIONS, GameStateDiff.changedSections(null, first));
+        assertEquals(0, GameStateDiff.changedSections(first, parse(PAYLOAD, first)));
+        assertEquals(expected, GameStateDiff.changedSections(first, parse(changed, first)));
+        
+        LazyGameState lazy = LazyGameState.parse(bytes(PAYLOAD));
+        assertEquals(0, GameStateDiff.changedSections(lazy, LazyGameState.parse(bytes(PAYLOAD))));
+        assertEquals(expected, GameStateDiff.changedSections(lazy, LazyGameState.parse(bytes(changed))));
+        assertEquals(1 << GameStateDiff.Section.BOMB.ordinal(), GameStateDiff.changedSections(
+                lazy, LazyGameState.parse(bytes(PAYLOAD.replace("\"bomb\":", "\"bomb_removed\":")))));
+    }
+    
+    @Test
+    public void testSectionOfComponent() {
+        for (DataComponent component : DataComponent.values())
+            assertNotNull(GameStateDiff.Section.of(component));
+        assertEquals(GameStateDiff.Section.MAP, GameStateDiff.Section.of(DataComponent.MAP_ROUND_WINS));
+        assertEquals(GameStateDiff.Section.ALL_PLAYERS, GameStateDiff.Section.of(DataComponent.PLAYERS_WEAPONS));
+        assertEquals(GameStateDiff.Section.PLAYER, GameStateDiff.Section.of(DataComponent.PLAYER_POSITION));
+    }
+    
+    
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static SnapshotGameState parse(String json, SnapshotGameState previous) {
+        return SnapshotGameState.parse(json.getBytes(StandardCharsets.UTF_8), previous);
+    }
+    
+}
@@ -1,11 +1,19 @@
 package uk.oczadly.karl.csgsi;
 
 import org.junit.Test;
+import uk.oczadly.karl.csgsi.internal.VirtualThreads;
 import uk.oczadly.karl.csgsi.state.GameState;
 
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -69,4 +77,201 @@ public class ListenerRegistryTest {
         assertSame(mockState, obs2.state);
     }
     
-}
\ No newline at end of file
+    @Test
+    public void testNotifyWithExecutor() {
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor();
+        try {
+            ListenerRegistry reg = new ListenerRegistry(executor);
+            MockListener obs1 = new MockListener(), obs2 = new MockListener();
+            reg.register(Set.of(obs1, obs2));
+            reg.notify(new GameState(), null); // Blocks until all listeners have completed
+            assertTrue(obs1.called && obs2.called);
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testVirtualHandlerExecutorShared() {
+        ExecutorService executor = ListenerRegistry.virtualHandlerExecutor();
+        assertSame(executor, ListenerRegistry.virtualHandlerExecutor());
+        assertFalse(executor.isShutdown());
+    }
+    
+    @Test
+    public void testNotifyInterested() {
+        ListenerRegistry reg = new ListenerRegistry();
+        MockListener all = new MockListener(), map = new MockListener();
+        reg.register(all);
+        reg.register(map, List.of(GameStateDiff.Section.MAP, GameStateDiff.Section.ROUND));
+        int[] versions = new int[GameStateDiff.Section.values().length];
+        
+        versions[GameStateDiff.Section.MAP.ordinal()] = 1;
+        assertNotified(reg, 1, versions, all, map);
+        assertNotified(reg, 2, versions, all); // No changes
+        versions[GameStateDiff.Section.PROVIDER.ordinal()] = 3;
+        assertNotified(reg, 3, versions, all); // Uninterested change
+        versions[GameStateDiff.Section.ROUND.ordinal()] = 4;
+        assertNotified(reg, 5, versions, all, map); // Changed since last notified (4 > 1)
+        assertNotified(reg, 6, versions, all);
+        versions[GameStateDiff.Section.MAP.ordinal()] = 7;
+        assertNotified(reg, 7, versions, all, map);
+        assertNotified(reg, 6, versions, all); // Older than the last notified state
+        reg.resetInterests();
+        assertNotified(reg, 1, versions, all, map); // Counter reset (server restarted)
+        assertNotified(reg, 7, null, all, map); // Versions unknown
+        
+        reg.register(map); // Re-register without filter
+        assertNotified(reg, 8, versions, all, map);
+    }
+    
+    @Test
+    public void testNotifyAsync() throws Exception {
+        ListenerRegistry reg = new ListenerRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        reg.register((state, context) -> awaitQuietly(release));
+        CompletableFuture<Void> completion = reg.notifyAsync(new GameState(), null, null);
+        assertFalse(completion.isDone()); // Returned without waiting for the listener
+        release.countDown();
+        completion.get(1, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    public void testNotifyAsyncInOrder() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor)Executors.newCachedThreadPool();
+        try {
+            ListenerRegistry reg = new ListenerRegistry(executor);
+            List<GameState> received = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger running = new AtomicInteger(), maxRunning = new AtomicInteger();
+            CountDownLatch release = new CountDownLatch(1);
+            reg.register((state, context) -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                awaitQuietly(release); // Slower than the states are dispatched
+                received.add(state);
+                running.decrementAndGet();
+            });
+            
+            List<GameState> dispatched = new ArrayList<>();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                GameState state = new GameState();
+                dispatched.add(state);
+                futures.add(reg.notifyAsync(state, null, null));
+            }
+            assertEquals(1, executor.getTaskCount()); // States queued behind the busy listener
+            release.countDown();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.SECONDS);
+            
+            assertEquals(dispatched, received);
+            assertEquals(1, maxRunning.get());
+            assertEquals(1, executor.getLargestPoolSize());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testNotifyTimeout() throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ListenerRegistry reg = new ListenerRegistry(ListenerRegistry.HANDLER_EXECUTOR, Duration.ofMillis(50),
+                (listener, context, cause) -> failure.set(cause));
+        MockListener fast = new MockListener();
+        reg.register(Set.of(fast, (state, context) -> awaitQuietly(release)));
+        try {
+            reg.notifyAsync(new GameState(), null, null).get(1, TimeUnit.SECONDS);
+            assertTrue(fast.called);
+            assertTrue(failure.get() instanceof TimeoutException);
+        } finally {
+            release.countDown();
+        }
+    }
+    
+    @Test
+    public void testNotifyFailureHandler() {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<GSIListener> failed = new AtomicReference<>();
+        ListenerRegistry reg = new ListenerRegistry(ListenerRegistry.HANDLER_EXECUTOR, null,
+                (listener, context, cause) -> { failed.set(listener); failure.set(cause); });
+        GSIListener listener = (state, context) -> { throw new IllegalStateException("test"); };
+        reg.register(listener);
+        reg.notify(new GameState(), null);
+        assertSame(listener, failed.get());
+        assertTrue(failure.get() instanceof IllegalStateException);
+    }
+    
+    @Test
+    public void testNotifyInterrupted() {
+        ListenerRegistry reg = new ListenerRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        reg.register((state, context) -> awaitQuietly(release));
+        Thread.currentThread().interrupt();
+        try {
+            reg.notify(new GameState(), null);
+            assertTrue(Thread.interrupted()); // Interrupt status retained (and cleared)
+        } finally {
+            release.countDown();
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTimeout() {
+        new ListenerRegistry(ListenerRegistry.HANDLER_EXECUTOR, Duration.ZERO, null);
+    }
+    
+    @Test
+    public void testNotifyInterestedOutOfOrder() throws Exception {
+        ListenerRegistry reg = new ListenerRegistry();
+        MockListener map = new MockListener();
+        reg.register(map, List.of(GameStateDiff.Section.MAP));
+        int sections = GameStateDiff.Section.values().length;
+        
+        // States processed concurrently, which must never move the last notified state backwards
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ListenerRegistry.Interest interest = reg.interests.get(map);
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 1; i <= 1000; i++) {
+                int counter = i;
+                int[] versions = new int[sections];
+                versions[GameStateDiff.Section.MAP.ordinal()] = counter; // Changed in every state
+                futures.add(executor.submit(() -> interest.accept(versions, counter)));
+            }
+            int accepted = 0;
+            for (Future<Boolean> future : futures)
+                if (future.get()) accepted++;
+            assertTrue(accepted >= 1);
+            assertEquals(1000, interest.lastCounter.get());
+            assertFalse(interest.accept(new int[sections], 999));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterNoSections() {
+        new ListenerRegistry().register(new MockListener(), List.of());
+    }
+    
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {}
+    }
+    
+    private static void assertNotified(ListenerRegistry reg, int counter, int[] versions, MockListener... expected) {
+        for (GSIListener listener : reg.listeners)
+            ((MockListener)listener).called = false;
+        GameStateContext context = new GameStateContext(null, "/", null, null, null, null, counter,
+                InetAddress.getLoopbackAddress(), Map.of(), null, "{}");
+        reg.notify(new GameState(), context, versions);
+        int called = 0;
+        for (GSIListener listener : reg.listeners)
+            if (((MockListener)listener).called) called++;
+        assertEquals(expected.length, called);
+        for (MockListener listener : expected)
+            assertTrue(listener.called);
+    }
+    
+}
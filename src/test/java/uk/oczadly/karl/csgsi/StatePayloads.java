@@ -0,0 +1,115 @@
+package uk.oczadly.karl.csgsi;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates realistic state payloads for tests and benchmarks.
+ *
+ * @author Karl Oczadly
+ */
+public class StatePayloads {
+    
+    private static final String[][] WEAPONS = {
+            { "weapon_knife", "Knife", null },
+            { "weapon_usp_silencer", "Pistol", "12" },
+            { "weapon_ak47", "Rifle", "30" },
+            { "weapon_flashbang", "Grenade", null },
+            { "weapon_smokegrenade", "Grenade", null },
+            { "weapon_molotov", "Grenade", null },
+    };
+    
+    
+    /**
+     * Generates a spectator state with all data components enabled, consisting of 10 players each holding 6 weapons,
+     * and a smoke and inferno grenade. The returned payload is approximately 20 KB.
+     *
+     * @param authToken the auth token value, or null to exclude
+     * @return the UTF-8 encoded JSON state
+     */
+    public static byte[] spectatorState(String authToken) {
+        StringBuilder sb = new StringBuilder(24576);
+        sb.append("{\n");
+        sb.append("  \"provider\": {\n    \"name\": \"Counter-Strike: Global Offensive\",\n    \"appid\": 730,\n")
+                .append("    \"version\": 13765,\n    \"steamid\": \"76561198050830377\",\n")
+                .append("    \"timestamp\": 1600000000\n  },\n");
+        sb.append("  \"map\": {\n    \"round_wins\": {\n      \"1\": \"ct_win_elimination\",\n")
+                .append("      \"2\": \"t_win_bomb\"\n    },\n    \"mode\": \"competitive\",\n")
+                .append("    \"name\": \"de_mirage\",\n    \"phase\": \"live\",\n    \"round\": 2,\n")
+                .append("    \"team_ct\": {\n      \"score\": 1,\n      \"consecutive_round_losses\": 1,\n")
+                .append("      \"timeouts_remaining\": 1,\n      \"matches_won_this_series\": 0\n    },\n")
+                .append("    \"team_t\": {\n      \"score\": 1,\n      \"consecutive_round_losses\": 0,\n")
+                .append("      \"timeouts_remaining\": 1,\n      \"matches_won_this_series\": 0\n    },\n")
+                .append("    \"num_matches_to_win_series\": 0,\n    \"current_spectators\": 1,\n")
+                .append("    \"souvenirs_total\": 0\n  },\n");
+        sb.append("  \"round\": {\n    \"phase\": \"live\"\n  },\n");
+        sb.append("  \"player\": ");
+        appendPlayer(sb, 0, "    ", true);
+        sb.append(",\n  \"allplayers\": {\n");
+        for (int i = 0; i < 10; i++) {
+            sb.append("    \"7656119796026573").append(i).append("\": ");
+            appendPlayer(sb, i, "      ", false);
+            sb.append(i < 9 ? ",\n" : "\n");
+        }
+        sb.append("  },\n");
+        sb.append("  \"phase_countdowns\": {\n    \"phase\": \"live\",\n    \"phase_ends_in\": \"84.3\"\n  },\n");
+        sb.append("  \"grenades\": {\n")
+                .append("    \"129\": {\n      \"owner\": 76561197960265731,\n")
+                .append("      \"position\": \"-1010.29, -1397.84, -168.42\",\n")
+                .append("      \"velocity\": \"0.00, 0.00, 0.00\",\n      \"lifetime\": \"7.1\",\n")
+                .append("      \"type\": \"smoke\",\n      \"effecttime\": \"5.4\"\n    },\n")
+                .append("    \"131\": {\n      \"owner\": 76561197960265736,\n      \"lifetime\": \"2.6\",\n")
+                .append("      \"type\": \"inferno\",\n      \"flames\": {\n")
+                .append("        \"flame_p0_p0_p0\": \"-140.03, 329.38, 1.63\",\n")
+                .append("        \"flame_p55_n21_n1\": \"-85.03, 308.38, 0.63\",\n")
+                .append("        \"flame_p117_n29_n1\": \"-23.03, 300.38, 0.63\",\n")
+                .append("        \"flame_n31_p41_n3\": \"-171.03, 370.38, -1.38\"\n      }\n    }\n  },\n");
+        sb.append("  \"bomb\": {\n    \"state\": \"carried\",\n    \"position\": \"3084.00, 127.00, 1613.03\",\n")
+                .append("    \"player\": 76561197960265735\n  }");
+        if (authToken != null)
+            sb.append(",\n  \"auth\": {\n    \"token\": \"").append(authToken).append("\"\n  }");
+        sb.append("\n}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static void appendPlayer(StringBuilder sb, int n, String indent, boolean withSteamId) {
+        sb.append("{\n");
+        if (withSteamId)
+            sb.append(indent).append("\"steamid\": \"7656119796026573").append(n).append("\",\n");
+        sb.append(indent).append("\"name\": \"Player ").append(n).append("\",\n")
+                .append(indent).append("\"observer_slot\": ").append((n + 1) % 10).append(",\n")
+                .append(indent).append("\"team\": \"").append(n < 5 ? "CT" : "T").append("\",\n")
+                .append(indent).append("\"match_stats\": {\n")
+                .append(indent).append("  \"kills\": 3,\n").append(indent).append("  \"assists\": 1,\n")
+                .append(indent).append("  \"deaths\": 2,\n").append(indent).append("  \"mvps\": 1,\n")
+                .append(indent).append("  \"score\": 9\n").append(indent).append("},\n")
+                .append(indent).append("\"state\": {\n")
+                .append(indent).append("  \"health\": 100,\n").append(indent).append("  \"armor\": 100,\n")
+                .append(indent).append("  \"helmet\": true,\n").append(indent).append("  \"flashed\": 0,\n")
+                .append(indent).append("  \"smoked\": 0,\n").append(indent).append("  \"burning\": 0,\n")
+                .append(indent).append("  \"money\": 1250,\n").append(indent).append("  \"round_kills\": 0,\n")
+                .append(indent).append("  \"round_killhs\": 0,\n").append(indent).append("  \"round_totaldmg\": 0,\n")
+                .append(indent).append("  \"equip_value\": 4700\n").append(indent).append("},\n")
+                .append(indent).append("\"weapons\": {\n");
+        for (int w = 0; w < WEAPONS.length; w++) {
+            String[] weapon = WEAPONS[w];
+            sb.append(indent).append("  \"weapon_").append(w).append("\": {\n")
+                    .append(indent).append("    \"name\": \"").append(weapon[0]).append("\",\n")
+                    .append(indent).append("    \"paintkit\": \"default\",\n")
+                    .append(indent).append("    \"type\": \"").append(weapon[1]).append("\",\n");
+            if (weapon[2] != null) {
+                sb.append(indent).append("    \"ammo_clip\": ").append(weapon[2]).append(",\n")
+                        .append(indent).append("    \"ammo_clip_max\": ").append(weapon[2]).append(",\n")
+                        .append(indent).append("    \"ammo_reserve\": 90,\n");
+            } else if (weapon[1].equals("Grenade")) {
+                sb.append(indent).append("    \"ammo_reserve\": 1,\n");
+            }
+            sb.append(indent).append("    \"state\": \"").append(w == 2 ? "active" : "holstered").append("\"\n")
+                    .append(indent).append("  }").append(w < WEAPONS.length - 1 ? ",\n" : "\n");
+        }
+        sb.append(indent).append("},\n")
+                .append(indent).append("\"position\": \"-1353.00, 645.00, 1614.03\",\n")
+                .append(indent).append("\"forward\": \"0.29, -0.96, -0.03\"\n")
+                .append(indent.substring(2)).append("}");
+    }
+    
+}
@@ -0,0 +1,143 @@
+package uk.oczadly.karl.csgsi;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class StateUpdatePipelineTest {
+    
+    private final List<Integer> processed = new CopyOnWriteArrayList<>();
+    private final CountDownLatch blockLatch = new CountDownLatch(1), startedLatch = new CountDownLatch(1);
+    private StateUpdatePipeline pipeline;
+    
+    @After
+    public void tearDown() {
+        blockLatch.countDown();
+        if (pipeline != null)
+            pipeline.stop();
+    }
+    
+    
+    @Test
+    public void testProcessedInOrder() throws Exception {
+        pipeline = new StateUpdatePipeline(10, QueueOverflowPolicy.BLOCK);
+        pipeline.start();
+        CountDownLatch done = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            int n = i;
+            assertTrue(pipeline.submit(() -> {
+                processed.add(n);
+                done.countDown();
+            }));
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2, 3, 4), processed);
+    }
+    
+    @Test
+    public void testDropNewest() throws Exception {
+        pipeline = new StateUpdatePipeline(2, QueueOverflowPolicy.DROP_NEWEST);
+        pipeline.start();
+        blockWorker();
+        assertTrue(pipeline.submit(task(1)));
+        assertTrue(pipeline.submit(task(2)));
+        assertFalse(pipeline.submit(task(3))); // Queue full
+        assertEquals(1, pipeline.droppedCounter.get());
+        assertEquals(2, pipeline.size());
+        
+        awaitProcessed(2);
+        assertEquals(List.of(0, 1, 2), processed);
+    }
+    
+    @Test
+    public void testDiscardCallback() throws Exception {
+        List<Integer> discarded = new CopyOnWriteArrayList<>();
+        pipeline = new StateUpdatePipeline(1, QueueOverflowPolicy.DROP_OLDEST);
+        pipeline.start();
+        blockWorker();
+        assertTrue(pipeline.submit(task(1), () -> discarded.add(1)));
+        assertTrue(pipeline.submit(task(2), () -> discarded.add(2))); // Discards 1
+        
+        awaitProcessed(2);
+        assertEquals(List.of(0, 2), processed);
+        assertEquals(List.of(1), discarded);
+    }
+    
+    @Test
+    public void testDropOldest() throws Exception {
+        pipeline = new StateUpdatePipeline(2, QueueOverflowPolicy.DROP_OLDEST);
+        pipeline.start();
+        blockWorker();
+        assertTrue(pipeline.submit(task(1)));
+        assertTrue(pipeline.submit(task(2)));
+        assertTrue(pipeline.submit(task(3))); // Discards 1
+        assertEquals(1, pipeline.droppedCounter.get());
+        
+        awaitProcessed(3);
+        assertEquals(List.of(0, 2, 3), processed);
+    }
+    
+    @Test
+    public void testBlock() throws Exception {
+        pipeline = new StateUpdatePipeline(1, QueueOverflowPolicy.BLOCK);
+        pipeline.start();
+        blockWorker();
+        assertTrue(pipeline.submit(task(1)));
+        
+        Thread submitter = new Thread(() -> pipeline.submit(task(2)));
+        submitter.start();
+        submitter.join(100);
+        assertTrue(submitter.isAlive()); // Waiting for space
+        
+        awaitProcessed(2);
+        submitter.join(1000);
+        assertFalse(submitter.isAlive());
+        assertEquals(List.of(0, 1, 2), processed);
+        assertEquals(0, pipeline.droppedCounter.get());
+    }
+    
+    @Test
+    public void testStop() throws Exception {
+        pipeline = new StateUpdatePipeline(5, QueueOverflowPolicy.BLOCK);
+        pipeline.start();
+        assertTrue(pipeline.isRunning());
+        pipeline.stop();
+        assertFalse(pipeline.isRunning());
+        pipeline.start(); // Can be restarted
+        assertTrue(pipeline.isRunning());
+    }
+    
+    
+    /** Submits a task which blocks the worker until released */
+    private void blockWorker() throws InterruptedException {
+        pipeline.submit(() -> {
+            startedLatch.countDown();
+            try {
+                blockLatch.await();
+            } catch (InterruptedException ignored) {}
+            processed.add(0);
+        });
+        assertTrue(startedLatch.await(1, TimeUnit.SECONDS));
+    }
+    
+    private void awaitProcessed(int lastValue) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        blockLatch.countDown();
+        while (!processed.contains(lastValue) && done.getCount() > 0)
+            done.await(5, TimeUnit.MILLISECONDS);
+    }
+    
+    private Runnable task(int n) {
+        return () -> processed.add(n);
+    }
+    
+}
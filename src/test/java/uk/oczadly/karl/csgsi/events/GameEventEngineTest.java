@@ -0,0 +1,166 @@
+package uk.oczadly.karl.csgsi.events;
+
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.StatePayloads;
+import uk.oczadly.karl.csgsi.internal.SnapshotGameState;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+import uk.oczadly.karl.csgsi.state.components.Team;
+import uk.oczadly.karl.csgsi.state.components.Weapon;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameEventEngineTest {
+    
+    private static final String PAYLOAD = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8);
+    private static final String ROUND_LIVE = "\"round\": {\n    \"phase\": \"live\"\n  }";
+    private static final String PLAYER_3 = "\"76561197960265733\": {";
+    private static final PlayerSteamID PLAYER_3_ID = PlayerSteamID.fromId64("76561197960265733");
+    
+    
+    @Test
+    public void testNoEventsForUnchangedState() {
+        GameEventEngine engine = new GameEventEngine();
+        List<GameEvent> events = subscribe(engine, GameEvent.class);
+        SnapshotGameState first = parse(PAYLOAD, null);
+        engine.update(null, first, null); // First state
+        engine.update(first, parse(PAYLOAD, first), null);
+        engine.update(parse(PAYLOAD, null), parse(PAYLOAD, null), null); // Equal, but not shared
+        assertTrue(events.isEmpty());
+    }
+    
+    @Test
+    public void testRoundEvents() {
+        GameEventEngine engine = new GameEventEngine();
+        List<RoundStartEvent> starts = subscribe(engine, RoundStartEvent.class);
+        List<RoundEndEvent> ends = subscribe(engine, RoundEndEvent.class);
+        String freezeTime = PAYLOAD.replace(ROUND_LIVE, "\"round\": {\n    \"phase\": \"freezetime\"\n  }");
+        String over = PAYLOAD.replace(ROUND_LIVE,
+                "\"round\": {\n    \"phase\": \"over\",\n    \"win_team\": \"CT\"\n  }");
+        
+        emit(engine, freezeTime, PAYLOAD);
+        assertEquals(1, starts.size());
+        assertTrue(ends.isEmpty());
+        emit(engine, PAYLOAD, over);
+        assertEquals(1, starts.size());
+        assertEquals(1, ends.size());
+        assertEquals(Team.COUNTER_TERRORIST, ends.get(0).getWinningTeam().get());
+        emit(engine, over, freezeTime);
+        assertEquals(1, starts.size());
+    }
+    
+    @Test
+    public void testBombEvents() {
+        GameEventEngine engine = new GameEventEngine();
+        List<BombEvent> events = subscribe(engine, BombEvent.class);
+        String planted = PAYLOAD.replace("\"state\": \"carried\"", "\"state\": \"planted\"");
+        String defusing = PAYLOAD.replace("\"state\": \"carried\"", "\"state\": \"defusing\"");
+        String defused = PAYLOAD.replace("\"state\": \"carried\"", "\"state\": \"defused\"");
+        
+        emit(engine, PAYLOAD, planted);
+        emit(engine, planted, defusing); // Not an event
+        emit(engine, defusing, planted); // Defuse aborted, not a new plant
+        emit(engine, defusing, defused);
+        assertEquals(2, events.size());
+        assertTrue(events.get(0) instanceof BombPlantedEvent);
+        assertTrue(events.get(1) instanceof BombDefusedEvent);
+        assertTrue(events.get(0).getBomb().isPresent());
+    }
+    
+    @Test
+    public void testPlayerDeathAndKill() {
+        GameEventEngine engine = new GameEventEngine();
+        List<PlayerDeathEvent> deaths = subscribe(engine, PlayerDeathEvent.class);
+        List<PlayerKillEvent> kills = subscribe(engine, PlayerKillEvent.class);
+        String changed = replaceAfter(PAYLOAD, PLAYER_3, "\"health\": 100", "\"health\": 0");
+        changed = replaceAfter(changed, PLAYER_3, "\"round_kills\": 0", "\"round_kills\": 2");
+        changed = replaceAfter(changed, PLAYER_3, "\"round_killhs\": 0", "\"round_killhs\": 1");
+        
+        emit(engine, PAYLOAD, changed);
+        assertEquals(1, deaths.size());
+        assertEquals(PLAYER_3_ID, deaths.get(0).getPlayerId());
+        assertEquals(0, deaths.get(0).getPlayer().getState().getHealth());
+        assertEquals(1, kills.size());
+        assertEquals(PLAYER_3_ID, kills.get(0).getPlayerId());
+        assertEquals(2, kills.get(0).getKillCount());
+        assertEquals(1, kills.get(0).getHeadshotCount());
+        
+        // Round kills reset
+        emit(engine, changed, PAYLOAD);
+        assertEquals(1, kills.size());
+    }
+    
+    @Test
+    public void testWeaponEvents() {
+        GameEventEngine engine = new GameEventEngine();
+        List<WeaponEvent> events = subscribe(engine, WeaponEvent.class);
+        emit(engine, PAYLOAD, PAYLOAD.replace("\"ammo_reserve\": 90", "\"ammo_reserve\": 60")); // Ammo only
+        assertTrue(events.isEmpty());
+        
+        emit(engine, PAYLOAD, replaceAfter(PAYLOAD, PLAYER_3, "weapon_ak47", "weapon_awp"));
+        assertEquals(2, events.size());
+        assertTrue(events.get(0) instanceof WeaponPickupEvent);
+        assertEquals(Weapon.AWP, events.get(0).getItem().getWeapon().get());
+        assertTrue(events.get(1) instanceof WeaponDropEvent);
+        assertEquals(Weapon.AK_47, events.get(1).getItem().getWeapon().get());
+        assertEquals(PLAYER_3_ID, events.get(1).getPlayerId());
+    }
+    
+    @Test
+    public void testGrenadeEvents() {
+        GameEventEngine engine = new GameEventEngine();
+        List<GrenadeEvent> events = subscribe(engine, GrenadeEvent.class);
+        emit(engine, PAYLOAD, PAYLOAD.replace("\"129\": {", "\"140\": {"));
+        assertEquals(2, events.size());
+        assertTrue(events.get(0) instanceof GrenadeDetonatedEvent);
+        assertEquals(129, events.get(0).getId());
+        assertTrue(events.get(1) instanceof GrenadeThrownEvent);
+        assertEquals(140, events.get(1).getId());
+    }
+    
+    @Test
+    public void testSubscriptions() {
+        GameEventEngine engine = new GameEventEngine();
+        assertFalse(engine.hasSubscribers(GameEvent.class));
+        List<GameEvent> all = new ArrayList<>();
+        GameEventListener<GameEvent> listener = all::add;
+        engine.subscribe(BombPlantedEvent.class, e -> { throw new RuntimeException("Expected"); });
+        engine.subscribe(GameEvent.class, listener);
+        assertTrue(engine.hasSubscribers(BombEvent.class));
+        assertTrue(engine.hasSubscribers(PlayerDeathEvent.class));
+        
+        emit(engine, PAYLOAD, PAYLOAD.replace("\"state\": \"carried\"", "\"state\": \"planted\""));
+        assertEquals(1, all.size()); // Notified despite the exception
+        
+        engine.unsubscribe(listener);
+        assertFalse(engine.hasSubscribers(PlayerDeathEvent.class));
+        assertTrue(engine.hasSubscribers(BombEvent.class));
+        emit(engine, PAYLOAD, PAYLOAD.replace("\"state\": \"carried\"", "\"state\": \"planted\""));
+        assertEquals(1, all.size());
+    }
+    
+    
+    private static <E extends GameEvent> List<E> subscribe(GameEventEngine engine, Class<E> type) {
+        List<E> events = new ArrayList<>();
+        engine.subscribe(type, events::add);
+        return events;
+    }
+    
+    private static void emit(GameEventEngine engine, String previous, String current) {
+        SnapshotGameState prev = parse(previous, null);
+        engine.update(prev, parse(current, prev), null);
+    }
+    
+    private static SnapshotGameState parse(String json, SnapshotGameState previous) {
+        return SnapshotGameState.parse(json.getBytes(StandardCharsets.UTF_8), previous);
+    }
+    
+    private static String replaceAfter(String str, String marker, String target, String replacement) {
+        int start = str.indexOf(target, str.indexOf(marker));
+        return str.substring(0, start) + replacement + str.substring(start + target.length());
+    }
+    
+}
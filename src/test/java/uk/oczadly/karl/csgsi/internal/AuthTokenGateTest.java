@@ -0,0 +1,113 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.StatePayloads;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class AuthTokenGateTest {
+    
+    private static final AuthTokenGate GATE = new AuthTokenGate(Map.of("token", "abc123", "key", "def"));
+    
+    
+    @Test
+    public void testNoTokensRequired() {
+        AuthTokenGate gate = new AuthTokenGate(Collections.emptyMap());
+        assertFalse(gate.isRequired());
+        assertTrue(gate.verify(bytes("not json")));
+        assertTrue(GATE.isRequired());
+    }
+    
+    @Test
+    public void testValid() {
+        assertTrue(GATE.verify(bytes("{\"auth\": {\"token\": \"abc123\", \"key\": \"def\"}, \"map\": {}}")));
+        assertTrue(GATE.verify(bytes("\uFEFF\n{ \"auth\" : { \"key\" : \"def\" , \"token\" : \"abc123\" } }")));
+        // Additional tokens
+        assertTrue(GATE.verify(bytes("{\"auth\": {\"other\": \"x\", \"token\": \"abc123\", \"key\": \"def\"}}")));
+        // Remainder of the document is not read
+        assertTrue(GATE.verify(bytes("{\"auth\": {\"token\": \"abc123\", \"key\": \"def\"}, \"map\": {[")));
+    }
+    
+    @Test
+    public void testAuthAfterOtherSections() {
+        assertTrue(GATE.verify(bytes("{\"provider\": {\"name\": \"a}\\\"{\", \"v\": [1, {\"auth\": 2}]}, "
+                + "\"x\": -1.5, \"auth\": {\"token\": \"abc123\", \"key\": \"def\"}}")));
+        assertTrue(new AuthTokenGate(Map.of("token", "secret")).verify(StatePayloads.spectatorState("secret")));
+        assertFalse(new AuthTokenGate(Map.of("token", "secret")).verify(StatePayloads.spectatorState("secrex")));
+    }
+    
+    @Test
+    public void testInvalid() {
+        assertFalse(GATE.verify(bytes("{\"auth\": {\"token\": \"abc124\", \"key\": \"def\"}}")));
+        assertFalse(GATE.verify(bytes("{\"auth\": {\"token\": \"abc12\", \"key\": \"def\"}}")));
+        assertFalse(GATE.verify(bytes("{\"auth\": {\"token\": \"abc1234\", \"key\": \"def\"}}")));
+        assertFalse(GATE.verify(bytes("{\"auth\": {\"token\": \"abc123\"}}")));
+        assertFalse(GATE.verify(bytes("{\"auth\": {\"token\": \"abc123\", \"key\": 5}}")));
+        assertFalse(GATE.verify(bytes("{\"auth\": {}}")));
+        assertFalse(GATE.verify(bytes("{\"auth\": null}")));
+        assertFalse(GATE.verify(bytes("{\"map\": {\"auth\": {\"token\": \"abc123\", \"key\": \"def\"}}}")));
+        assertFalse(GATE.verify(bytes("{}")));
+        // Last duplicate takes precedence
+        assertFalse(GATE.verify(bytes("{\"auth\": {\"token\": \"abc123\", \"key\": \"def\", \"key\": \"x\"}}")));
+        assertTrue(GATE.verify(bytes("{\"auth\": {\"token\": \"abc123\", \"key\": \"x\", \"key\": \"def\"}}")));
+    }
+    
+    @Test
+    public void testNonStringToken() {
+        AuthTokenGate gate = new AuthTokenGate(Map.of("token", "123", "key", "def"));
+        assertTrue(gate.verify(bytes("{\"auth\": {\"token\": 123, \"key\": \"def\"}}")));
+        assertFalse(gate.verify(bytes("{\"auth\": {\"token\": 124, \"key\": \"def\"}}")));
+        assertFalse(gate.verify(bytes("{\"auth\": {\"token\": {}, \"key\": \"def\"}}")));
+        assertFalse(gate.verify(bytes("{\"auth\": {\"token\": null, \"key\": \"def\"}}")));
+    }
+    
+    @Test
+    public void testEscapedToken() {
+        AuthTokenGate gate = new AuthTokenGate(Map.of("token", "a/b\tc\"d"));
+        assertTrue(gate.verify(bytes("{\"auth\": {\"token\": \"a/b\\tc\\\"d\"}}")));
+        assertTrue(gate.verify(bytes("{\"auth\": {\"token\": \"a\\/b\\u0009c\\u0022d\"}}")));
+        assertTrue(gate.verify(bytes("{\"auth\": {\"tok\\u0065n\": \"a/b\\tc\\\"d\"}}"))); // Escaped name
+        assertFalse(gate.verify(bytes("{\"auth\": {\"token\": \"a\\/b\\u0009c\\u0022e\"}}")));
+        assertTrue(GATE.verify(bytes("{\"auth\": {\"token\": \"abc\\u0031\\u00323\", \"key\": \"def\"}}")));
+        assertFalse(GATE.verify(bytes("{\"auth\": {\"token\": \"abc\\u0031\\u00324\", \"key\": \"def\"}}")));
+        assertFalse(GATE.verify(bytes("{\"auth\": {\"token\": \"abc\\u0031\\u00323\"}}")));
+    }
+    
+    @Test
+    public void testMalformed() {
+        String[] invalid = {
+                "",
+                "[]",
+                "{",
+                "{\"auth\"",
+                "{\"auth\": {\"token\": \"abc123\", \"key\": \"def\"",
+                "{\"auth\": {\"token\": \"abc123\" \"key\": \"def\"}}",
+                "{\"auth\": {\"token\": \"abc123\", \"key\": \"def}}",
+                "{\"map\": {\"a\": 1}} \"auth\": {\"token\": \"abc123\", \"key\": \"def\"}}",
+                "{\"map\": \"unterminated, \"auth\": {\"token\": \"abc123\", \"key\": \"def\"}}",
+                "{\"map\" {}, \"auth\": {\"token\": \"abc123\", \"key\": \"def\"}}",
+        };
+        for (String json : invalid)
+            assertFalse(json, GATE.verify(bytes(json)));
+    }
+    
+    @Test
+    public void testEscapedValues() {
+        AuthTokenGate gate = new AuthTokenGate(Map.of("t", "a\"b\\c\u00e9"));
+        assertTrue(gate.verify(bytes("{\"auth\": {\"t\": \"a\\\"b\\\\c\u00e9\"}}")));
+        assertFalse(gate.verify(bytes("{\"auth\": {\"t\": \"a\\\"b\\\\c\"}}")));
+    }
+    
+    
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+    
+}
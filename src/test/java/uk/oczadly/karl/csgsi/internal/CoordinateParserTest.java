@@ -0,0 +1,139 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.JsonParseException;
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.state.components.Coordinate;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class CoordinateParserTest {
+    
+    /** The previous regex-based implementation, used as the reference for fuzzing */
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("^([-.0-9]+), ([-.0-9]+), ([-.0-9]+)$");
+    
+    
+    @Test
+    public void testParse() {
+        Coordinate coord = CoordinateParser.parse("-1353.00, 645.5, 1614.03");
+        assertEquals(new Coordinate(-1353.00, 645.5, 1614.03), coord);
+        assertEquals(new Coordinate(0, -0.5, 5), CoordinateParser.parse("0, -.5, 5."));
+        
+        double[] dest = new double[6];
+        CoordinateParser.parse("1.5, 2.25, -3.125", dest, 3);
+        assertArrayEquals(new double[] { 0, 0, 0, 1.5, 2.25, -3.125 }, dest, 0);
+    }
+    
+    @Test
+    public void testNegativeZero() {
+        Coordinate coord = CoordinateParser.parse("-0, -0.00, 0");
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(coord.getX()));
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(coord.getY()));
+        assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(coord.getZ()));
+    }
+    
+    @Test
+    public void testLongNumbers() {
+        assertParsesIdentically("1234567890.1234567890123, 0.000000000000000000000000123, 98765432109876543210");
+        assertParsesIdentically("9007199254740993, 0.1000000000000000055511151231257827, 123456789012345.6");
+    }
+    
+    @Test
+    public void testInvalid() {
+        String[] invalid = {
+                "", "1, 2", "1, 2, 3, 4", "1,2,3", "1,  2, 3", "1, 2, ", ", 2, 3", "a, 2, 3", "1, 2, 3 ",
+                " 1, 2, 3", "1.2.3, 4, 5", "1-2, 3, 4", "--1, 2, 3", "-, 2, 3", "., 2, 3", "1e5, 2, 3", "NaN, 1, 2"
+        };
+        for (String str : invalid) {
+            try {
+                CoordinateParser.parse(str);
+                fail("Expected \"" + str + "\" to be rejected");
+            } catch (JsonParseException ignored) {}
+        }
+    }
+    
+    @Test
+    public void testFuzzValidNumbers() {
+        Random random = new Random(1337);
+        for (int i = 0; i < 100_000; i++)
+            assertParsesIdentically(randomNumber(random) + ", " + randomNumber(random) + ", " + randomNumber(random));
+    }
+    
+    @Test
+    public void testFuzzArbitraryStrings() {
+        Random random = new Random(7331);
+        char[] alphabet = "0123456789.-, ".toCharArray();
+        for (int i = 0; i < 200_000; i++) {
+            char[] chars = new char[random.nextInt(16)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = alphabet[random.nextInt(alphabet.length)];
+            String str = new String(chars);
+            
+            Coordinate expected;
+            try {
+                expected = parseReference(str);
+            } catch (JsonParseException | NumberFormatException e) {
+                expected = null;
+            }
+            try {
+                Coordinate actual = CoordinateParser.parse(str);
+                assertNotNull("Reference rejected \"" + str + "\"", expected);
+                assertIdentical(str, expected, actual);
+            } catch (JsonParseException e) {
+                assertNull("Parser rejected \"" + str + "\"", expected);
+            }
+        }
+    }
+    
+    
+    private static void assertParsesIdentically(String str) {
+        assertIdentical(str, parseReference(str), CoordinateParser.parse(str));
+    }
+    
+    private static void assertIdentical(String str, Coordinate expected, Coordinate actual) {
+        assertEquals(str, Double.doubleToRawLongBits(expected.getX()), Double.doubleToRawLongBits(actual.getX()));
+        assertEquals(str, Double.doubleToRawLongBits(expected.getY()), Double.doubleToRawLongBits(actual.getY()));
+        assertEquals(str, Double.doubleToRawLongBits(expected.getZ()), Double.doubleToRawLongBits(actual.getZ()));
+    }
+    
+    private static Coordinate parseReference(String str) {
+        Matcher matcher = REFERENCE_PATTERN.matcher(str);
+        if (!matcher.matches())
+            throw new JsonParseException("Invalid coordinate format.");
+        return new Coordinate(
+                Double.parseDouble(matcher.group(1)),
+                Double.parseDouble(matcher.group(2)),
+                Double.parseDouble(matcher.group(3)));
+    }
+    
+    private static String randomNumber(Random random) {
+        switch (random.nextInt(5)) {
+            case 0: // Game format
+                return String.format(Locale.ROOT, "%.2f", (random.nextDouble() - 0.5) * 8192);
+            case 1:
+                return String.format(Locale.ROOT, "%." + random.nextInt(8) + "f", (random.nextDouble() - 0.5) * 1e6);
+            case 2: // Random digits, with leading/trailing zeros and points
+                StringBuilder sb = new StringBuilder();
+                if (random.nextBoolean()) sb.append('-');
+                int len = 1 + random.nextInt(25), point = random.nextInt(len + 1);
+                for (int i = 0; i < len; i++) {
+                    if (i == point) sb.append('.');
+                    sb.append((char)('0' + random.nextInt(10)));
+                }
+                return sb.toString();
+            case 3:
+                return Long.toString(random.nextLong() >> random.nextInt(64));
+            default:
+                String str = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(7)));
+                return str.contains("E") ? "0.5" : str;
+        }
+    }
+    
+}
@@ -0,0 +1,61 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class IntKeyMapTest {
+    
+    @Test
+    public void testSorted() {
+        IntKeyMap<String> map = new IntKeyMap.Builder<String>()
+                .put(-5, "a").put(3, "b").put(100, "c").build();
+        assertEquals(3, map.size());
+        assertEquals("a", map.get(-5));
+        assertEquals("c", map.get(100));
+        assertEquals("b", map.get((Object)3));
+        assertNull(map.get(4));
+        assertNull(map.get("3"));
+        assertTrue(map.containsKey(3));
+        assertFalse(map.containsKey(Long.valueOf(3)));
+        assertEquals(Map.of(-5, "a", 3, "b", 100, "c"), map);
+        assertEquals(Map.of(-5, "a", 3, "b", 100, "c").hashCode(), map.hashCode());
+    }
+    
+    @Test
+    public void testUnsortedAndDuplicates() {
+        IntKeyMap.Builder<String> builder = new IntKeyMap.Builder<>(1);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        int[] keys = { 9, 2, 7, 2, 11, 0, 9, 9, 5 };
+        for (int i = 0; i < keys.length; i++) {
+            builder.put(keys[i], "v" + i);
+            expected.put(keys[i], "v" + i);
+        }
+        IntKeyMap<String> map = builder.build();
+        assertEquals(expected, map);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet())); // Ascending order
+        for (int i = 0; i < map.size(); i++)
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+    }
+    
+    @Test
+    public void testEmpty() {
+        assertTrue(new IntKeyMap.Builder<String>().build().isEmpty());
+        assertSame(IntKeyMap.empty(), new IntKeyMap.Builder<String>().build());
+        assertNull(IntKeyMap.empty().get(0));
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        new IntKeyMap.Builder<String>().put(1, "a").build().put(2, "b");
+    }
+    
+}
@@ -0,0 +1,132 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class JsonSectionIndexTest {
+    
+    @Test
+    public void testScan() {
+        String json = " {\"a\": {\"x\": [1, {\"y\": \"}]\"}]}, \"b\" : \"str\\\"ing\",\"c\":-1.5e3 ,\"d\":null,"
+                + "\"e\":[[],{}] }\n";
+        JsonSectionIndex index = JsonSectionIndex.scan(bytes(json));
+        assertEquals(5, index.size());
+        assertEquals("{\"x\": [1, {\"y\": \"}]\"}]}", section(json, index, "a"));
+        assertEquals("\"str\\\"ing\"", section(json, index, "b"));
+        assertEquals("-1.5e3", section(json, index, "c"));
+        assertEquals("null", section(json, index, "d"));
+        assertEquals("[[],{}]", section(json, index, "e"));
+        assertFalse(index.contains("f"));
+        assertEquals(-1, index.getStart("f"));
+        assertEquals(-1, index.getEnd("f"));
+    }
+    
+    @Test
+    public void testScanRange() {
+        String json = "{\"allplayers\": {\"1\": {\"a\": 1}, \"2\" : [3]}}";
+        JsonSectionIndex outer = JsonSectionIndex.scan(bytes(json));
+        JsonSectionIndex inner = JsonSectionIndex.scan(bytes(json), outer.startAt(0), outer.endAt(0));
+        assertEquals("allplayers", outer.nameAt(0));
+        assertEquals(2, inner.size());
+        assertEquals("1", inner.nameAt(0));
+        assertEquals("2", inner.nameAt(1));
+        assertEquals("{\"a\": 1}", json.substring(inner.startAt(0), inner.endAt(0)));
+        assertEquals("[3]", json.substring(inner.startAt(1), inner.endAt(1)));
+        try {
+            JsonSectionIndex.scan(bytes(json), outer.startAt(0), outer.endAt(0) - 1);
+            fail("Truncated range should be rejected");
+        } catch (JsonSyntaxException ignored) {}
+    }
+    
+    @Test
+    public void testMemberEquals() {
+        byte[] a = bytes("{\"x\": {\"v\": 1}, \"y\": 2}"), b = bytes("{ \"y\": 3, \"x\":{\"v\": 1}}");
+        JsonSectionIndex ia = JsonSectionIndex.scan(a), ib = JsonSectionIndex.scan(b);
+        assertTrue(JsonSectionIndex.memberEquals("x", a, ia, b, ib));
+        assertFalse(JsonSectionIndex.memberEquals("y", a, ia, b, ib));
+        assertTrue(JsonSectionIndex.memberEquals("z", a, ia, b, ib)); // Absent from both
+        assertFalse(JsonSectionIndex.memberEquals("x", a, ia, bytes("{}"), JsonSectionIndex.scan(bytes("{}"))));
+    }
+    
+    @Test
+    public void testEmpty() {
+        assertEquals(0, JsonSectionIndex.scan(bytes("{}")).size());
+        assertEquals(0, JsonSectionIndex.scan(bytes(" \r\n{ \t}\n")).size());
+    }
+    
+    @Test
+    public void testEscapedName() {
+        JsonSectionIndex index = JsonSectionIndex.scan(bytes("{\"a\\u0062\": 1, \"\\\"\": 2}"));
+        assertTrue(index.contains("ab"));
+        assertTrue(index.contains("\""));
+    }
+    
+    @Test
+    public void testDuplicateNameUsesLast() {
+        String json = "{\"a\": 1, \"a\": 2}";
+        assertEquals("2", section(json, JsonSectionIndex.scan(bytes(json)), "a"));
+    }
+    
+    @Test
+    public void testManyMembers() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < 100; i++)
+            sb.append(i > 0 ? "," : "").append("\"k").append(i).append("\":").append(i);
+        String json = sb.append("}").toString();
+        JsonSectionIndex index = JsonSectionIndex.scan(bytes(json));
+        assertEquals(100, index.size());
+        assertEquals("99", section(json, index, "k99"));
+    }
+    
+    @Test
+    public void testUtf8Offsets() {
+        String json = "{\"a\": \"\u00e9\u00e9\", \"b\": [\"\u2713\"]}";
+        JsonSectionIndex index = JsonSectionIndex.scan(bytes(json));
+        assertEquals("[\"\u2713\"]", section(json, index, "b"));
+    }
+    
+    @Test
+    public void testMalformed() {
+        String[] invalid = {
+                "",
+                "[]",
+                "{",
+                "{\"a\"}",
+                "{\"a\": }",
+                "{\"a\": 1",
+                "{\"a\": 1,}",
+                "{\"a\": 1 \"b\": 2}",
+                "{\"a\": {\"b\": 1}",
+                "{\"a\": [1, 2}",
+                "{\"a\": {]}",
+                "{\"a\": \"unterminated}",
+                "{a: 1}",
+                "{\"a\": 1} trailing",
+        };
+        for (String json : invalid) {
+            try {
+                JsonSectionIndex.scan(bytes(json));
+                fail("Expected \"" + json + "\" to be rejected");
+            } catch (JsonSyntaxException ignored) {}
+        }
+    }
+    
+    
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static String section(String json, JsonSectionIndex index, String name) {
+        byte[] bytes = bytes(json);
+        int start = index.getStart(name);
+        return new String(bytes, start, index.getEnd(name) - start, StandardCharsets.UTF_8);
+    }
+    
+}
@@ -0,0 +1,62 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import uk.oczadly.karl.csgsi.StatePayloads;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.MapState;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-frame cost of parsing a ~20 KB spectator state for a listener which only reads the map section,
+ * comparing full (eager) deserialization against {@link LazyGameState}.
+ *
+ * <p>Run through {@link #main(String[])} from the test classpath.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LazyGameStateBenchmark {
+    
+    private final byte[] payload = StatePayloads.spectatorState(null);
+    
+    @Benchmark
+    public MapState eagerMapOnly() {
+        GameState state = Util.GSON.fromJson(
+                new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8), GameState.class);
+        return state.getMap().get();
+    }
+    
+    @Benchmark
+    public MapState lazyMapOnly() {
+        return LazyGameState.parse(payload).getMap().get();
+    }
+    
+    @Benchmark
+    public Object lazyAllSections() {
+        LazyGameState state = LazyGameState.parse(payload);
+        state.getProvider();
+        state.getMap();
+        state.getRound();
+        state.getPlayer();
+        state.getBomb();
+        state.getPhaseCountdowns();
+        state.getGrenades();
+        return state.getAllPlayers();
+    }
+    
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LazyGameStateBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+}
@@ -0,0 +1,119 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.StatePayloads;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class LazyGameStateTest {
+    
+    private static final byte[] PAYLOAD = StatePayloads.spectatorState("secret");
+    
+    
+    @Test
+    public void testMatchesEagerState() {
+        GameState eager = Util.GSON.fromJson(new String(PAYLOAD, StandardCharsets.UTF_8), GameState.class);
+        LazyGameState lazy = LazyGameState.parse(PAYLOAD);
+        
+        assertEquals(eager.getProvider().get().getClientSteamId(), lazy.getProvider().get().getClientSteamId());
+        assertEquals(eager.getMap().get().getName(), lazy.getMap().get().getName());
+        assertEquals(eager.getMap().get().getRoundResults(), lazy.getMap().get().getRoundResults());
+        assertEquals(eager.getRound().get().getPhase(), lazy.getRound().get().getPhase());
+        assertEquals(eager.getPlayer().get().getName(), lazy.getPlayer().get().getName());
+        assertEquals(eager.getBomb().get().getPosition(), lazy.getBomb().get().getPosition());
+        assertEquals(eager.getPhaseCountdowns().get().getRemainingTime(),
+                lazy.getPhaseCountdowns().get().getRemainingTime(), 0);
+        assertEquals(eager.getGrenades().get().getAll().size(), lazy.getGrenades().get().getAll().size());
+        
+        Map<PlayerSteamID, PlayerState> eagerPlayers = eager.getAllPlayers().get();
+        Map<PlayerSteamID, PlayerState> lazyPlayers = lazy.getAllPlayers().get();
+        assertEquals(10, lazyPlayers.size());
+        assertEquals(eagerPlayers.keySet(), lazyPlayers.keySet());
+        for (PlayerSteamID id : eagerPlayers.keySet())
+            assertEquals(eagerPlayers.get(id).getName(), lazyPlayers.get(id).getName());
+    }
+    
+    @Test
+    public void testSerialize() {
+        String json = new String(PAYLOAD, StandardCharsets.UTF_8);
+        for (Gson gson : List.of(Util.GSON, new Gson(), new GsonBuilder().serializeNulls().create())) {
+            String expected = gson.toJson(Util.GSON.fromJson(json, GameState.class));
+            assertEquals(expected, gson.toJson(LazyGameState.parse(PAYLOAD)));
+            assertEquals(expected, gson.toJson(LazyGameState.parse(PAYLOAD), GameState.class));
+            assertEquals(Set.of("provider", "map", "player", "round", "grenades", "allplayers", "bomb",
+                    "phase_countdowns"), JsonParser.parseString(expected).getAsJsonObject().keySet());
+        }
+        assertEquals("{}", Util.GSON.toJson(LazyGameState.parse("{}".getBytes(StandardCharsets.UTF_8))));
+    }
+    
+    @Test
+    public void testSectionsCached() {
+        LazyGameState state = LazyGameState.parse(PAYLOAD);
+        assertSame(state.getMap().get(), state.getMap().get());
+        assertSame(state.getAllPlayers().get(), state.getAllPlayers().get());
+    }
+    
+    @Test
+    public void testMissingSections() {
+        LazyGameState state = LazyGameState.parse("{\"map\": null}".getBytes(StandardCharsets.UTF_8));
+        assertFalse(state.getMap().isPresent());
+        assertFalse(state.getAllPlayers().isPresent());
+        assertFalse(state.getGrenades().isPresent());
+        assertTrue(state.readAuthTokens().isEmpty());
+    }
+    
+    @Test
+    public void testAuthTokens() {
+        assertEquals(Map.of("token", "secret"), LazyGameState.parse(PAYLOAD).readAuthTokens());
+    }
+    
+    @Test
+    public void testInvalidSectionThrowsFromGetter() {
+        LazyGameState state = LazyGameState.parse(
+                "{\"map\": {\"name\": \"de_dust2\"}, \"round\": [1, 2]}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("de_dust2", state.getMap().get().getName());
+        try {
+            state.getRound();
+            fail();
+        } catch (JsonSyntaxException ignored) {}
+    }
+    
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        LazyGameState state = LazyGameState.parse(PAYLOAD);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> results = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return state.getAllPlayers().get();
+                }));
+            }
+            start.countDown();
+            Object first = results.get(0).get(1, TimeUnit.SECONDS);
+            for (Future<Object> result : results)
+                assertSame(first, result.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+}
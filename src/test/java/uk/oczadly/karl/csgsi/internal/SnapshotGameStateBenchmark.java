@@ -0,0 +1,46 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import uk.oczadly.karl.csgsi.StatePayloads;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a ~20 KB spectator state in which a single player has changed since the previous frame, with and
+ * without sharing the unchanged sections of the previous {@link SnapshotGameState}.
+ *
+ * <p>Run through {@link #main(String[])} from the test classpath, optionally with {@code -prof gc}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotGameStateBenchmark {
+    
+    private final byte[] payload = new String(StatePayloads.spectatorState(null), StandardCharsets.UTF_8)
+            .replace("\"Player 3\"", "\"Player Three\"").getBytes(StandardCharsets.UTF_8);
+    private final SnapshotGameState previous = SnapshotGameState.parse(StatePayloads.spectatorState(null), null);
+    
+    @Benchmark
+    public Object unshared() {
+        return SnapshotGameState.parse(payload, null);
+    }
+    
+    @Benchmark
+    public Object shared() {
+        return SnapshotGameState.parse(payload, previous);
+    }
+    
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SnapshotGameStateBenchmark.class.getSimpleName())
+                .addProfiler("gc").build()).run();
+    }
+    
+}
@@ -0,0 +1,159 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.StatePayloads;
+import uk.oczadly.karl.csgsi.state.GameState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class SnapshotGameStateTest {
+    
+    private static final String PAYLOAD = new String(StatePayloads.spectatorState("abc"), StandardCharsets.UTF_8);
+    
+    
+    @Test
+    public void testMatchesReflectiveParsing() {
+        SnapshotGameState state = parse(PAYLOAD, null);
+        GameState expected = Util.GSON.fromJson(PAYLOAD, GameState.class);
+        assertEquals(expected.getMap().get().getName(), state.getMap().get().getName());
+        assertEquals(expected.getProvider().get().getClientSteamId(), state.getProvider().get().getClientSteamId());
+        assertEquals(expected.getAllPlayers().get().keySet(), state.getAllPlayers().get().keySet());
+        assertEquals(expected.getGrenades().get().getAll().keySet(), state.getGrenades().get().getAll().keySet());
+        assertEquals(expected.getBomb().get().getPhase(), state.getBomb().get().getPhase());
+        assertEquals(expected.getPlayer().get().getName(), state.getPlayer().get().getName());
+        assertEquals(Map.of("token", "abc"), readAuthTokens(PAYLOAD));
+    }
+    
+    @Test
+    public void testSerialize() {
+        SnapshotGameState state = parse(PAYLOAD, null);
+        for (Gson gson : List.of(Util.GSON, new Gson())) {
+            String expected = gson.toJson(Util.GSON.fromJson(PAYLOAD, GameState.class));
+            assertEquals(expected, gson.toJson(state));
+            assertEquals(expected, gson.toJson(parse(PAYLOAD, state))); // Shared sections
+        }
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDeserializeUnsupported() {
+        Util.GSON.fromJson(PAYLOAD, SnapshotGameState.class);
+    }
+    
+    @Test
+    public void testIdenticalStateShared() {
+        SnapshotGameState first = parse(PAYLOAD, null);
+        SnapshotGameState second = parse(PAYLOAD.replace("\"abc\"", "\"def\""), first); // Only auth differs
+        assertSame(first.getProvider().get(), second.getProvider().get());
+        assertSame(first.getMap().get(), second.getMap().get());
+        assertSame(first.getPlayer().get(), second.getPlayer().get());
+        assertSame(first.getRound().get(), second.getRound().get());
+        assertSame(first.getGrenades().get(), second.getGrenades().get());
+        assertSame(first.getAllPlayers().get(), second.getAllPlayers().get());
+        assertSame(first.getBomb().get(), second.getBomb().get());
+        assertSame(first.getPhaseCountdowns().get(), second.getPhaseCountdowns().get());
+        assertEquals(Map.of("token", "def"), readAuthTokens(PAYLOAD.replace("\"abc\"", "\"def\"")));
+    }
+    
+    @Test
+    public void testChangedPlayerOnly() {
+        SnapshotGameState first = parse(PAYLOAD, null);
+        SnapshotGameState second = parse(PAYLOAD.replace("\"Player 3\"", "\"Player Three\""), first);
+        
+        Map<PlayerSteamID, PlayerState> players1 = first.getAllPlayers().get(), players2 = second.getAllPlayers().get();
+        assertNotSame(players1, players2);
+        assertEquals(players1.keySet(), players2.keySet());
+        int changed = 0;
+        for (PlayerSteamID id : players1.keySet()) {
+            if (players1.get(id) != players2.get(id)) {
+                changed++;
+                assertEquals("Player Three", players2.get(id).getName());
+            }
+        }
+        assertEquals(1, changed);
+        assertSame(first.getMap().get(), second.getMap().get());
+        assertSame(first.getGrenades().get(), second.getGrenades().get());
+        
+        // Sharing continues from the changed snapshot only
+        SnapshotGameState third = parse(PAYLOAD, second);
+        assertSame(first.getMap().get(), third.getMap().get());
+        assertNotSame(first.getAllPlayers().get(), third.getAllPlayers().get());
+    }
+    
+    @Test
+    public void testChangedSection() {
+        SnapshotGameState first = parse(PAYLOAD, null);
+        SnapshotGameState second = parse(PAYLOAD.replace("de_mirage", "de_dust2"), first);
+        assertNotSame(first.getMap().get(), second.getMap().get());
+        assertEquals("de_dust2", second.getMap().get().getName());
+        assertSame(first.getAllPlayers().get(), second.getAllPlayers().get());
+    }
+    
+    @Test
+    public void testMissingAndNullSections() {
+        SnapshotGameState state = parse("{\"allplayers\": null, \"map\": null}", null);
+        assertFalse(state.getAllPlayers().isPresent());
+        assertFalse(state.getMap().isPresent());
+        assertFalse(state.getProvider().isPresent());
+        assertTrue(readAuthTokens("{\"allplayers\": null, \"map\": null}").isEmpty());
+        
+        SnapshotGameState next = parse(PAYLOAD, state);
+        assertTrue(next.getAllPlayers().isPresent());
+        assertFalse(parse("{}", next).getAllPlayers().isPresent());
+    }
+    
+    @Test
+    public void testSectionMovedBeforePlayers() {
+        // Changing the length of an earlier section moves allplayers within the payload
+        SnapshotGameState first = parse(PAYLOAD.replace("de_mirage", "de_mirage_long_workshop_name"), null);
+        SnapshotGameState second = parse(PAYLOAD, first);
+        assertSame(first.getAllPlayers().get(), second.getAllPlayers().get());
+        SnapshotGameState third = parse(PAYLOAD.replace("\"Player 3\"", "\"Player Three\""), second);
+        
+        int changed = 0;
+        for (Map.Entry<PlayerSteamID, PlayerState> player : third.getAllPlayers().get().entrySet()) {
+            if (player.getValue() != second.getAllPlayers().get().get(player.getKey())) {
+                changed++;
+                assertEquals("Player Three", player.getValue().getName());
+            }
+        }
+        assertEquals(1, changed);
+        assertEquals("de_mirage", third.getMap().get().getName());
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPlayersUnmodifiable() {
+        parse(PAYLOAD, null).getAllPlayers().get().clear();
+    }
+    
+    @Test(expected = JsonSyntaxException.class)
+    public void testInvalidPlayers() {
+        parse("{\"allplayers\": [1, 2]}", null);
+    }
+    
+    @Test(expected = JsonSyntaxException.class)
+    public void testInvalidSteamId() {
+        parse("{\"allplayers\": {\"abc\": {}}}", null);
+    }
+    
+    
+    private static SnapshotGameState parse(String json, SnapshotGameState previous) {
+        return SnapshotGameState.parse(json.getBytes(StandardCharsets.UTF_8), previous);
+    }
+    
+    private static Map<String, String> readAuthTokens(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return SnapshotGameState.readAuthTokens(bytes, JsonSectionIndex.scan(bytes));
+    }
+    
+}
@@ -0,0 +1,73 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.state.MapState;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class StateAdapterFactoryTest {
+    
+    @Test
+    public void testLenientValues() {
+        PlayerState.PlayerStateDetails state = Util.GSON.fromJson(
+                "{\"health\": \"85\", \"helmet\": \"true\", \"money\": 1.0e3, \"defusekit\": true}",
+                PlayerState.PlayerStateDetails.class);
+        assertEquals(85, state.getHealth());
+        assertTrue(state.hasHelmet());
+        assertEquals(1000, state.getMoney());
+        assertTrue(state.hasDefuseKit());
+    }
+    
+    @Test
+    public void testNullValues() {
+        assertNull(Util.GSON.fromJson("null", PlayerState.class));
+        PlayerState state = Util.GSON.fromJson(
+                "{\"name\": null, \"observer_slot\": null, \"state\": {\"health\": null}, \"match_stats\": null}",
+                PlayerState.class);
+        assertNull(state.getName());
+        assertNull(state.getObserverSlot());
+        assertEquals(0, state.getState().getHealth());
+        assertNull(state.getStatistics());
+    }
+    
+    @Test
+    public void testUnknownMembersSkipped() {
+        PlayerState.MatchStats stats = Util.GSON.fromJson(
+                "{\"new_field\": {\"a\": [1, {\"b\": null}]}, \"kills\": 4, \"other\": \"x\"}",
+                PlayerState.MatchStats.class);
+        assertEquals(4, stats.getKillCount());
+    }
+    
+    @Test(expected = JsonSyntaxException.class)
+    public void testInvalidType() {
+        Util.GSON.fromJson("{\"kills\": [1]}", PlayerState.MatchStats.class);
+    }
+    
+    @Test
+    public void testRoundOutcomes() {
+        MapState state = Util.GSON.fromJson(
+                "{\"round_wins\": {\"10\": \"t_win_bomb\", \"2\": \"ct_win_time\", \"1\": \"\"}}", MapState.class);
+        assertEquals(3, state.getRoundResults().size());
+        assertEquals(MapState.RoundOutcome.SKIPPED, state.getRoundResults().get(0).get());
+        assertEquals(MapState.RoundOutcome.CT_TIME, state.getRoundResults().get(1).get());
+        assertEquals(MapState.RoundOutcome.T_BOMB_EXPLODE, state.getRoundResults().get(2).get());
+        
+        assertTrue(Util.GSON.fromJson("{\"round_wins\": null}", MapState.class).getRoundResults().isEmpty());
+    }
+    
+    @Test
+    public void testWriteDelegatesToReflective() {
+        PlayerState.MatchStats stats = Util.GSON.fromJson("{\"kills\": 4, \"mvps\": 2}",
+                PlayerState.MatchStats.class);
+        JsonObject json = Util.GSON.toJsonTree(stats).getAsJsonObject();
+        assertEquals(4, json.get("kills").getAsInt());
+        assertEquals(2, json.get("mvps").getAsInt());
+    }
+    
+}
@@ -0,0 +1,66 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.StatePayloads;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class StateFingerprintTest {
+    
+    private static final String PAYLOAD = new String(StatePayloads.spectatorState("abc"), StandardCharsets.UTF_8);
+    
+    
+    @Test
+    public void testIdentical() {
+        assertEquals(fingerprint(PAYLOAD, 0), fingerprint(PAYLOAD, 0));
+        assertNotEquals(fingerprint(PAYLOAD, 0), fingerprint(PAYLOAD, 1)); // Different seed
+    }
+    
+    @Test
+    public void testProviderTimestampIgnored() {
+        long expected = fingerprint(PAYLOAD, 0);
+        assertEquals(expected, fingerprint(PAYLOAD.replace("1600000000", "1600000005"), 0));
+        assertEquals(expected, fingerprint(PAYLOAD.replace("1600000000", "16000000001"), 0));
+    }
+    
+    @Test
+    public void testChangesDetected() {
+        long expected = fingerprint(PAYLOAD, 0);
+        assertNotEquals(expected, fingerprint(PAYLOAD.replace("\"round\": 2,", "\"round\": 3,"), 0));
+        assertNotEquals(expected, fingerprint(PAYLOAD.replace("\"appid\": 730", "\"appid\": 731"), 0));
+        assertNotEquals(expected, fingerprint(PAYLOAD.replace("\"abc\"", "\"abd\""), 0));
+        
+        // Timestamp outside of the provider section
+        String json = "{\"provider\": {\"timestamp\": 1}, \"map\": {\"timestamp\": 2}}";
+        assertEquals(fingerprint(json, 0), fingerprint(json.replace("\"timestamp\": 1", "\"timestamp\": 5"), 0));
+        assertNotEquals(fingerprint(json, 0), fingerprint(json.replace("\"timestamp\": 2", "\"timestamp\": 5"), 0));
+    }
+    
+    @Test
+    public void testEveryByteSignificant() {
+        String json = "{\"a\": \"0123456789abcdefghijk\"}";
+        Set<Long> fingerprints = new HashSet<>();
+        fingerprints.add(fingerprint(json, 0));
+        for (int i = 7; i < 28; i++)
+            fingerprints.add(fingerprint(json.substring(0, i) + 'X' + json.substring(i + 1), 0));
+        assertEquals(22, fingerprints.size());
+    }
+    
+    @Test
+    public void testNoProvider() {
+        assertEquals(fingerprint("{}", 0), fingerprint("{}", 0));
+        assertNotEquals(fingerprint("{}", 0), fingerprint("{ }", 0));
+        assertNotEquals(fingerprint("{\"provider\": null}", 0), fingerprint("{\"provider\": 1}", 0));
+    }
+    
+    
+    private static long fingerprint(String json, long seed) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return StateFingerprint.compute(bytes, JsonSectionIndex.scan(bytes), seed);
+    }
+    
+}
@@ -0,0 +1,50 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.state.PlayerState;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class StringPoolTest {
+    
+    @Test
+    public void testIntern() {
+        StringPool pool = new StringPool(16);
+        String a = new String("de_mirage"), b = new String("de_mirage");
+        assertSame(a, pool.intern(a));
+        assertSame(a, pool.intern(b));
+        assertNull(pool.intern(null));
+        assertEquals("", pool.intern(new String("")));
+    }
+    
+    @Test
+    public void testBounded() {
+        StringPool pool = new StringPool(4);
+        // Every string is returned equal, even once the table is full and slots are replaced
+        for (int i = 0; i < 1000; i++) {
+            String str = "player" + (i % 50);
+            assertEquals(str, pool.intern(str));
+        }
+        String first = pool.intern(new String("x")), second = new String("x");
+        assertSame(first, pool.intern(second));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new StringPool(0);
+    }
+    
+    @Test
+    public void testDeserializedNamesShared() {
+        String json = "{\"name\": \"Player \\u00e9\", \"clan\": \"Clan\"}";
+        PlayerState p1 = Util.GSON.fromJson(json, PlayerState.class);
+        PlayerState p2 = Util.GSON.fromJson(json, PlayerState.class);
+        assertEquals("Player \u00e9", p1.getName());
+        assertSame(p1.getName(), p2.getName());
+        assertSame(p1.getGroupName(), p2.getGroupName());
+    }
+    
+}
@@ -0,0 +1,53 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import uk.oczadly.karl.csgsi.StatePayloads;
+import uk.oczadly.karl.csgsi.state.GameState;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares deserializing a ~20 KB spectator state from a decoded String, through an {@link InputStreamReader}, and
+ * through a {@link Utf8ByteReader}.
+ *
+ * <p>Run through {@link #main(String[])} from the test classpath, optionally with {@code -prof gc}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Utf8ByteReaderBenchmark {
+    
+    private final byte[] payload = StatePayloads.spectatorState(null);
+    
+    @Benchmark
+    public Object decodedString() {
+        return Util.GSON.fromJson(new String(payload, StandardCharsets.UTF_8), GameState.class);
+    }
+    
+    @Benchmark
+    public Object inputStreamReader() {
+        return Util.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8),
+                GameState.class);
+    }
+    
+    @Benchmark
+    public Object utf8ByteReader() {
+        return Util.GSON.fromJson(new Utf8ByteReader(payload), GameState.class);
+    }
+    
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(Utf8ByteReaderBenchmark.class.getSimpleName())
+                .addProfiler("gc").build()).run();
+    }
+    
+}
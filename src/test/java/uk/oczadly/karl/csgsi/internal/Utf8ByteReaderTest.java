@@ -0,0 +1,115 @@
+package uk.oczadly.karl.csgsi.internal;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class Utf8ByteReaderTest {
+    
+    @Test
+    public void testAscii() throws IOException {
+        assertEquals("{\"name\": \"player\"}", readAll(new Utf8ByteReader(bytes("{\"name\": \"player\"}")), 64));
+        assertEquals("", readAll(new Utf8ByteReader(new byte[0]), 64));
+    }
+    
+    @Test
+    public void testMultiByte() throws IOException {
+        String str = "Caf\u00E9 \u2713 \u00DCber \uD83D\uDE00 end"; // 2, 3 and 4 byte sequences
+        for (int chunk = 1; chunk <= 8; chunk++)
+            assertEquals(str, readAll(new Utf8ByteReader(bytes(str)), chunk));
+        assertEquals(str, readSingle(new Utf8ByteReader(bytes(str))));
+    }
+    
+    @Test
+    public void testOffset() throws IOException {
+        byte[] data = bytes("xx\u00E9abc\u2713yy");
+        assertEquals("\u00E9abc\u2713", readAll(new Utf8ByteReader(data, 2, 8), 4));
+    }
+    
+    @Test
+    public void testByteBuffer() throws IOException {
+        ByteBuffer heap = ByteBuffer.wrap(bytes("__\u00E9t\u00E9"));
+        heap.position(2);
+        assertEquals("\u00E9t\u00E9", readAll(Utf8ByteReader.of(heap.slice()), 16));
+        assertEquals(2, heap.position());
+        
+        ByteBuffer direct = ByteBuffer.allocateDirect(8);
+        direct.put(bytes("\u2713ok")).flip();
+        assertEquals("\u2713ok", readAll(Utf8ByteReader.of(direct), 16));
+        assertEquals(0, direct.position());
+    }
+    
+    @Test
+    public void testMalformed() throws IOException {
+        byte[][] malformed = {
+                { 'a', (byte)0x80, 'b' },                    // Unexpected continuation
+                { 'a', (byte)0xC3 },                          // Truncated
+                { 'a', (byte)0xE2, (byte)0x9C, 'b' },         // Truncated within sequence
+                { 'a', (byte)0xC0, (byte)0x80, 'b' },         // Overlong
+                { 'a', (byte)0xED, (byte)0xA0, (byte)0x80 },  // Surrogate
+                { 'a', (byte)0xF8, 'b' },                     // Invalid lead byte
+        };
+        for (byte[] data : malformed) {
+            String str = readAll(new Utf8ByteReader(data), 3);
+            assertTrue(str.startsWith("a"));
+            assertTrue(str.indexOf('\uFFFD') > 0);
+        }
+    }
+    
+    @Test
+    public void testRandomValidStrings() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(64);
+            for (int j = 0; j < len; j++) {
+                int cp;
+                do {
+                    switch (random.nextInt(4)) {
+                        case 0:  cp = random.nextInt(0x80); break;
+                        case 1:  cp = 0x80 + random.nextInt(0x800 - 0x80); break;
+                        case 2:  cp = 0x800 + random.nextInt(0x10000 - 0x800); break;
+                        default: cp = 0x10000 + random.nextInt(Character.MAX_CODE_POINT + 1 - 0x10000);
+                    }
+                } while (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE);
+                sb.appendCodePoint(cp);
+            }
+            String str = sb.toString();
+            assertEquals(str, readAll(new Utf8ByteReader(bytes(str)), 1 + random.nextInt(16)));
+        }
+    }
+    
+    
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static String readAll(Reader reader, int chunkSize) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[chunkSize];
+        int n;
+        while ((n = reader.read(buf, 0, chunkSize)) != -1) {
+            assertTrue(n > 0);
+            sb.append(buf, 0, n);
+        }
+        return sb.toString();
+    }
+    
+    private static String readSingle(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1)
+            sb.append((char)c);
+        return sb.toString();
+    }
+    
+}
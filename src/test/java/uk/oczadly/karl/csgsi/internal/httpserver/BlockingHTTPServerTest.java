@@ -0,0 +1,174 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.internal.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static uk.oczadly.karl.csgsi.internal.httpserver.NIOHTTPServerTest.findFreePort;
+import static uk.oczadly.karl.csgsi.internal.httpserver.NIOHTTPServerTest.readResponse;
+
+/**
+ * @author Karl Oczadly
+ */
+public class BlockingHTTPServerTest {
+    
+    private static final InetAddress ADDRESS = InetAddress.getLoopbackAddress();
+    private static final HTTPRequestHandler HANDLER =
+            (address, path, method, headers, body) -> new HTTPResponse(200, "text/plain", path);
+    
+    private BlockingHTTPServer server;
+    
+    @After
+    public void tearDown() {
+        if (server != null && server.isRunning())
+            server.stop();
+    }
+    
+    
+    @Test
+    public void testSingleRequest() throws Exception {
+        server = new BlockingHTTPServer(findFreePort(), ADDRESS, HANDLER);
+        server.start();
+        try (Socket socket = new Socket(ADDRESS, server.getPort())) {
+            write(socket, request("/path"));
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"));
+            assertTrue(response.contains("Connection: close\r\n"));
+            assertTrue(response.endsWith("\r\n\r\n/path"));
+        }
+    }
+    
+    @Test
+    public void testKeepAlive() throws Exception {
+        server = new BlockingHTTPServer(findFreePort(), ADDRESS, HANDLER,
+                new HTTPServerConfig().setKeepAlive(5000, 0));
+        server.start();
+        try (Socket socket = new Socket(ADDRESS, server.getPort());
+             Socket other = new Socket(ADDRESS, server.getPort())) {
+            socket.setSoTimeout(2000);
+            other.setSoTimeout(2000);
+            InputStream is = socket.getInputStream();
+            for (int i = 0; i < 3; i++) {
+                write(socket, request("/" + i));
+                String response = readResponse(is);
+                assertTrue(response.contains("Connection: keep-alive\r\n"));
+                assertTrue(response.endsWith("/" + i));
+            }
+            // An idle persistent connection shouldn't block other clients
+            write(other, request("/other"));
+            assertTrue(readResponse(other.getInputStream()).endsWith("/other"));
+        }
+        assertEquals(2, server.getStats().getConnections());
+        assertEquals(4, server.getStats().getRequests());
+        assertEquals(2, server.getStats().getReusedRequests());
+    }
+    
+    @Test
+    public void testKeepAliveIdleTimeout() throws Exception {
+        server = new BlockingHTTPServer(findFreePort(), ADDRESS, HANDLER,
+                new HTTPServerConfig().setKeepAlive(100, 0));
+        server.start();
+        try (Socket socket = new Socket(ADDRESS, server.getPort())) {
+            socket.setSoTimeout(2000);
+            write(socket, request("/"));
+            assertTrue(readResponse(socket.getInputStream()).contains("Connection: keep-alive\r\n"));
+            assertEquals(-1, socket.getInputStream().read()); // Closed by server once idle
+        }
+    }
+    
+    @Test
+    public void testVirtualThreads() throws Exception {
+        server = new BlockingHTTPServer(findFreePort(), ADDRESS, HANDLER,
+                new HTTPServerConfig().setVirtualThreads(true));
+        server.start();
+        try (Socket stalled = new Socket(ADDRESS, server.getPort());
+             Socket socket = new Socket(ADDRESS, server.getPort())) {
+            socket.setSoTimeout(2000);
+            // Connection per thread, so a stalled client shouldn't block others
+            write(stalled, "POST / HTTP/1.1\r\n");
+            write(socket, request("/path"));
+            assertTrue(readResponse(socket.getInputStream()).endsWith("/path"));
+        }
+    }
+    
+    @Test
+    public void testMalformedRequests() throws Exception {
+        server = new BlockingHTTPServer(findFreePort(), ADDRESS, HANDLER);
+        server.start();
+        String[] malformed = {
+                "POST /\r\n\r\n",
+                "NOT-HTTP\r\n\r\n",
+                "POST / HTTP/1.1\r\nContent-Length: -5\r\n\r\n",
+                "POST / HTTP/1.1\r\nContent-Length: abc\r\n\r\n",
+                "POST / HTTP/1.1\r\nContent-Length: 99999999999\r\n\r\n",
+                "POST / HTTP/1.1\r\nContent-Length: 10\r\n\r\nshort",
+        };
+        for (String request : malformed) {
+            try (Socket socket = new Socket(ADDRESS, server.getPort())) {
+                socket.setSoTimeout(2000);
+                write(socket, request);
+                socket.shutdownOutput();
+                assertEquals("Expected no response to " + request, -1, socket.getInputStream().read());
+            }
+        }
+        // Malformed header lines are ignored
+        try (Socket socket = new Socket(ADDRESS, server.getPort())) {
+            socket.setSoTimeout(2000);
+            write(socket, "POST /ok HTTP/1.1\r\nBad header\r\n: x\r\nContent-Length: 2\r\n\r\n{}");
+            assertTrue(readResponse(socket.getInputStream()).endsWith("/ok"));
+        }
+        assertTrue(server.isRunning());
+    }
+    
+    @Test
+    public void testLargeBody() throws Exception {
+        AtomicReference<byte[]> received = new AtomicReference<>();
+        server = new BlockingHTTPServer(findFreePort(), ADDRESS, (address, path, method, headers, body) -> {
+            received.set(body);
+            return new HTTPResponse(200);
+        }, new HTTPServerConfig().setMaxBodySize(100_000));
+        server.start();
+        
+        byte[] body = Util.repeatChar('x', 100_000).getBytes(StandardCharsets.UTF_8);
+        try (Socket socket = new Socket(ADDRESS, server.getPort())) {
+            socket.setSoTimeout(2000);
+            OutputStream os = socket.getOutputStream();
+            os.write(("POST / HTTP/1.1\r\nContent-Length: " + body.length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            // Send body in separate segments
+            for (int i = 0; i < body.length; i += 8192) {
+                os.write(body, i, Math.min(8192, body.length - i));
+                os.flush();
+                Thread.sleep(1);
+            }
+            assertTrue(readResponse(socket.getInputStream()).startsWith("HTTP/1.1 200 "));
+        }
+        assertArrayEquals(body, received.get());
+        
+        try (Socket socket = new Socket(ADDRESS, server.getPort())) {
+            socket.setSoTimeout(2000);
+            write(socket, "POST / HTTP/1.1\r\nContent-Length: 100001\r\n\r\n");
+            assertTrue(readResponse(socket.getInputStream()).startsWith("HTTP/1.1 413 "));
+        }
+    }
+    
+    
+    private static String request(String path) {
+        return "POST " + path + " HTTP/1.1\r\nContent-Type: application/json\r\nContent-Length: 2\r\n\r\n{}";
+    }
+    
+    private static void write(Socket socket, String data) throws IOException {
+        socket.getOutputStream().write(data.getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+    }
+    
+}
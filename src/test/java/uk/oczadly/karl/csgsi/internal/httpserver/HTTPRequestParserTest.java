@@ -0,0 +1,114 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class HTTPRequestParserTest {
+    
+    @Test
+    public void testStartLine() {
+        assertArrayEquals(new String[] {"POST", "/", "HTTP/1.1"},
+                HTTPRequestParser.parseStartLine("POST / HTTP/1.1"));
+        assertArrayEquals(new String[] {"GET", "/a/b?c=d", "HTTP/1.0"},
+                HTTPRequestParser.parseStartLine("get /a/b?c=d HTTP/1.0"));
+        assertArrayEquals(new String[] {"GET", "/with space", "HTTP/2"},
+                HTTPRequestParser.parseStartLine("GET /with space HTTP/2"));
+        assertArrayEquals(new String[] {"GET", "/a b/\u00e9", "HTTP/1.1"},
+                HTTPRequestParser.parseStartLine("GET /a+b/%C3%A9 HTTP/1.1"));
+    }
+    
+    @Test
+    public void testMalformedStartLine() {
+        String[] invalid = {
+                "",
+                "POST",
+                "POST ",
+                "POST /",
+                "POST / ",
+                "POST  HTTP/1.1",           // Empty target
+                " / HTTP/1.1",              // Empty method
+                "PO-ST / HTTP/1.1",         // Invalid method char
+                "POST / HTTP/",             // Missing version number
+                "POST / HTTP/1.1a",         // Invalid version number
+                "POST / http/1.1",          // Lower-case protocol
+                "POST / FTP/1.1",           // Wrong protocol
+                "POST\t/\tHTTP/1.1",        // Tab separators
+                "POST /%zz HTTP/1.1",       // Invalid URL encoding
+                "POST /%C HTTP/1.1",        // Truncated URL encoding
+        };
+        for (String line : invalid)
+            assertNull("Expected \"" + line + "\" to be rejected", HTTPRequestParser.parseStartLine(line));
+    }
+    
+    @Test
+    public void testKnownHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        assertTrue(HTTPRequestParser.parseHeader("Content-Type: application/json", headers));
+        assertTrue(HTTPRequestParser.parseHeader("CONTENT-LENGTH:123", headers));
+        assertTrue(HTTPRequestParser.parseHeader("connection \t:  keep-alive  ", headers));
+        assertEquals(3, headers.size());
+        assertEquals("application/json", headers.get("content-type"));
+        assertEquals("123", headers.get("content-length"));
+        assertEquals("keep-alive", headers.get("connection"));
+    }
+    
+    @Test
+    public void testUnknownHeadersSkipped() {
+        Map<String, String> headers = new HashMap<>();
+        assertTrue(HTTPRequestParser.parseHeader("Host: 127.0.0.1:1337", headers));
+        assertTrue(HTTPRequestParser.parseHeader("Content-Typo: text/plain", headers));
+        assertTrue(HTTPRequestParser.parseHeader("Content: text/plain", headers));
+        assertTrue(HTTPRequestParser.parseHeader("X_Custom-Header: value", headers));
+        assertTrue(headers.isEmpty());
+    }
+    
+    @Test
+    public void testMalformedHeaders() {
+        String[] invalid = {
+                "",
+                ": value",                  // Missing name
+                "Content-Type",             // Missing colon
+                "Content-Type application/json",
+                "Content Type: text/plain", // Space within name
+                "Content-Type;: text/plain",
+                "Content-Length:",          // Missing value
+                "Content-Length:   \t",
+                "\u00dcnicode: value",
+        };
+        Map<String, String> headers = new HashMap<>();
+        for (String line : invalid)
+            assertFalse("Expected \"" + line + "\" to be rejected", HTTPRequestParser.parseHeader(line, headers));
+        assertTrue(headers.isEmpty());
+    }
+    
+    @Test
+    public void testContentLength() {
+        assertEquals(0, HTTPRequestParser.parseContentLength("0"));
+        assertEquals(20480, HTTPRequestParser.parseContentLength("20480"));
+        assertEquals(Integer.MAX_VALUE, HTTPRequestParser.parseContentLength("2147483647"));
+        assertEquals(-1, HTTPRequestParser.parseContentLength(""));
+        assertEquals(-1, HTTPRequestParser.parseContentLength("-1"));
+        assertEquals(-1, HTTPRequestParser.parseContentLength("+1"));
+        assertEquals(-1, HTTPRequestParser.parseContentLength("1.0"));
+        assertEquals(-1, HTTPRequestParser.parseContentLength("0x10"));
+        assertEquals(-1, HTTPRequestParser.parseContentLength("2147483648"));
+        assertEquals(-1, HTTPRequestParser.parseContentLength("99999999999"));
+    }
+    
+    @Test
+    public void testDecodeLine() {
+        byte[] bytes = "xxHeader: caf\u00e9\r\n".getBytes(StandardCharsets.UTF_8);
+        StringBuilder sb = new StringBuilder();
+        HTTPRequestParser.decodeLine(bytes, 2, bytes.length - 2, sb);
+        assertEquals("Header: caf\u00e9", sb.toString());
+    }
+    
+}
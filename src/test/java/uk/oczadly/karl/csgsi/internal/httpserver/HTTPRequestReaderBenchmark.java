@@ -0,0 +1,120 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous byte-at-a-time request reading against {@link HTTPRequestReader}, reading a full request
+ * (start-line, headers and a ~20 KB {@code allplayers} body) from an in-memory stream.
+ *
+ * <p>As the stream is in-memory, this only measures the parsing and allocation costs; on a socket stream the legacy
+ * reader additionally incurs a read call per byte. Run through {@link #main(String[])} from the test classpath.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HTTPRequestReaderBenchmark {
+    
+    private byte[] request;
+    
+    @Setup
+    public void setup() {
+        String body = allPlayersJson();
+        request = ("POST / HTTP/1.1\r\n"
+                + "User-Agent: Valve/Steam HTTP Client 1.0 (730)\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Host: 127.0.0.1:1337\r\n"
+                + "Accept: text/html,*/*;q=0.9\r\n"
+                + "Accept-Encoding: gzip,identity,*;q=0\r\n"
+                + "Accept-Charset: ISO-8859-1,utf-8,*;q=0.7\r\n"
+                + "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n"
+                + "\r\n" + body).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public void legacyReader(Blackhole bh) throws IOException {
+        InputStream is = new ByteArrayInputStream(request);
+        String[] start = HTTPRequestParser.parseStartLine(legacyReadLine(is));
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = legacyReadLine(is)) != null && !line.isEmpty())
+            HTTPRequestParser.parseHeader(line, headers);
+        byte[] body = new byte[Integer.parseInt(headers.get("content-length"))];
+        is.readNBytes(body, 0, body.length);
+        bh.consume(start);
+        bh.consume(new String(body, StandardCharsets.UTF_8));
+    }
+    
+    @Benchmark
+    public void bufferedReader(Blackhole bh) throws IOException {
+        HTTPRequestReader reader = new HTTPRequestReader(new ByteArrayInputStream(request));
+        String[] start = HTTPRequestParser.parseStartLine(reader.readLine(HTTPConnection.MAX_LINE_LENGTH));
+        Map<String, String> headers = new HashMap<>();
+        CharSequence line;
+        while ((line = reader.readLine(HTTPConnection.MAX_LINE_LENGTH)) != null && line.length() > 0)
+            HTTPRequestParser.parseHeader(line, headers);
+        byte[] body = reader.readBytes(Integer.parseInt(headers.get("content-length")));
+        reader.release();
+        bh.consume(start);
+        bh.consume(new String(body, StandardCharsets.UTF_8));
+    }
+    
+    
+    /** The line reader previously used by {@link HTTPConnection} */
+    private static String legacyReadLine(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        int c;
+        for (c = inputStream.read(); c != '\n' && c != -1; c = inputStream.read())
+            if (c != '\r') bos.write(c);
+        if (c == -1 && bos.size() == 0) return null;
+        return new String(bos.toByteArray(), 0, bos.size(), StandardCharsets.UTF_8);
+    }
+    
+    /** Generates an allplayers state payload for 10 players (~20 KB) */
+    static String allPlayersJson() {
+        StringBuilder sb = new StringBuilder("{\"provider\":{\"name\":\"Counter-Strike: Global Offensive\","
+                + "\"appid\":730,\"version\":13765,\"steamid\":\"76561198000000000\",\"timestamp\":1600000000},"
+                + "\"allplayers\":{");
+        for (int i = 0; i < 10; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("\"7656119800000000").append(i).append("\":{")
+                    .append("\"name\":\"Player ").append(i).append("\",\"observer_slot\":").append(i)
+                    .append(",\"team\":\"").append(i < 5 ? "CT" : "T").append("\",")
+                    .append("\"state\":{\"health\":100,\"armor\":100,\"helmet\":true,\"flashed\":0,\"burning\":0,")
+                    .append("\"money\":4250,\"round_kills\":0,\"round_killhs\":0,\"equip_value\":5700},")
+                    .append("\"match_stats\":{\"kills\":12,\"assists\":3,\"deaths\":9,\"mvps\":2,\"score\":31},")
+                    .append("\"weapons\":{");
+            for (int w = 0; w < 6; w++) {
+                if (w > 0) sb.append(',');
+                sb.append("\"weapon_").append(w).append("\":{")
+                        .append("\"name\":\"weapon_ak47\",\"paintkit\":\"cu_ak47_asiimov\",")
+                        .append("\"type\":\"Rifle\",\"ammo_clip\":30,\"ammo_clip_max\":30,\"ammo_reserve\":90,")
+                        .append("\"state\":\"").append(w == 0 ? "active" : "holstered").append("\"}");
+            }
+            sb.append("},\"position\":\"-1234.56, 789.01, -23.45\",\"forward\":\"0.12, -0.98, 0.05\"}");
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+    
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HTTPRequestReaderBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+}
@@ -0,0 +1,95 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import org.junit.Test;
+import uk.oczadly.karl.csgsi.internal.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class HTTPRequestReaderTest {
+    
+    @Test
+    public void testReadLines() throws IOException {
+        HTTPRequestReader reader = reader("POST / HTTP/1.1\r\nHost: localhost\nEmpty:\r\n\r\nbody");
+        assertEquals("POST / HTTP/1.1", reader.readLine(100).toString());
+        assertEquals("Host: localhost", reader.readLine(100).toString());
+        assertEquals("Empty:", reader.readLine(100).toString());
+        assertEquals("", reader.readLine(100).toString());
+        assertEquals("body", reader.readLine(100).toString()); // Unterminated
+        assertNull(reader.readLine(100));
+    }
+    
+    @Test
+    public void testReadLineUtf8() throws IOException {
+        HTTPRequestReader reader = reader("X-Name: caf\u00e9 \u2713\r\nnext\r\n");
+        assertEquals("X-Name: caf\u00e9 \u2713", reader.readLine(100).toString());
+        assertEquals("next", reader.readLine(100).toString());
+    }
+    
+    @Test
+    public void testReadLineAcrossBuffers() throws IOException {
+        String longLine = "X-Long: " + Util.repeatChar('a', HTTPRequestReader.BUFFER_SIZE + 100) + "\u00e9";
+        HTTPRequestReader reader = new HTTPRequestReader(new TrickleInputStream(
+                (longLine + "\r\nnext\r\n").getBytes(StandardCharsets.UTF_8), 1000));
+        assertEquals(longLine, reader.readLine(Integer.MAX_VALUE).toString());
+        assertEquals("next", reader.readLine(100).toString());
+    }
+    
+    @Test(expected = IOException.class)
+    public void testReadLineTooLong() throws IOException {
+        reader(Util.repeatChar('a', 200) + "\r\n").readLine(100);
+    }
+    
+    @Test
+    public void testReadBytes() throws IOException {
+        byte[] body = Util.repeatChar('x', 20000).getBytes(StandardCharsets.UTF_8);
+        byte[] request = ("POST / HTTP/1.1\r\n\r\n" + new String(body, StandardCharsets.UTF_8))
+                .getBytes(StandardCharsets.UTF_8);
+        HTTPRequestReader reader = new HTTPRequestReader(new TrickleInputStream(request, 3000));
+        assertEquals("POST / HTTP/1.1", reader.readLine(100).toString());
+        assertEquals("", reader.readLine(100).toString());
+        assertArrayEquals(body, reader.readBytes(body.length)); // Partly buffered, partly read from the stream
+        assertNull(reader.readLine(100));
+    }
+    
+    @Test
+    public void testReadBytesStreamEnded() throws IOException {
+        HTTPRequestReader reader = reader("\r\nabc");
+        reader.readLine(100);
+        assertNull(reader.readBytes(10));
+    }
+    
+    
+    private static HTTPRequestReader reader(String data) {
+        return new HTTPRequestReader(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /** Returns at most the given number of bytes per read call */
+    private static class TrickleInputStream extends InputStream {
+        private final ByteArrayInputStream is;
+        private final int chunkSize;
+        
+        TrickleInputStream(byte[] data, int chunkSize) {
+            this.is = new ByteArrayInputStream(data);
+            this.chunkSize = chunkSize;
+        }
+        
+        @Override
+        public int read() {
+            return is.read();
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return is.read(b, off, Math.min(len, chunkSize));
+        }
+    }
+    
+}
@@ -0,0 +1,243 @@
+package uk.oczadly.karl.csgsi.internal.httpserver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Karl Oczadly
+ */
+public class NIOHTTPServerTest {
+    
+    private static final InetAddress ADDRESS = InetAddress.getLoopbackAddress();
+    
+    private final BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+    private NIOHTTPServer server;
+    
+    @Before
+    public void setUp() throws IOException {
+        server = new NIOHTTPServer(findFreePort(), ADDRESS, (address, path, method, headers, body) -> {
+            bodies.add(method + " " + path + " " + headers.get("content-type") + " "
+                    + (body != null ? new String(body, StandardCharsets.UTF_8) : null));
+            return new HTTPResponse(200, "text/plain", "ok");
+        });
+        server.start();
+    }
+    
+    @After
+    public void tearDown() {
+        if (server.isRunning())
+            server.stop();
+    }
+    
+    
+    @Test
+    public void testRequest() throws Exception {
+        try (Socket socket = connect()) {
+            write(socket, post("/path", "{\"a\": 1}"));
+            String response = readAll(socket.getInputStream());
+            assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"));
+            assertTrue(response.endsWith("\r\n\r\nok"));
+        }
+        assertEquals("POST /path application/json {\"a\": 1}", bodies.poll(1, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testFragmentedRequest() throws Exception {
+        String request = post("/", "{\"key\": \"value\"}");
+        try (Socket socket = connect()) {
+            // Send the request in small chunks
+            for (int i = 0; i < request.length(); i += 7) {
+                write(socket, request.substring(i, Math.min(request.length(), i + 7)));
+                Thread.sleep(5);
+            }
+            assertTrue(readAll(socket.getInputStream()).startsWith("HTTP/1.1 200 OK\r\n"));
+        }
+        assertEquals("POST / application/json {\"key\": \"value\"}", bodies.poll(1, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testLeadingEmptyLines() throws Exception {
+        try (Socket socket = connect()) {
+            write(socket, "\r\n\r\n" + post("/path", "{}"));
+            assertTrue(readAll(socket.getInputStream()).startsWith("HTTP/1.1 200 OK\r\n"));
+        }
+        assertEquals("POST /path application/json {}", bodies.poll(1, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testStalledClientDoesNotBlock() throws Exception {
+        try (Socket stalled = connect(); Socket other = connect()) {
+            // Stalled client sends an incomplete request and then nothing
+            write(stalled, "POST / HTTP/1.1\r\nContent-Type: application/json\r\n");
+            
+            other.setSoTimeout(2000);
+            write(other, post("/other", "{}"));
+            assertTrue(readAll(other.getInputStream()).startsWith("HTTP/1.1 200 OK\r\n"));
+            assertEquals("POST /other application/json {}", bodies.poll(1, TimeUnit.SECONDS));
+        }
+    }
+    
+    @Test
+    public void testStalledClientClosed() throws Exception {
+        server.stop();
+        server = new NIOHTTPServer(findFreePort(), ADDRESS, server.getHandler(),
+                new HTTPServerConfig().setRequestTimeout(100));
+        server.start();
+        
+        try (Socket socket = connect()) {
+            socket.setSoTimeout(2000);
+            write(socket, "POST / HTTP/1.1\r\nContent-Length: 10\r\n\r\n{}"); // Incomplete body
+            assertEquals(-1, socket.getInputStream().read()); // Closed by server once idle
+        }
+        assertTrue(bodies.isEmpty());
+    }
+    
+    @Test
+    public void testStop() throws Exception {
+        assertTrue(server.isRunning());
+        server.stop();
+        assertFalse(server.isRunning());
+        server.start(); // Port should have been released
+        assertTrue(server.isRunning());
+    }
+    
+    
+    @Test
+    public void testKeepAlive() throws Exception {
+        server.stop();
+        server = new NIOHTTPServer(findFreePort(), ADDRESS, server.getHandler(),
+                new HTTPServerConfig().setKeepAlive(5000, 3));
+        server.start();
+        
+        try (Socket socket = connect()) {
+            socket.setSoTimeout(2000);
+            InputStream is = socket.getInputStream();
+            // Two requests sent together (pipelined), and one after
+            write(socket, post("/1", "{}") + post("/2", "{}"));
+            assertTrue(readResponse(is).contains("Connection: keep-alive"));
+            assertTrue(readResponse(is).contains("Connection: keep-alive"));
+            write(socket, post("/3", "{}"));
+            assertTrue(readResponse(is).contains("Connection: close")); // Request cap reached
+            assertEquals(-1, is.read());
+        }
+        assertEquals(3, bodies.size());
+        assertEquals(1, server.getStats().getConnections());
+        assertEquals(3, server.getStats().getRequests());
+        assertEquals(2, server.getStats().getReusedRequests());
+    }
+    
+    @Test
+    public void testKeepAliveIdleTimeout() throws Exception {
+        server.stop();
+        server = new NIOHTTPServer(findFreePort(), ADDRESS, server.getHandler(),
+                new HTTPServerConfig().setKeepAlive(100, 0));
+        server.start();
+        
+        try (Socket socket = connect()) {
+            socket.setSoTimeout(2000);
+            write(socket, post("/", "{}"));
+            assertTrue(readResponse(socket.getInputStream()).contains("Connection: keep-alive"));
+            assertEquals(-1, socket.getInputStream().read()); // Closed by server once idle
+        }
+    }
+    
+    @Test
+    public void testConnectionCloseRequested() throws Exception {
+        server.stop();
+        server = new NIOHTTPServer(findFreePort(), ADDRESS, server.getHandler(),
+                new HTTPServerConfig().setKeepAlive(5000, 0));
+        server.start();
+        
+        try (Socket socket = connect()) {
+            write(socket, post("/", "{}").replace("\r\n\r\n", "\r\nConnection: close\r\n\r\n"));
+            assertTrue(readAll(socket.getInputStream()).contains("Connection: close"));
+        }
+    }
+    
+    
+    @Test
+    public void testBodyTooLarge() throws Exception {
+        server.stop();
+        server = new NIOHTTPServer(findFreePort(), ADDRESS, server.getHandler(),
+                new HTTPServerConfig().setMaxBodySize(16).setKeepAlive(5000, 0));
+        server.start();
+        
+        try (Socket socket = connect()) {
+            write(socket, post("/", "{\"key\": \"a longer value\"}"));
+            String response = readAll(socket.getInputStream());
+            assertTrue(response.startsWith("HTTP/1.1 413 "));
+            assertTrue(response.contains("Connection: close\r\n"));
+        }
+        try (Socket socket = connect()) {
+            write(socket, post("/", "{\"key\": \"abc\"}")); // Exactly 16 bytes
+            assertTrue(readResponse(socket.getInputStream()).startsWith("HTTP/1.1 200 "));
+        }
+        assertEquals("POST / application/json {\"key\": \"abc\"}", bodies.poll(1, TimeUnit.SECONDS));
+        assertTrue(bodies.isEmpty());
+    }
+    
+    
+    private Socket connect() throws IOException {
+        return new Socket(ADDRESS, server.getPort());
+    }
+    
+    private static String post(String path, String body) {
+        return "POST " + path + " HTTP/1.1\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + body;
+    }
+    
+    private static void write(Socket socket, String data) throws IOException {
+        OutputStream os = socket.getOutputStream();
+        os.write(data.getBytes(StandardCharsets.UTF_8));
+        os.flush();
+    }
+    
+    private static String readAll(InputStream is) throws IOException {
+        return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    
+    /** Reads a single response from the stream, using the content-length header */
+    static String readResponse(InputStream is) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int contentLength = 0;
+        while (true) {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = is.read()) != '\n') {
+                if (c == -1) throw new IOException("Stream ended");
+                if (c != '\r') line.append((char)c);
+            }
+            sb.append(line).append("\r\n");
+            if (line.length() == 0) break;
+            if (line.toString().toLowerCase().startsWith("content-length:"))
+                contentLength = Integer.parseInt(line.substring(15).trim());
+        }
+        byte[] body = new byte[contentLength];
+        is.readNBytes(body, 0, contentLength);
+        sb.append(new String(body, StandardCharsets.UTF_8));
+        return sb.toString();
+    }
+    
+    static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+    
+}
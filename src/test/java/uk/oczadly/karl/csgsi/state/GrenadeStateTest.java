@@ -6,6 +6,10 @@ import uk.oczadly.karl.csgsi.state.components.grenade.EffectGrenade;
 import uk.oczadly.karl.csgsi.state.components.grenade.Grenade;
 import uk.oczadly.karl.csgsi.state.components.PlayerSteamID;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.Assert.*;
 
 public class GrenadeStateTest extends GameStateBaseTest {
@@ -49,4 +53,28 @@ public class GrenadeStateTest extends GameStateBaseTest {
         assertEquals(1, state.getByType(Grenade.Type.SMOKE).size());
     }
     
+    @Test
+    public void testIndexes() {
+        GrenadeState state = deserializeState("{\"grenades\": {" +
+                "\"140\": {\"owner\": 76561198050830377, \"type\": \"flashbang\"}," +
+                "\"129\": {\"owner\": 76561198050830377, \"type\": \"smoke\"}," +
+                "\"135\": {\"owner\": 76561198050830376, \"type\": \"smoke\"}," +
+                "\"137\": {\"owner\": 76561198050830376, \"type\": \"slugs\"}" +
+                "}}").getGrenades().get();
+        
+        assertEquals(List.of(129, 135, 137, 140), new ArrayList<>(state.getAll().keySet()));
+        assertEquals(List.of(129, 135), new ArrayList<>(state.getByType(Grenade.Type.SMOKE).keySet()));
+        assertEquals(Set.of(137), state.getByType(null).keySet());
+        assertEquals(List.of(129, 140),
+                new ArrayList<>(state.getByOwner(PlayerSteamID.fromId64("76561198050830377")).keySet()));
+        assertSame(state.getById(135), state.getByOwner(PlayerSteamID.fromId64("76561198050830376")).get(135));
+        assertSame(state.getByType(Grenade.Type.SMOKE), state.getByType(Grenade.Type.SMOKE));
+        assertTrue(state.getByType(Grenade.Type.DECOY).isEmpty());
+        assertTrue(state.getByOwner(null).isEmpty());
+        try {
+            state.getByType(Grenade.Type.SMOKE).clear();
+            fail("Index should be immutable");
+        } catch (UnsupportedOperationException ignored) {}
+    }
+    
 }
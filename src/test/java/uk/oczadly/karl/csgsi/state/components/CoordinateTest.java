@@ -44,6 +44,11 @@ public class CoordinateTest {
         assertEquals(coord.getZ(), -3.3, 1e-10);
     }
     
+    @Test
+    public void testSerialize() {
+        assertEquals("{\"x\":1.0E-5,\"y\":2.5,\"z\":-3.0}", new Gson().toJson(new Coordinate(1e-5, 2.5, -3)));
+    }
+    
     @Test
     public void testIsZero() {
         assertTrue(new Coordinate(0, 0, 0).isZero());
@@ -54,6 +54,33 @@ public class EnumValueTest {
     }
     
     
+    @Test
+    public void testCachedInstances() {
+        TestContainer vals1 = gson.fromJson("{\"standard\": \"B\", \"notFound\": \"D\"}", TestContainer.class);
+        TestContainer vals2 = gson.fromJson("{\"standard\": \"B\", \"notFound\": \"D\"}", TestContainer.class);
+        assertSame(vals1.standard, vals2.standard);
+        assertSame(vals1.notFound, vals2.notFound);
+        assertSame(vals1.standard, EnumValue.of("B", Enum.class, gson));
+        assertSame(EnumValue.of("BB", EnumWithNames.class, gson), EnumValue.of("BB", EnumWithNames.class, gson));
+        assertNotSame(EnumValue.of("A", Enum.class, gson), EnumValue.of("AA", EnumWithNames.class, gson));
+    }
+    
+    @Test
+    public void testCacheBounded() {
+        Gson gson = new Gson();
+        EnumValue<Enum> known = EnumValue.of("A", Enum.class, gson);
+        for (int i = 0; i < EnumValue.DeserializerFactory.Deserializer.MAX_CACHE_SIZE * 2; i++)
+            EnumValue.of("unknown" + i, Enum.class, gson);
+        
+        // Previously cached values are retained, new values are no longer cached
+        assertSame(known, EnumValue.of("A", Enum.class, gson));
+        EnumValue<Enum> uncached = EnumValue.of("C", Enum.class, gson);
+        assertSame(Enum.C, uncached.get());
+        assertEquals("C", uncached.getString());
+        assertNotSame(uncached, EnumValue.of("C", Enum.class, gson));
+    }
+    
+    
     static class TestContainer {
         EnumValue<Enum> standard;
         EnumValue<EnumWithNames> named;
@@ -2,12 +2,16 @@ package uk.oczadly.karl.csgsi.state.components;
 
 import org.junit.Test;
 import uk.oczadly.karl.csgsi.internal.Util;
+import uk.oczadly.karl.csgsi.state.components.grenade.BasicGrenade;
 import uk.oczadly.karl.csgsi.state.components.grenade.EffectGrenade;
 import uk.oczadly.karl.csgsi.state.components.grenade.Grenade;
 import uk.oczadly.karl.csgsi.state.components.grenade.IncendiaryGrenade;
 import uk.oczadly.karl.csgsi.state.components.grenade.ProjectileGrenade;
 
-import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
 
 /**
  * @author Karl Oczadly
@@ -67,10 +71,16 @@ public class GrenadeTest {
         IncendiaryGrenade grenade = (IncendiaryGrenade)Util.GSON.fromJson(json, Grenade.class);
         assertEquals(Grenade.Type.MOLOTOV_FLAMES, grenade.getType().get());
         assertEquals(PlayerSteamID.fromId64("76561197960265729"), grenade.getOwner());
-        assertEquals(new Coordinate(-95.53, 359.38, -1.38), grenade.getApproxPosition());
+        assertCoordinate(-81.03, 359.38, 0.125, grenade.getApproxPosition());
         assertEquals(6, grenade.getFlames().size());
         assertEquals(new Coordinate(-140.03, 329.38, 1.63), grenade.getFlames().get("flame_p0_p0_p0"));
-        assertEquals(183.0, grenade.getApproxSize(), 1e-9);
+        assertEquals(212.0, grenade.getApproxSize(), 1e-9);
+        
+        IncendiaryGrenade.FlameSummary summary = grenade.getSummary();
+        assertEquals(6, summary.getCount());
+        assertEquals(new Coordinate(-171.03, 300.38, -1.38), summary.getMin());
+        assertEquals(new Coordinate(8.97, 418.38, 1.63), summary.getMax());
+        assertCoordinate(-71.6966666, 343.0466666, -0.0416666, summary.getCentroid());
         assertEquals(10.7, grenade.getLifetime(), 1e-9);
     }
     
@@ -139,5 +149,88 @@ public class GrenadeTest {
         assertEquals(PlayerSteamID.fromId64("76561197960265729"), grenade.getOwner());
         assertEquals(10.7, grenade.getLifetime(), 1e-9);
     }
-
-}
\ No newline at end of file
+    
+    @Test
+    public void testPackedFlames() {
+        String json = "{\"type\": \"inferno\", \"flames\": {" +
+                "\"flame_b\": \"1.00, 2.00, 3.00\", \"flame_a\": \"-4.50, 5.25, -6.00\"}, \"lifetime\": 1.5}";
+        
+        IncendiaryGrenade grenade = (IncendiaryGrenade)Util.GSON.fromJson(json, Grenade.class);
+        assertEquals(2, grenade.getFlameCount());
+        assertEquals(new Coordinate(1, 2, 3), grenade.getFlamePosition(0));
+        assertEquals(new Coordinate(-4.5, 5.25, -6), grenade.getFlamePosition(1));
+        assertEquals(List.of("flame_b", "flame_a"), new ArrayList<>(grenade.getFlames().keySet()));
+        assertSame(grenade.getFlames(), grenade.getFlames());
+        assertEquals(1.5, grenade.getLifetime(), 1e-9);
+        
+        IncendiaryGrenade empty = (IncendiaryGrenade)Util.GSON.fromJson("{\"type\": \"inferno\"}", Grenade.class);
+        assertEquals(0, empty.getFlameCount());
+        assertTrue(empty.getFlames().isEmpty());
+        assertNull(empty.getApproxPosition());
+    }
+    
+    @Test
+    public void testDeserializeMissingType() {
+        Grenade grenade = Util.GSON.fromJson("{\"lifetime\": \"2.5\"}", Grenade.class);
+        assertSame(BasicGrenade.class, grenade.getClass());
+        assertNull(grenade.getType());
+        assertEquals(2.5, grenade.getLifetime(), 1e-9);
+    }
+    
+    @Test
+    public void testFlameSummarySquare() {
+        // 4 corners of a square, and one flame in the center
+        IncendiaryGrenade grenade = flames("10.00, 10.00, 5.00", "-10.00, 10.00, 5.00", "-10.00, -10.00, 5.00",
+                "10.00, -10.00, 5.00", "0.00, 0.00, 0.00");
+        IncendiaryGrenade.FlameSummary summary = grenade.getSummary();
+        assertEquals(5, summary.getCount());
+        assertEquals(new Coordinate(-10, -10, 0), summary.getMin());
+        assertEquals(new Coordinate(10, 10, 5), summary.getMax());
+        assertCoordinate(0, 0, 4, summary.getCentroid());
+        assertCoordinate(0, 0, 2.5, summary.getBoundsCenter());
+        assertEquals(Math.sqrt(200), summary.getHullRadius(), 1e-9);
+        assertEquals(52, grenade.getApproxSize(), 1e-9);
+    }
+    
+    @Test
+    public void testFlameSummaryNegativeCluster() {
+        // Entirely negative coordinates, off-center cluster
+        IncendiaryGrenade grenade = flames("-100.00, -200.00, -5.00", "-130.00, -200.00, -5.00",
+                "-100.00, -240.00, -5.00", "-160.00, -200.00, -5.00");
+        IncendiaryGrenade.FlameSummary summary = grenade.getSummary();
+        assertEquals(new Coordinate(-160, -240, -5), summary.getMin());
+        assertEquals(new Coordinate(-100, -200, -5), summary.getMax());
+        assertCoordinate(-130, -220, -5, grenade.getApproxPosition());
+        assertCoordinate(-122.5, -210, -5, summary.getCentroid());
+        assertEquals(Math.hypot(37.5, 10), summary.getHullRadius(), 1e-9); // Furthest is (-160, -200)
+        assertEquals(92, grenade.getApproxSize(), 1e-9);
+    }
+    
+    @Test
+    public void testFlameSummarySingle() {
+        IncendiaryGrenade grenade = flames("1.50, -2.50, 3.00");
+        assertEquals(1, grenade.getSummary().getCount());
+        assertEquals(new Coordinate(1.5, -2.5, 3), grenade.getSummary().getCentroid());
+        assertEquals(new Coordinate(1.5, -2.5, 3), grenade.getApproxPosition());
+        assertEquals(0, grenade.getSummary().getHullRadius(), 0);
+        assertEquals(32, grenade.getApproxSize(), 0);
+        assertNull(flames().getSummary());
+        assertEquals(0, flames().getApproxSize(), 0);
+    }
+    
+    
+    private static IncendiaryGrenade flames(String... positions) {
+        StringBuilder json = new StringBuilder("{\"type\": \"inferno\", \"flames\": {");
+        for (int i = 0; i < positions.length; i++)
+            json.append(i > 0 ? ", " : "").append("\"flame_").append(i).append("\": \"")
+                    .append(positions[i]).append('"');
+        return (IncendiaryGrenade)Util.GSON.fromJson(json.append("}}").toString(), Grenade.class);
+    }
+    
+    private static void assertCoordinate(double x, double y, double z, Coordinate actual) {
+        assertEquals(x, actual.getX(), 1e-6);
+        assertEquals(y, actual.getY(), 1e-6);
+        assertEquals(z, actual.getZ(), 1e-6);
+    }
+    
+}
@@ -0,0 +1,80 @@
+package uk.oczadly.karl.csgsi.state.components;
+
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import uk.oczadly.karl.csgsi.internal.Util;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares deserializing the inventories of 10 players each holding 6 items, through the direct-indexed
+ * {@link PlayerInventory} adapter and through the previous approach of reading an intermediate map.
+ *
+ * <p>Run through {@link #main(String[])} from the test classpath, optionally with {@code -prof gc}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlayerInventoryBenchmark {
+    
+    private static final Type MAP_TYPE = new TypeToken<HashMap<String, PlayerInventory.ItemDetails>>() {}.getType();
+    private static final String[][] ITEMS = {
+            { "weapon_knife", "Knife" }, { "weapon_usp_silencer", "Pistol" }, { "weapon_ak47", "Rifle" },
+            { "weapon_flashbang", "Grenade" }, { "weapon_smokegrenade", "Grenade" }, { "weapon_molotov", "Grenade" }
+    };
+    
+    private final String[] inventories = new String[10];
+    
+    @Setup
+    public void setUp() {
+        for (int p = 0; p < inventories.length; p++) {
+            StringBuilder sb = new StringBuilder("{");
+            for (int i = 0; i < ITEMS.length; i++) {
+                sb.append(i > 0 ? "," : "").append("\"weapon_").append(i).append("\": {\"name\": \"")
+                        .append(ITEMS[i][0]).append("\", \"paintkit\": \"default\", \"type\": \"").append(ITEMS[i][1])
+                        .append("\", \"ammo_clip\": 1, \"ammo_reserve\": 1, \"state\": \"")
+                        .append(i == p % ITEMS.length ? "active" : "holstered").append("\"}");
+            }
+            inventories[p] = sb.append('}').toString();
+        }
+    }
+    
+    @Benchmark
+    public Object directIndexed() {
+        Object[] results = new Object[inventories.length];
+        for (int i = 0; i < inventories.length; i++)
+            results[i] = Util.GSON.fromJson(inventories[i], PlayerInventory.class);
+        return results;
+    }
+    
+    @Benchmark
+    public Object intermediateMap() {
+        Object[] results = new Object[inventories.length];
+        for (int p = 0; p < inventories.length; p++) {
+            Map<String, PlayerInventory.ItemDetails> map = Util.GSON.fromJson(inventories[p], MAP_TYPE);
+            List<PlayerInventory.ItemDetails> list = new ArrayList<>(map.size());
+            for (int i = 0; i < map.size(); i++)
+                list.add(map.get("weapon_" + i));
+            results[p] = list;
+        }
+        return results;
+    }
+    
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PlayerInventoryBenchmark.class.getSimpleName())
+                .addProfiler("gc").build()).run();
+    }
+    
+}
@@ -109,4 +109,44 @@ public class PlayerInventoryTest {
         assertFalse(inventory.hasItem(Weapon.NEGEV));
     }
     
-}
\ No newline at end of file
+    @Test
+    public void testSlotGapsAndOrdering() {
+        PlayerInventory inv = Util.GSON.fromJson("{" +
+                "\"weapon_3\": {\"name\": \"weapon_ak47\", \"type\": \"Rifle\", \"state\": \"active\"}," +
+                "\"other\": {\"name\": \"weapon_c4\", \"type\": \"C4\", \"state\": \"holstered\"}," +
+                "\"weapon_0\": {\"name\": \"weapon_knife\", \"type\": \"Knife\", \"state\": \"holstered\"}," +
+                "\"weapon_1\": null" +
+                "}", PlayerInventory.class);
+        assertEquals(3, inv.getItems().size());
+        assertEquals(Weapon.KNIFE_CT, inv.getItems().get(0).getWeapon().get());
+        assertEquals(Weapon.AK_47, inv.getItems().get(1).getWeapon().get());
+        assertEquals(Weapon.C4, inv.getItems().get(2).getWeapon().get());
+        assertSame(inv.getItems().get(1), inv.getActiveItem());
+        assertSame(inv.getItems().get(1), inv.getPrimarySlot());
+        assertSame(inv.getItems().get(0), inv.getKnifeSlot());
+        assertNull(inv.getSecondarySlot());
+        assertTrue(inv.getUtilityItems().isEmpty());
+    }
+    
+    @Test
+    public void testEmpty() {
+        PlayerInventory inv = Util.GSON.fromJson("{}", PlayerInventory.class);
+        assertTrue(inv.getItems().isEmpty());
+        assertNull(inv.getActiveItem());
+        assertNull(inv.getMainWeapon());
+    }
+    
+    @Test
+    public void testParseSlotIndex() {
+        assertEquals(0, PlayerInventory.Adapter.parseSlotIndex("weapon_0"));
+        assertEquals(7, PlayerInventory.Adapter.parseSlotIndex("weapon_7"));
+        assertEquals(12, PlayerInventory.Adapter.parseSlotIndex("weapon_12"));
+        assertEquals(-1, PlayerInventory.Adapter.parseSlotIndex("weapon_"));
+        assertEquals(-1, PlayerInventory.Adapter.parseSlotIndex("weapon_x"));
+        assertEquals(-1, PlayerInventory.Adapter.parseSlotIndex("weapon_-1"));
+        assertEquals(-1, PlayerInventory.Adapter.parseSlotIndex("weapon_999"));
+        assertEquals(-1, PlayerInventory.Adapter.parseSlotIndex("weapon_99"));
+        assertEquals(-1, PlayerInventory.Adapter.parseSlotIndex("item_1"));
+    }
+    
+}